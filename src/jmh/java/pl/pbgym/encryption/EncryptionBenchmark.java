@@ -0,0 +1,103 @@
+package pl.pbgym.encryption;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.pbgym.util.encryption.EncryptionUtil;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// Run with: mvn -Pbenchmark -DskipTests test-compile exec:exec -Djmh.args="EncryptionBenchmark"
+// The perCall benchmarks reproduce the previous EncryptionUtil, which looked the provider up and initialised a new
+// cipher on every call. Four threads share one EncryptionUtil, like concurrent requests share the Spring bean.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class EncryptionBenchmark {
+
+    private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
+    private static final String KEY = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+
+    private EncryptionUtil encryptionUtil;
+    private SecretKeySpec secretKeySpec;
+    // Card number, cvc, expiration month and year, as CreditCardInfoService stores them.
+    private String[] cardFields;
+    private String[] encryptedCardFields;
+    private String encryptedJwt;
+
+    @Setup
+    public void setUp() throws Exception {
+        encryptionUtil = new EncryptionUtil(KEY);
+        secretKeySpec = new SecretKeySpec(Base64.getDecoder().decode(KEY), "AES");
+        cardFields = new String[]{"4111111111111111", "123", "09", "2031"};
+        encryptedCardFields = encryptionUtil.encryptAll(cardFields);
+        // About the size of a signed token with the authorities claims.
+        encryptedJwt = encryptionUtil.encrypt("eyJhbGciOiJIUzI1NiJ9." + "x".repeat(300) + "." + "y".repeat(43));
+    }
+
+    @Benchmark
+    public String perCallDecryptJwt() throws Exception {
+        return perCallDecrypt(encryptedJwt);
+    }
+
+    @Benchmark
+    public String pooledDecryptJwt() throws Exception {
+        return encryptionUtil.decrypt(encryptedJwt);
+    }
+
+    @Benchmark
+    public String[] perCallEncryptCard() throws Exception {
+        String[] encrypted = new String[cardFields.length];
+        for (int i = 0; i < cardFields.length; i++) {
+            encrypted[i] = perCallEncrypt(cardFields[i]);
+        }
+        return encrypted;
+    }
+
+    @Benchmark
+    public String[] pooledEncryptCard() throws Exception {
+        return encryptionUtil.encryptAll(cardFields);
+    }
+
+    @Benchmark
+    public String[] perCallDecryptCard() throws Exception {
+        String[] decrypted = new String[encryptedCardFields.length];
+        for (int i = 0; i < encryptedCardFields.length; i++) {
+            decrypted[i] = perCallDecrypt(encryptedCardFields[i]);
+        }
+        return decrypted;
+    }
+
+    @Benchmark
+    public String[] pooledDecryptCard() throws Exception {
+        return encryptionUtil.decryptAll(encryptedCardFields);
+    }
+
+    private String perCallEncrypt(String plainText) throws Exception {
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec);
+        return Base64.getEncoder().encodeToString(cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String perCallDecrypt(String encryptedText) throws Exception {
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, secretKeySpec);
+        return new String(cipher.doFinal(Base64.getDecoder().decode(encryptedText)), StandardCharsets.UTF_8);
+    }
+}
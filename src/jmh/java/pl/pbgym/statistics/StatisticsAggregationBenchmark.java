@@ -0,0 +1,116 @@
+package pl.pbgym.statistics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.pbgym.dto.statistics.GetStatisticsDashboardResponseDto;
+import pl.pbgym.service.statistics.StatisticsService;
+import pl.pbgym.util.statistics.SeriesRange;
+import pl.pbgym.util.statistics.SeriesUnit;
+import pl.pbgym.util.statistics.TimeSeries;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Run with: mvn -Pbenchmark -DskipTests test-compile exec:exec
+// Every benchmark calls a real StatisticsService method; only the repositories are replaced by synthetic data whose
+// size follows the rows parameter. Throughput is reported per operation, the gc profiler adds the allocation rate
+// (gc.alloc.rate.norm is bytes per call, result rows materialized by the stubs included).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StatisticsAggregationBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int rows;
+
+    private ExecutorService statisticsExecutor;
+    private StatisticsService statisticsService;
+    private SeriesRange allHours;
+    private SeriesRange allDays;
+    private SeriesRange allMonths;
+
+    @Setup
+    public void setUp() {
+        statisticsExecutor = Executors.newFixedThreadPool(4);
+        statisticsService = StatisticsServiceFactory.create(new SyntheticStatisticsData(rows), statisticsExecutor);
+        allHours = SeriesRange.all(SeriesUnit.HOUR);
+        allDays = SeriesRange.all(SeriesUnit.DAY);
+        allMonths = SeriesRange.all(SeriesUnit.MONTH);
+    }
+
+    @TearDown
+    public void tearDown() {
+        statisticsExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public TimeSeries hourlyGymEntries() {
+        return statisticsService.getGymEntries(allHours);
+    }
+
+    @Benchmark
+    public TimeSeries dailyGymEntries() {
+        return statisticsService.getGymEntries(allDays);
+    }
+
+    @Benchmark
+    public TimeSeries monthlyGymEntries() {
+        return statisticsService.getGymEntries(allMonths);
+    }
+
+    @Benchmark
+    public TimeSeries hourlyPaymentSums() {
+        return statisticsService.getPaymentSums(allHours);
+    }
+
+    @Benchmark
+    public TimeSeries dailyPaymentSums() {
+        return statisticsService.getPaymentSums(allDays);
+    }
+
+    @Benchmark
+    public TimeSeries monthlyPaymentSums() {
+        return statisticsService.getPaymentSums(allMonths);
+    }
+
+    // Today and yesterday are read from the generated rollups, so the change is computed from real values.
+    @Benchmark
+    public void percentageChangeKpis(Blackhole blackhole) {
+        blackhole.consume(statisticsService.getMembersRegisteredTodayWithChange());
+        blackhole.consume(statisticsService.getPassesRegisteredTodayWithChange());
+        blackhole.consume(statisticsService.getPaymentsTodayWithChange());
+        blackhole.consume(statisticsService.getGymEntriesTodayWithChange());
+        blackhole.consume(statisticsService.getGroupClassesTodayWithChange());
+    }
+
+    // Daily series of every type regrouped into months, the heaviest consumer of the rollups.
+    @Benchmark
+    public GetStatisticsDashboardResponseDto dashboard() {
+        return statisticsService.getDashboard();
+    }
+
+    @Benchmark
+    public TimeSeries memberGymEntries() {
+        return statisticsService.getGymEntriesByUserEmail("member@pbgym.pl", allDays);
+    }
+
+    @Benchmark
+    public TimeSeries memberGymMinutes() {
+        return statisticsService.getGymMinutesByUserEmail("member@pbgym.pl", allDays);
+    }
+}
@@ -0,0 +1,38 @@
+package pl.pbgym.statistics;
+
+import pl.pbgym.repository.gym_entry.GymEntryRepository;
+import pl.pbgym.service.statistics.OccupancyHeatmapService;
+import pl.pbgym.service.statistics.StatisticsService;
+import pl.pbgym.service.user.member.MemberService;
+import pl.pbgym.service.user.trainer.TrainerService;
+
+import java.util.concurrent.ExecutorService;
+
+// Wires the real StatisticsService to repositories answered from the synthetic data instead of the database.
+final class StatisticsServiceFactory {
+
+    private static final int HEATMAP_WEEKS = 4;
+
+    private StatisticsServiceFactory() {
+    }
+
+    static StatisticsService create(SyntheticStatisticsData data, ExecutorService statisticsExecutor) {
+        GymEntryRepository gymEntryRepository = data.gymEntryRepository();
+        // Both services only check that a member or trainer exists before their group class series, which are not benchmarked.
+        MemberService memberService = null;
+        TrainerService trainerService = null;
+        return new StatisticsService(
+                gymEntryRepository,
+                data.groupClassRepository(),
+                data.memberRepository(),
+                data.trainerRepository(),
+                data.passRepository(),
+                data.historicalPassRepository(),
+                data.paymentRepository(),
+                data.dailyStatisticRepository(),
+                memberService,
+                trainerService,
+                statisticsExecutor,
+                new OccupancyHeatmapService(gymEntryRepository, HEATMAP_WEEKS));
+    }
+}
@@ -0,0 +1,204 @@
+package pl.pbgym.statistics;
+
+import pl.pbgym.domain.statistics.DailyStatistic;
+import pl.pbgym.domain.statistics.StatisticType;
+import pl.pbgym.dto.statistics.GymVisitDto;
+import pl.pbgym.dto.statistics.HourlyAggregateDto;
+import pl.pbgym.dto.statistics.MonthlyAggregateDto;
+import pl.pbgym.repository.gym_entry.GymEntryRepository;
+import pl.pbgym.repository.pass.HistoricalPassRepository;
+import pl.pbgym.repository.pass.PassRepository;
+import pl.pbgym.repository.statistics.DailyStatisticRepository;
+import pl.pbgym.repository.user.member.MemberRepository;
+import pl.pbgym.repository.user.member.PaymentRepository;
+import pl.pbgym.repository.user.trainer.GroupClassRepository;
+import pl.pbgym.repository.user.trainer.TrainerRepository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+// A gym with about a hundred entries a day, each paid for, whose history ends today. The rows parameter is the number
+// of entries, so the history - and with it every daily, hourly and monthly aggregate - grows with it: 10M rows are
+// about 270 years of days. Rows and aggregates are kept as primitive columns and objects are only created when a
+// repository query is answered, just like Hibernate materializes a fresh result list on every call.
+final class SyntheticStatisticsData {
+
+    private static final int ENTRIES_PER_DAY = 100;
+    private static final int OPENING_HOUR = 6;
+    private static final int OPEN_HOURS = 16;
+
+    final int rows;
+    final LocalDate firstDay;
+    private final int days;
+    private final YearMonth firstMonth;
+    // Raw rows, ordered by day as the repositories return them.
+    private final long[] entrySeconds;
+    private final int[] visitMinutes;
+    private final double[] amounts;
+    // The same rows grouped the way the rollup table and the GROUP BY queries hold them.
+    private final long[] hourlyCounts;
+    private final double[] hourlySums;
+    private final long[] dailyCounts;
+    private final double[] dailySums;
+    private final long[] monthlyCounts;
+    private final double[] monthlySums;
+
+    SyntheticStatisticsData(int rows) {
+        this.rows = rows;
+        this.days = Math.max(1, (rows + ENTRIES_PER_DAY - 1) / ENTRIES_PER_DAY);
+        this.firstDay = LocalDate.now().minusDays(days - 1);
+        this.firstMonth = YearMonth.from(firstDay);
+        this.entrySeconds = new long[rows];
+        this.visitMinutes = new int[rows];
+        this.amounts = new double[rows];
+        this.hourlyCounts = new long[days * OPEN_HOURS];
+        this.hourlySums = new double[days * OPEN_HOURS];
+        this.dailyCounts = new long[days];
+        this.dailySums = new double[days];
+        int months = (int) ChronoUnit.MONTHS.between(firstMonth, YearMonth.now()) + 1;
+        this.monthlyCounts = new long[months];
+        this.monthlySums = new double[months];
+
+        int[] monthOfDay = new int[days];
+        for (int day = 0; day < days; day++) {
+            monthOfDay[day] = (int) ChronoUnit.MONTHS.between(firstMonth, YearMonth.from(firstDay.plusDays(day)));
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        long firstSecond = firstDay.toEpochDay() * 86400;
+        for (int i = 0; i < rows; i++) {
+            int day = (int) ((long) i * days / rows);
+            int hour = random.nextInt(OPEN_HOURS);
+            entrySeconds[i] = firstSecond + day * 86400L + (OPENING_HOUR + hour) * 3600L + random.nextInt(3600);
+            visitMinutes[i] = 20 + random.nextInt(160);
+            amounts[i] = 50 + random.nextInt(300);
+
+            int month = monthOfDay[day];
+            hourlyCounts[day * OPEN_HOURS + hour]++;
+            hourlySums[day * OPEN_HOURS + hour] += amounts[i];
+            dailyCounts[day]++;
+            dailySums[day] += amounts[i];
+            monthlyCounts[month]++;
+            monthlySums[month] += amounts[i];
+        }
+    }
+
+    // Every benchmark asks for an open range, so the queries below answer with all rows and ignore the bounds.
+    GymEntryRepository gymEntryRepository() {
+        return stub(GymEntryRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "streamVisitsByUserEmailBetween" -> IntStream.range(0, rows).mapToObj(this::visitAt);
+            case "countHourlyEntries", "countHourlyEntriesByUserEmail" -> hourlyAggregates();
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    PaymentRepository paymentRepository() {
+        return stub(PaymentRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "sumHourlyPayments" -> hourlyAggregates();
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    DailyStatisticRepository dailyStatisticRepository() {
+        return stub(DailyStatisticRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findAllByType", "findAllByTypeBetween" -> dailyStatistics((StatisticType) args[0]);
+            case "sumMonthlyByTypeBetween" -> monthlyAggregates();
+            case "findByTypeAndDate" -> dailyStatistic((StatisticType) args[0], (LocalDate) args[1]);
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    MemberRepository memberRepository() {
+        return countingStub(MemberRepository.class);
+    }
+
+    TrainerRepository trainerRepository() {
+        return countingStub(TrainerRepository.class);
+    }
+
+    PassRepository passRepository() {
+        return countingStub(PassRepository.class);
+    }
+
+    HistoricalPassRepository historicalPassRepository() {
+        return stub(HistoricalPassRepository.class, (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    GroupClassRepository groupClassRepository() {
+        return stub(GroupClassRepository.class, (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private GymVisitDto visitAt(int row) {
+        LocalDateTime entry = LocalDateTime.ofEpochSecond(entrySeconds[row], 0, ZoneOffset.UTC);
+        return new GymVisitDto(entry, entry.plusMinutes(visitMinutes[row]));
+    }
+
+    private List<HourlyAggregateDto> hourlyAggregates() {
+        List<HourlyAggregateDto> aggregates = new ArrayList<>(hourlyCounts.length);
+        for (int i = 0; i < hourlyCounts.length; i++) {
+            if (hourlyCounts[i] > 0) {
+                aggregates.add(new HourlyAggregateDto(firstDay.plusDays(i / OPEN_HOURS), OPENING_HOUR + i % OPEN_HOURS, hourlyCounts[i], hourlySums[i]));
+            }
+        }
+        return aggregates;
+    }
+
+    private List<DailyStatistic> dailyStatistics(StatisticType type) {
+        List<DailyStatistic> dailyStatistics = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            dailyStatistics.add(dailyStatistic(type, i));
+        }
+        return dailyStatistics;
+    }
+
+    private Optional<DailyStatistic> dailyStatistic(StatisticType type, LocalDate date) {
+        long day = date.toEpochDay() - firstDay.toEpochDay();
+        return day >= 0 && day < days ? Optional.of(dailyStatistic(type, (int) day)) : Optional.empty();
+    }
+
+    private DailyStatistic dailyStatistic(StatisticType type, int day) {
+        DailyStatistic dailyStatistic = new DailyStatistic();
+        dailyStatistic.setType(type);
+        dailyStatistic.setDate(firstDay.plusDays(day));
+        dailyStatistic.setCount(dailyCounts[day]);
+        dailyStatistic.setSum(type == StatisticType.PAYMENTS ? dailySums[day] : 0.0);
+        return dailyStatistic;
+    }
+
+    private List<MonthlyAggregateDto> monthlyAggregates() {
+        List<MonthlyAggregateDto> aggregates = new ArrayList<>(monthlyCounts.length);
+        for (int i = 0; i < monthlyCounts.length; i++) {
+            YearMonth month = firstMonth.plusMonths(i);
+            aggregates.add(new MonthlyAggregateDto(month.getYear(), month.getMonthValue(), monthlyCounts[i], monthlySums[i]));
+        }
+        return aggregates;
+    }
+
+    // The dashboard only reads the total counts from these repositories.
+    private <T> T countingStub(Class<T> type) {
+        return stub(type, (proxy, method, args) -> switch (method.getName()) {
+            case "count" -> (long) rows;
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    // Only the queries used by the benchmarked paths are answered, anything else fails loudly.
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
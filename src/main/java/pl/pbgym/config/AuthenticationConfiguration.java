@@ -10,22 +10,22 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import pl.pbgym.repository.user.AbstractUserRepository;
+import pl.pbgym.service.auth.AuthenticatedUserCache;
 
 import java.security.SecureRandom;
 
 @Configuration
 public class AuthenticationConfiguration {
-    private final AbstractUserRepository abstractUserRepository;
+    private final AuthenticatedUserCache authenticatedUserCache;
 
     @Autowired
-    public AuthenticationConfiguration(AbstractUserRepository abstractUserRepository) {
-        this.abstractUserRepository = abstractUserRepository;
+    public AuthenticationConfiguration(AuthenticatedUserCache authenticatedUserCache) {
+        this.authenticatedUserCache = authenticatedUserCache;
     }
 
     @Bean
     public UserDetailsService userDetailsService() {
-        return email -> abstractUserRepository.findByEmail(email)
+        return email -> authenticatedUserCache.get(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
@@ -36,6 +36,7 @@ public class SecurityConfiguration {
                         .requestMatchers("/auth/registerMember/**", "/auth/authenticate/**").permitAll()
                         .requestMatchers("/auth/registerTrainer/**").hasAnyAuthority("ADMIN", "TRAINER_MANAGEMENT")
                         .requestMatchers("/auth/registerWorker/**").hasAuthority("ADMIN")
+                        .requestMatchers("/auth/tokenCache/**").hasAuthority("ADMIN")
 
                         .requestMatchers("/members/**").hasAnyAuthority("ADMIN", "MEMBER_MANAGEMENT", "MEMBER")
 
@@ -62,6 +63,7 @@ public class SecurityConfiguration {
                         .requestMatchers( "/creditCardInfo/**").hasAnyAuthority("MEMBER", "ADMIN", "MEMBER_MANAGEMENT")
 
                         .requestMatchers("/gym/count/**").permitAll()
+                        .requestMatchers("/gym/capacity/**").hasAuthority("ADMIN")
                         .requestMatchers("/gym/**").hasAuthority("WORKER")
 
                         .requestMatchers("/blog/all/**").permitAll()
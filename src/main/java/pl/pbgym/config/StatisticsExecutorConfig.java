@@ -0,0 +1,27 @@
+package pl.pbgym.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class StatisticsExecutorConfig {
+
+    // Bounded so a dashboard request never holds more connections than this from the pool.
+    @Value("${statistics.executor.threads:4}")
+    private int threads;
+
+    @Bean(name = "statisticsExecutor", destroyMethod = "shutdown")
+    public ExecutorService statisticsExecutor() {
+        return Executors.newFixedThreadPool(threads, Thread.ofVirtual().name("statistics-", 0).factory());
+    }
+
+    // Writes live events to SSE subscribers, so a slow client never blocks the scheduler thread.
+    @Bean(name = "liveStatisticsExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService liveStatisticsExecutor(@Value("${statistics.live.sender-threads:4}") int senderThreads) {
+        return Executors.newFixedThreadPool(senderThreads, Thread.ofVirtual().name("live-statistics-", 0).factory());
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import pl.pbgym.service.auth.AuthenticationService;
+import pl.pbgym.service.auth.JwtService;
 import pl.pbgym.dto.auth.*;
 import pl.pbgym.service.user.AbstractUserService;
 
@@ -20,11 +21,13 @@ public class AuthenticationController {
 
     private final AuthenticationService authenticationService;
     private final AbstractUserService abstractUserService;
+    private final JwtService jwtService;
 
     @Autowired
-    public AuthenticationController(AuthenticationService authenticationService, AbstractUserService abstractUserService) {
+    public AuthenticationController(AuthenticationService authenticationService, AbstractUserService abstractUserService, JwtService jwtService) {
         this.authenticationService = authenticationService;
         this.abstractUserService = abstractUserService;
+        this.jwtService = jwtService;
     }
     @PostMapping("/registerMember")
     @Operation(summary = "Rejestracja nowego klienta", description = "Typy płci: MALE, FEMALE, OTHER")
@@ -89,4 +92,15 @@ public class AuthenticationController {
     public ResponseEntity<AuthenticationResponseDto> authenticate(@RequestBody PostAuthenticationRequestDto request) {
         return ResponseEntity.ok(authenticationService.authenticate(request));
     }
+
+    @GetMapping("/tokenCache")
+    @Operation(summary = "Pobierz stan pamięci podręcznej zweryfikowanych tokenów", description = "Pobiera liczbę trafień i chybień, " +
+            "współczynnik trafień, liczbę usuniętych i unieważnionych wpisów oraz rozmiar pamięci podręcznej tokenów JWT. Dostępny tylko dla administratorów.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stan pamięci podręcznej pobrany pomyślnie"),
+            @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content)
+    })
+    public ResponseEntity<GetTokenCacheResponseDto> getTokenCacheStatistics() {
+        return ResponseEntity.ok(jwtService.getTokenCacheStatistics());
+    }
 }
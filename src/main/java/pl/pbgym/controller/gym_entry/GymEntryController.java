@@ -6,10 +6,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.pbgym.domain.statistics.GymEntry;
+import pl.pbgym.dto.statistics.GetOccupancyHeatmapResponseDto;
+import pl.pbgym.dto.statistics.GetOccupancyResponseDto;
+import pl.pbgym.dto.statistics.GetOccupancyTimelineResponseDto;
+import pl.pbgym.exception.statistics.TooManySubscribersException;
+import pl.pbgym.exception.user_counter.LocationAtCapacityException;
 import pl.pbgym.exception.user_counter.NoActivePassException;
 import pl.pbgym.exception.user_counter.WorkerNotAllowedToBeScannedException;
+import pl.pbgym.service.statistics.LiveStatisticsService;
+import pl.pbgym.service.statistics.OccupancyTimelineService;
+import pl.pbgym.service.statistics.StatisticsService;
 import pl.pbgym.service.statistics.UserCounterService;
 
 @RestController
@@ -18,39 +29,140 @@ import pl.pbgym.service.statistics.UserCounterService;
 public class GymEntryController {
 
     private final UserCounterService userCounterService;
+    private final StatisticsService statisticsService;
+    private final LiveStatisticsService liveStatisticsService;
+    private final OccupancyTimelineService occupancyTimelineService;
 
-    public GymEntryController(UserCounterService userCounterService) {
+    public GymEntryController(UserCounterService userCounterService, StatisticsService statisticsService, LiveStatisticsService liveStatisticsService,
+                              OccupancyTimelineService occupancyTimelineService) {
         this.userCounterService = userCounterService;
+        this.statisticsService = statisticsService;
+        this.liveStatisticsService = liveStatisticsService;
+        this.occupancyTimelineService = occupancyTimelineService;
     }
 
     @PostMapping("/registerQRscan/{email}")
     @Operation(summary = "Zarejestruj skan kodu QR użytkownika", description = "Odczytuje identyfikator z kodu QR i rozróżnia, " +
-            "czy działanie to wejście czy wyjście z siłowni. Dostępny tylko dla pracowników.")
+            "czy działanie to wejście czy wyjście z siłowni. Powtórny skan tego samego użytkownika w krótkim oknie ochronnym jest " +
+            "potwierdzany bez zmiany stanu. Opcjonalny parametr locationId wskazuje klub, w którym zeskanowano kod (domyślnie 1). " +
+            "Gdy klub jest pełny, wejście jest odrzucane, a użytkownik trafia do kolejki oczekujących. Dostępny tylko dla pracowników.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Skan kodu QR zarejestrowano pomyślnie"),
             @ApiResponse(responseCode = "403", description = "Klient nie posiada aktywnego karnetu LUB użytkownik jest pracownikiem LUB " +
                     "brak dostępu do tego zasobu", content = @Content),
             @ApiResponse(responseCode = "400", description = "Nieprawidłowe dane wejściowe", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Nie znaleziono użytkownika", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Nie znaleziono użytkownika", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Klub osiągnął maksymalną liczbę osób", content = @Content)
     })
-    public ResponseEntity<String> userEnters(@PathVariable String email) {
+    public ResponseEntity<String> userEnters(@PathVariable String email, @RequestParam(required = false) Long locationId) {
+        if (locationId != null && locationId <= 0) {
+            return ResponseEntity.badRequest().body("Location id must be positive");
+        }
         try {
-            userCounterService.registerUserAction(email);
+            userCounterService.registerUserAction(email, locationId == null ? GymEntry.DEFAULT_LOCATION_ID : locationId);
         } catch (WorkerNotAllowedToBeScannedException | NoActivePassException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (LocationAtCapacityException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         }
 
         return ResponseEntity.ok("User action successfully registered");
     }
 
+    @PutMapping("/capacity/{locationId}")
+    @Operation(summary = "Ustaw maksymalną liczbę osób w klubie", description = "Ustawia maksymalną liczbę osób mogących jednocześnie " +
+            "przebywać w klubie. Wartość 0 znosi limit. Zwolnione miejsca są od razu przydzielane osobom z kolejki. Dostępny tylko dla administratorów.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Limit ustawiono pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Nieprawidłowe dane wejściowe", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content)
+    })
+    public ResponseEntity<String> setCapacity(@PathVariable Long locationId, @RequestParam int capacity) {
+        if (locationId <= 0 || capacity < 0) {
+            return ResponseEntity.badRequest().body("Location id must be positive and capacity must not be negative");
+        }
+        userCounterService.setCapacity(locationId, capacity);
+        return ResponseEntity.ok("Capacity successfully set");
+    }
+
+    @GetMapping(value = "/queue/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subskrybuj wezwania z kolejki do klubu", description = "Otwiera strumień Server-Sent Events, który wysyła zdarzenie " +
+            "admission, gdy w pełnym klubie zwolni się miejsce dla pierwszej osoby z kolejki. Miejsce jest zarezerwowane do czasu holdUntil. " +
+            "Dostępny tylko dla pracowników.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Strumień otwarty pomyślnie"),
+            @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Osiągnięto limit otwartych strumieni", content = @Content)
+    })
+    public ResponseEntity<SseEmitter> streamAdmissions() {
+        try {
+            return ResponseEntity.ok(liveStatisticsService.subscribeToAdmissions());
+        } catch (TooManySubscribersException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     @GetMapping("/count")
-    @Operation(summary = "Pobierz liczbę osób w obiekcie", description = "Zwraca liczbę osób aktualnie przebywających w obiekcie. Dostępny bez uwierzytelnienia.")
+    @Operation(summary = "Pobierz liczbę osób w obiekcie", description = "Zwraca liczbę osób aktualnie przebywających w klubie wskazanym " +
+            "parametrem locationId, a bez niego we wszystkich klubach sieci. Dostępny bez uwierzytelnienia.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Liczba użytkowników pobrana pomyślnie")
     })
-    public ResponseEntity<Integer> getCurrentUsers() {
-        return ResponseEntity.ok(userCounterService.getCurrentUserCount());
+    public ResponseEntity<Integer> getCurrentUsers(@RequestParam(required = false) Long locationId) {
+        if (locationId == null) {
+            return ResponseEntity.ok(userCounterService.getCurrentUserCount());
+        }
+        return ResponseEntity.ok(userCounterService.getCurrentUserCount(locationId));
+    }
+
+    @GetMapping("/count/locations")
+    @Operation(summary = "Pobierz liczbę osób w poszczególnych klubach", description = "Zwraca liczbę osób aktualnie przebywających " +
+            "w każdym klubie sieci oraz łączną liczbę osób we wszystkich klubach. Dostępny bez uwierzytelnienia.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Liczby użytkowników pobrane pomyślnie")
+    })
+    public ResponseEntity<GetOccupancyResponseDto> getCurrentUsersByLocation() {
+        GetOccupancyResponseDto responseDto = new GetOccupancyResponseDto();
+        responseDto.setTotal(userCounterService.getCurrentUserCount());
+        responseDto.setLocations(userCounterService.getCurrentUserCountByLocation());
+        return ResponseEntity.ok(responseDto);
+    }
+
+    @GetMapping(value = "/count/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subskrybuj liczbę osób w obiekcie", description = "Otwiera strumień Server-Sent Events, który wysyła zdarzenie " +
+            "occupancy z aktualną liczbą osób w obiekcie od razu po połączeniu i po każdej zmianie, nie częściej niż kilka razy na sekundę. Dostępny bez uwierzytelnienia.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Strumień otwarty pomyślnie"),
+            @ApiResponse(responseCode = "503", description = "Osiągnięto limit otwartych strumieni", content = @Content)
+    })
+    public ResponseEntity<SseEmitter> streamCurrentUsers() {
+        try {
+            return ResponseEntity.ok(liveStatisticsService.subscribeToOccupancy());
+        } catch (TooManySubscribersException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/count/timeline")
+    @Operation(summary = "Pobierz obłożenie siłowni z ostatniej doby", description = "Zwraca liczbę osób w obiekcie na koniec każdej minuty " +
+            "i najwyższą liczbę osób w tej minucie, z ostatnich 24 godzin, wraz z minutą największego obłożenia. Opcjonalny parametr minutes " +
+            "skraca okno. Dostępny bez uwierzytelnienia.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Obłożenie pobrane pomyślnie")
+    })
+    public ResponseEntity<GetOccupancyTimelineResponseDto> getOccupancyTimeline(@RequestParam(required = false) Integer minutes) {
+        return ResponseEntity.ok(occupancyTimelineService.getTimeline(minutes));
+    }
+
+    @GetMapping("/count/heatmap")
+    @Operation(summary = "Pobierz tygodniową mapę obłożenia siłowni", description = "Zwraca średnią liczbę osób przebywających w obiekcie " +
+            "dla każdej godziny każdego dnia tygodnia, liczoną z ostatnich tygodni. Opcjonalny parametr weeks zawęża okno. Dostępny bez uwierzytelnienia.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Mapa obłożenia pobrana pomyślnie")
+    })
+    public ResponseEntity<GetOccupancyHeatmapResponseDto> getOccupancyHeatmap(@RequestParam(required = false) Integer weeks) {
+        return ResponseEntity.ok(statisticsService.getOccupancyHeatmap(weeks));
     }
 }
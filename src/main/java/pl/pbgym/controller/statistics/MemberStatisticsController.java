@@ -4,6 +4,8 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -11,14 +13,16 @@ import org.springframework.web.bind.annotation.*;
 import pl.pbgym.domain.user.AbstractUser;
 import pl.pbgym.domain.user.member.Member;
 import pl.pbgym.dto.user.member.GetPaymentResponseDto;
+import pl.pbgym.exception.statistics.InvalidStatisticsRangeException;
 import pl.pbgym.exception.user.member.MemberNotFoundException;
 import pl.pbgym.service.statistics.StatisticsService;
 import pl.pbgym.service.user.member.PaymentService;
+import pl.pbgym.util.statistics.SeriesRange;
+import pl.pbgym.util.statistics.SeriesUnit;
+import pl.pbgym.util.statistics.TimeSeries;
 
 import java.time.LocalDate;
-import java.time.YearMonth;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/memberStatistics")
@@ -27,40 +31,59 @@ public class MemberStatisticsController {
 
     private final StatisticsService statisticsService;
     private final PaymentService paymentService;
+    private final long maxSeriesBuckets;
 
-    public MemberStatisticsController(StatisticsService statisticsService, PaymentService paymentService) {
+    public MemberStatisticsController(StatisticsService statisticsService, PaymentService paymentService,
+                                      @Value("${statistics.series.max-buckets:10000}") long maxSeriesBuckets) {
         this.statisticsService = statisticsService;
         this.paymentService = paymentService;
+        this.maxSeriesBuckets = maxSeriesBuckets;
     }
 
     @GetMapping("/getMonthlyGymEntries/{email}")
-    @Operation(summary = "Pobierz miesięczną liczbę wejść na siłownię", description = "Pobiera miesięczną liczbę wejść klienta na siłownię na podstawie jego adresu e-mail. Dostępny dla klienta oraz pracowników z rolami: ADMIN, MEMBER_MANAGEMENT, STATISTICS.")
+    @Operation(summary = "Pobierz miesięczną liczbę wejść na siłownię", description = "Pobiera miesięczną liczbę wejść klienta na siłownię na podstawie jego adresu e-mail. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla klienta oraz pracowników z rolami: ADMIN, MEMBER_MANAGEMENT, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Miesięczna liczba wejść na siłownię pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<YearMonth, Integer>> getMonthlyGymEntries(@PathVariable String email) {
+    public ResponseEntity<TimeSeries> getMonthlyGymEntries(@PathVariable String email,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
         AbstractUser authenticatedUser = (AbstractUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         if (authenticatedUser instanceof Member && !authenticatedUser.getEmail().equals(email)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        return ResponseEntity.status(HttpStatus.OK).body(statisticsService.getMonthlyGymEntriesCountByUserEmail(email));
+        try {
+            return ResponseEntity.status(HttpStatus.OK).body(statisticsService.getGymEntriesByUserEmail(email, SeriesRange.of(from, to, granularity, SeriesUnit.MONTH, maxSeriesBuckets)));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     @GetMapping("/getDailyGymMinutes/{email}")
-    @Operation(summary = "Pobierz dzienny czas spędzony na siłowni", description = "Pobiera dzienny czas (w minutach) spędzony na siłowni przez klienta na podstawie jego adresu e-mail. Dostępny dla klienta oraz pracowników z rolami: ADMIN, MEMBER_MANAGEMENT, STATISTICS.")
+    @Operation(summary = "Pobierz dzienny czas spędzony na siłowni", description = "Pobiera dzienny czas (w minutach) spędzony na siłowni przez klienta na podstawie jego adresu e-mail. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla klienta oraz pracowników z rolami: ADMIN, MEMBER_MANAGEMENT, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Dzienny czas na siłowni pobrany pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<LocalDate, Integer>> getDailyGymMinutes(@PathVariable String email) {
+    public ResponseEntity<TimeSeries> getDailyGymMinutes(@PathVariable String email,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
         AbstractUser authenticatedUser = (AbstractUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         if (authenticatedUser instanceof Member && !authenticatedUser.getEmail().equals(email)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        return ResponseEntity.status(HttpStatus.OK).body(statisticsService.getDailyGymMinutesByUserEmail(email));
+        try {
+            return ResponseEntity.status(HttpStatus.OK).body(statisticsService.getGymMinutesByUserEmail(email, SeriesRange.of(from, to, granularity, SeriesUnit.DAY, maxSeriesBuckets)));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     @GetMapping("/getPaymentHistory/{email}")
@@ -84,17 +107,25 @@ public class MemberStatisticsController {
     }
 
     @GetMapping("/getMonthlyGroupClasses/{email}")
-    @Operation(summary = "Pobierz miesięczną liczbę zajęć grupowych", description = "Pobiera miesięczną liczbę zajęć grupowych klienta na podstawie jego adresu e-mail. Dostępny dla klienta oraz pracowników z rolami: ADMIN, MEMBER_MANAGEMENT, STATISTICS.")
+    @Operation(summary = "Pobierz miesięczną liczbę zajęć grupowych", description = "Pobiera miesięczną liczbę zajęć grupowych klienta na podstawie jego adresu e-mail. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla klienta oraz pracowników z rolami: ADMIN, MEMBER_MANAGEMENT, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Miesięczna liczba zajęć grupowych pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<YearMonth, Integer>> getMonthlyGroupClasses(@PathVariable String email) {
+    public ResponseEntity<TimeSeries> getMonthlyGroupClasses(@PathVariable String email,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
         AbstractUser authenticatedUser = (AbstractUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         if (authenticatedUser instanceof Member && !authenticatedUser.getEmail().equals(email)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        return ResponseEntity.status(HttpStatus.OK).body(statisticsService.getHistoricalClassesCountMonthlyForMember(email));
+        try {
+            return ResponseEntity.status(HttpStatus.OK).body(statisticsService.getHistoricalClassesCountForMember(email, SeriesRange.of(from, to, granularity, SeriesUnit.MONTH, maxSeriesBuckets)));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 }
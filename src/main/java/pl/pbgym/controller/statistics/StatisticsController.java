@@ -4,19 +4,39 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.pbgym.domain.statistics.StatisticType;
 import pl.pbgym.dto.statistics.GetGymEntryResponseDto;
+import pl.pbgym.dto.statistics.GetGymEntryQueueResponseDto;
+import pl.pbgym.dto.statistics.GetOccupancyTimelineResponseDto;
+import pl.pbgym.dto.statistics.GetStatisticsCacheResponseDto;
+import pl.pbgym.dto.statistics.GetStatisticsDashboardResponseDto;
 import pl.pbgym.dto.user.member.GetPaymentResponseDto;
+import pl.pbgym.exception.statistics.InvalidStatisticsRangeException;
+import pl.pbgym.exception.statistics.TooManySubscribersException;
+import pl.pbgym.service.statistics.LiveStatisticsService;
+import pl.pbgym.service.statistics.GymEntryWriteBehindService;
+import pl.pbgym.service.statistics.OccupancyTimelineService;
+import pl.pbgym.service.statistics.StatisticsCache;
 import pl.pbgym.service.statistics.StatisticsService;
+import pl.pbgym.util.statistics.CachedStatistic;
+import pl.pbgym.util.statistics.SeriesRange;
+import pl.pbgym.util.statistics.SeriesUnit;
+import pl.pbgym.util.statistics.TimeSeries;
 
 import java.time.LocalDate;
-import java.time.YearMonth;
-import java.util.List;
-import java.util.Map;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/statistics")
@@ -24,9 +44,21 @@ import java.util.Map;
 public class StatisticsController {
 
     private final StatisticsService statisticsService;
+    private final StatisticsCache statisticsCache;
+    private final GymEntryWriteBehindService gymEntryWriteBehindService;
+    private final LiveStatisticsService liveStatisticsService;
+    private final OccupancyTimelineService occupancyTimelineService;
+    private final long maxSeriesBuckets;
 
-    public StatisticsController(StatisticsService statisticsService) {
+    public StatisticsController(StatisticsService statisticsService, StatisticsCache statisticsCache, LiveStatisticsService liveStatisticsService,
+                               GymEntryWriteBehindService gymEntryWriteBehindService, OccupancyTimelineService occupancyTimelineService,
+                               @Value("${statistics.series.max-buckets:10000}") long maxSeriesBuckets) {
         this.statisticsService = statisticsService;
+        this.statisticsCache = statisticsCache;
+        this.gymEntryWriteBehindService = gymEntryWriteBehindService;
+        this.liveStatisticsService = liveStatisticsService;
+        this.occupancyTimelineService = occupancyTimelineService;
+        this.maxSeriesBuckets = maxSeriesBuckets;
     }
 
     @GetMapping("/trainerCount")
@@ -64,24 +96,42 @@ public class StatisticsController {
 
     @GetMapping("/memberRegistrations/monthly")
     @Operation(summary = "Pobierz miesięczną liczbę rejestracji klientów",
-            description = "Pobiera miesięczną liczbę rejestracji klientów pogrupowaną według roku i miesiąca. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+            description = "Pobiera miesięczną liczbę rejestracji klientów pogrupowaną według roku i miesiąca. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Miesięczna liczba rejestracji klientów pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<YearMonth, Integer>> getMonthlyMemberRegistrations() {
-        return ResponseEntity.ok(statisticsService.getMonthlyMemberRegistrations());
+    public ResponseEntity<TimeSeries> getMonthlyMemberRegistrations(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
+        try {
+            SeriesRange range = SeriesRange.of(from, to, granularity, SeriesUnit.MONTH, maxSeriesBuckets);
+            return cached("memberRegistrations/" + range, StatisticType.MEMBER_REGISTRATIONS, () -> statisticsService.getMemberRegistrations(range));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/memberRegistrations/daily")
     @Operation(summary = "Pobierz dzienną liczbę rejestracji klientów",
-            description = "Pobiera dzienną liczbę rejestracji klientów pogrupowaną według dnia. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+            description = "Pobiera dzienną liczbę rejestracji klientów pogrupowaną według dnia. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Dzienna liczba rejestracji klientów pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<LocalDate, Integer>> getDailyMemberRegistrations() {
-        return ResponseEntity.ok(statisticsService.getDailyMemberRegistrations());
+    public ResponseEntity<TimeSeries> getDailyMemberRegistrations(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
+        try {
+            SeriesRange range = SeriesRange.of(from, to, granularity, SeriesUnit.DAY, maxSeriesBuckets);
+            return cached("memberRegistrations/" + range, StatisticType.MEMBER_REGISTRATIONS, () -> statisticsService.getMemberRegistrations(range));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/memberRegistrations/today")
@@ -92,29 +142,47 @@ public class StatisticsController {
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
     public ResponseEntity<String> getMembersRegisteredTodayWithChange() {
-        return ResponseEntity.ok(statisticsService.getMembersRegisteredTodayWithChange());
+        return cached("membersRegisteredToday", StatisticType.MEMBER_REGISTRATIONS, statisticsService::getMembersRegisteredTodayWithChange);
     }
 
     @GetMapping("/passesRegistrations/monthly")
     @Operation(summary = "Pobierz miesięczną liczbę rejestracji karnetów",
-            description = "Pobiera miesięczną liczbę rejestracji karnetów pogrupowaną według miesiąca od najstarszej daty. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+            description = "Pobiera miesięczną liczbę rejestracji karnetów pogrupowaną według miesiąca od najstarszej daty. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Miesięczna liczba rejestracji karnetów pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<YearMonth, Integer>> getMonthlyPassRegistrations() {
-        return ResponseEntity.ok(statisticsService.getMonthlyPassRegistrations());
+    public ResponseEntity<TimeSeries> getMonthlyPassRegistrations(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
+        try {
+            SeriesRange range = SeriesRange.of(from, to, granularity, SeriesUnit.MONTH, maxSeriesBuckets);
+            return cached("passRegistrations/" + range, StatisticType.PASS_REGISTRATIONS, () -> statisticsService.getPassRegistrations(range));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/passesRegistrations/daily")
     @Operation(summary = "Pobierz dzienną liczbę rejestracji karnetów",
-            description = "Pobiera dzienną liczbę rejestracji karnetów pogrupowaną według dnia od najstarszej daty. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+            description = "Pobiera dzienną liczbę rejestracji karnetów pogrupowaną według dnia od najstarszej daty. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Dzienna liczba rejestracji karnetów pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<LocalDate, Integer>> getDailyPassRegistrations() {
-        return ResponseEntity.ok(statisticsService.getDailyPassRegistrations());
+    public ResponseEntity<TimeSeries> getDailyPassRegistrations(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
+        try {
+            SeriesRange range = SeriesRange.of(from, to, granularity, SeriesUnit.DAY, maxSeriesBuckets);
+            return cached("passRegistrations/" + range, StatisticType.PASS_REGISTRATIONS, () -> statisticsService.getPassRegistrations(range));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/passesRegistrations/today")
@@ -125,29 +193,47 @@ public class StatisticsController {
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
     public ResponseEntity<String> getPassesRegisteredTodayWithChange() {
-        return ResponseEntity.ok(statisticsService.getPassesRegisteredTodayWithChange());
+        return cached("passesRegisteredToday", StatisticType.PASS_REGISTRATIONS, statisticsService::getPassesRegisteredTodayWithChange);
     }
 
     @GetMapping("/paymentSums/monthly")
     @Operation(summary = "Pobierz miesięczną sumę płatności",
-            description = "Pobiera całkowitą sumę płatności pogrupowaną według miesiąca od najstarszej daty. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+            description = "Pobiera całkowitą sumę płatności pogrupowaną według miesiąca od najstarszej daty. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Miesięczna suma płatności pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<YearMonth, Double>> getMonthlyPaymentSums() {
-        return ResponseEntity.ok(statisticsService.getMonthlyPaymentSums());
+    public ResponseEntity<TimeSeries> getMonthlyPaymentSums(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
+        try {
+            SeriesRange range = SeriesRange.of(from, to, granularity, SeriesUnit.MONTH, maxSeriesBuckets);
+            return cached("paymentSums/" + range, StatisticType.PAYMENTS, () -> statisticsService.getPaymentSums(range));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/paymentSums/daily")
     @Operation(summary = "Pobierz dzienną sumę płatności",
-            description = "Pobiera całkowitą sumę płatności pogrupowaną według dnia od najstarszej daty. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+            description = "Pobiera całkowitą sumę płatności pogrupowaną według dnia od najstarszej daty. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Dzienna suma płatności pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<LocalDate, Double>> getDailyPaymentSums() {
-        return ResponseEntity.ok(statisticsService.getDailyPaymentSums());
+    public ResponseEntity<TimeSeries> getDailyPaymentSums(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
+        try {
+            SeriesRange range = SeriesRange.of(from, to, granularity, SeriesUnit.DAY, maxSeriesBuckets);
+            return cached("paymentSums/" + range, StatisticType.PAYMENTS, () -> statisticsService.getPaymentSums(range));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/paymentSums/today")
@@ -158,29 +244,47 @@ public class StatisticsController {
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
     public ResponseEntity<String> getPaymentsTodayWithChange() {
-        return ResponseEntity.ok(statisticsService.getPaymentsTodayWithChange());
+        return cached("paymentsToday", StatisticType.PAYMENTS, statisticsService::getPaymentsTodayWithChange);
     }
 
     @GetMapping("/gymEntries/monthly")
     @Operation(summary = "Pobierz miesięczną liczbę wejść na siłownię",
-            description = "Pobiera miesięczną liczbę wejść na siłownię od najstarszej daty. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+            description = "Pobiera miesięczną liczbę wejść na siłownię od najstarszej daty. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Miesięczna liczba wejść na siłownię pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<YearMonth, Integer>> getMonthlyGymEntries() {
-        return ResponseEntity.ok(statisticsService.getMonthlyGymEntries());
+    public ResponseEntity<TimeSeries> getMonthlyGymEntries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
+        try {
+            SeriesRange range = SeriesRange.of(from, to, granularity, SeriesUnit.MONTH, maxSeriesBuckets);
+            return cached("gymEntries/" + range, StatisticType.GYM_ENTRIES, () -> statisticsService.getGymEntries(range));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/gymEntries/daily")
     @Operation(summary = "Pobierz dzienną liczbę wejść na siłownię",
-            description = "Pobiera dzienną liczbę wejść na siłownię od najstarszej daty. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+            description = "Pobiera dzienną liczbę wejść na siłownię od najstarszej daty. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Dzienna liczba wejść na siłownię pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<LocalDate, Integer>> getDailyGymEntries() {
-        return ResponseEntity.ok(statisticsService.getDailyGymEntries());
+    public ResponseEntity<TimeSeries> getDailyGymEntries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
+        try {
+            SeriesRange range = SeriesRange.of(from, to, granularity, SeriesUnit.DAY, maxSeriesBuckets);
+            return cached("gymEntries/" + range, StatisticType.GYM_ENTRIES, () -> statisticsService.getGymEntries(range));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/gymEntries/today")
@@ -191,29 +295,47 @@ public class StatisticsController {
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
     public ResponseEntity<String> getGymEntriesTodayWithChange() {
-        return ResponseEntity.ok(statisticsService.getGymEntriesTodayWithChange());
+        return cached("gymEntriesToday", StatisticType.GYM_ENTRIES, statisticsService::getGymEntriesTodayWithChange);
     }
 
     @GetMapping("/groupClasses/monthly")
     @Operation(summary = "Pobierz miesięczną liczbę zajęć grupowych",
-            description = "Pobiera liczbę zajęć grupowych pogrupowaną według miesięcy od najstarszej daty. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+            description = "Pobiera liczbę zajęć grupowych pogrupowaną według miesięcy od najstarszej daty. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Miesięczna liczba zajęć grupowych pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<YearMonth, Integer>> getMonthlyGroupClassCounts() {
-        return ResponseEntity.ok(statisticsService.getMonthlyGroupClassCounts());
+    public ResponseEntity<TimeSeries> getMonthlyGroupClassCounts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
+        try {
+            SeriesRange range = SeriesRange.of(from, to, granularity, SeriesUnit.MONTH, maxSeriesBuckets);
+            return cached("groupClasses/" + range, StatisticType.GROUP_CLASSES, () -> statisticsService.getGroupClassCounts(range));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/groupClasses/daily")
     @Operation(summary = "Pobierz dzienną liczbę zajęć grupowych",
-            description = "Pobiera liczbę zajęć grupowych pogrupowaną według dni od najstarszej daty. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+            description = "Pobiera liczbę zajęć grupowych pogrupowaną według dni od najstarszej daty. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Dzienna liczba zajęć grupowych pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<LocalDate, Integer>> getDailyGroupClassCounts() {
-        return ResponseEntity.ok(statisticsService.getDailyGroupClassCounts());
+    public ResponseEntity<TimeSeries> getDailyGroupClassCounts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
+        try {
+            SeriesRange range = SeriesRange.of(from, to, granularity, SeriesUnit.DAY, maxSeriesBuckets);
+            return cached("groupClasses/" + range, StatisticType.GROUP_CLASSES, () -> statisticsService.getGroupClassCounts(range));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/groupClasses/today")
@@ -224,6 +346,82 @@ public class StatisticsController {
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
     public ResponseEntity<String> getGroupClassesTodayWithChange() {
-        return ResponseEntity.ok(statisticsService.getGroupClassesTodayWithChange());
+        return cached("groupClassesToday", StatisticType.GROUP_CLASSES, statisticsService::getGroupClassesTodayWithChange);
+    }
+
+    @GetMapping("/dashboard")
+    @Operation(summary = "Pobierz wszystkie statystyki panelu administratora",
+            description = "Pobiera w jednym zapytaniu wszystkie serie dzienne i miesięczne oraz dzisiejsze wskaźniki z procentową zmianą. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statystyki panelu pobrane pomyślnie"),
+            @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
+    })
+    public ResponseEntity<GetStatisticsDashboardResponseDto> getDashboard() {
+        // Head counts change outside the rollup write paths, so they are part of the key instead of the version.
+        String key = "dashboard/" + statisticsService.getAllTrainersCount() + "/" + statisticsService.getAllMembersCount()
+                + "/" + statisticsService.getAllActivePassesCount();
+        return cached(key, null, statisticsService::getDashboard);
+    }
+
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subskrybuj dzisiejsze statystyki na żywo",
+            description = "Otwiera strumień Server-Sent Events, który wysyła zdarzenie statistics z liczbą osób w obiekcie i dzisiejszymi wskaźnikami z procentową zmianą od razu po połączeniu i po każdej zmianie, nie częściej niż kilka razy na sekundę. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Strumień otwarty pomyślnie"),
+            @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Osiągnięto limit otwartych strumieni", content = @Content),
+    })
+    public ResponseEntity<SseEmitter> streamLiveStatistics() {
+        try {
+            return ResponseEntity.ok(liveStatisticsService.subscribeToStatistics());
+        } catch (TooManySubscribersException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/cache")
+    @Operation(summary = "Pobierz stan pamięci podręcznej statystyk",
+            description = "Pobiera liczbę trafień i chybień pamięci podręcznej statystyk, liczbę wpisów oraz aktualne wersje poszczególnych statystyk. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stan pamięci podręcznej statystyk pobrany pomyślnie"),
+            @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
+    })
+    public ResponseEntity<GetStatisticsCacheResponseDto> getCacheStatistics() {
+        return ResponseEntity.ok(statisticsCache.getStatistics());
+    }
+
+    @GetMapping("/gymEntryQueue")
+    @Operation(summary = "Pobierz stan kolejki zapisu wejść na siłownię",
+            description = "Pobiera liczbę wejść oczekujących na zapis w bazie danych, pojemność kolejki, liczbę zapisanych, nieudanych i synchronicznych zapisów oraz czasy zapisu paczek w milisekundach. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stan kolejki zapisu wejść pobrany pomyślnie"),
+            @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
+    })
+    public ResponseEntity<GetGymEntryQueueResponseDto> getGymEntryQueueStatistics() {
+        return ResponseEntity.ok(gymEntryWriteBehindService.getQueueStatistics());
+    }
+
+    @GetMapping("/occupancyHistory")
+    @Operation(summary = "Pobierz historię obłożenia siłowni",
+            description = "Pobiera zapisaną co minutę liczbę osób w obiekcie oraz najwyższą liczbę osób w każdej minucie między from a to (RRRR-MM-DDTGG:MM), wraz z minutą największego obłożenia. Zakres jest ograniczony, domyślnie do 31 dni. Dostępny dla pracowników z rolami: ADMIN, STATISTICS.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Historia obłożenia pobrana pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele minut", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
+    })
+    public ResponseEntity<GetOccupancyTimelineResponseDto> getOccupancyHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(occupancyTimelineService.getHistory(from, to));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // The ETag lets Spring answer a matching If-None-Match with 304 straight from the cached entry.
+    private <T> ResponseEntity<T> cached(String key, StatisticType type, Supplier<T> loader) {
+        CachedStatistic<T> statistic = statisticsCache.get(key, type, loader);
+        return ResponseEntity.ok().eTag(statistic.getETag()).body(statistic.getValue());
     }
 }
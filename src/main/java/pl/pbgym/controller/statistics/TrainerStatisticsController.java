@@ -4,16 +4,21 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import pl.pbgym.domain.user.AbstractUser;
 import pl.pbgym.domain.user.trainer.Trainer;
+import pl.pbgym.exception.statistics.InvalidStatisticsRangeException;
 import pl.pbgym.service.statistics.StatisticsService;
+import pl.pbgym.util.statistics.SeriesRange;
+import pl.pbgym.util.statistics.SeriesUnit;
+import pl.pbgym.util.statistics.TimeSeries;
 
-import java.time.YearMonth;
-import java.util.Map;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/trainerStatistics")
@@ -21,24 +26,35 @@ import java.util.Map;
 public class TrainerStatisticsController {
 
     private final StatisticsService statisticsService;
+    private final long maxSeriesBuckets;
 
-    public TrainerStatisticsController(StatisticsService statisticsService) {
+    public TrainerStatisticsController(StatisticsService statisticsService,
+                                       @Value("${statistics.series.max-buckets:10000}") long maxSeriesBuckets) {
         this.statisticsService = statisticsService;
+        this.maxSeriesBuckets = maxSeriesBuckets;
     }
 
     @GetMapping("/getMonthlyGroupClasses/{email}")
     @Operation(summary = "Pobierz miesięczne dane historyczne zajęć grupowych dla trenera",
-            description = "Pobiera miesięczne dane historyczne zajęć grupowych przypisanych do trenera. Dostępny dla pracowników z rolami: ADMIN, TRAINER_MANAGEMENT, STATISTICS oraz dla trenera, którego dane dotyczą.")
+            description = "Pobiera miesięczne dane historyczne zajęć grupowych przypisanych do trenera. Opcjonalne parametry from i to (RRRR-MM-DD) zawężają zakres, a granularity (DAY, WEEK, MONTH, HOUR) zmienia ziarnistość serii. Dostępny dla pracowników z rolami: ADMIN, TRAINER_MANAGEMENT, STATISTICS oraz dla trenera, którego dane dotyczą.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Miesięczne dane historyczne zajęć grupowych pobrane pomyślnie"),
+            @ApiResponse(responseCode = "400", description = "Data początkowa jest późniejsza niż data końcowa lub zakres obejmuje zbyt wiele przedziałów serii", content = @Content),
             @ApiResponse(responseCode = "403", description = "Brak dostępu do tego zasobu", content = @Content),
     })
-    public ResponseEntity<Map<YearMonth, Integer>> getMonthlyGroupClasses(@PathVariable String email) {
+    public ResponseEntity<TimeSeries> getMonthlyGroupClasses(@PathVariable String email,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) SeriesUnit granularity) {
         AbstractUser authenticatedUser = (AbstractUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         if (authenticatedUser instanceof Trainer && !authenticatedUser.getEmail().equals(email)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        return ResponseEntity.status(HttpStatus.OK).body(statisticsService.getHistoricalClassesCountMonthlyForTrainer(email));
+        try {
+            return ResponseEntity.status(HttpStatus.OK).body(statisticsService.getHistoricalClassesCountForTrainer(email, SeriesRange.of(from, to, granularity, SeriesUnit.MONTH, maxSeriesBuckets)));
+        } catch (InvalidStatisticsRangeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 }
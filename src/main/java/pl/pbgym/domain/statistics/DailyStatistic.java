@@ -0,0 +1,64 @@
+package pl.pbgym.domain.statistics;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "daily_statistic", uniqueConstraints = @UniqueConstraint(columnNames = {"type", "date"}))
+public class DailyStatistic {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_statistic_seq_gen")
+    @SequenceGenerator(name = "daily_statistic_seq_gen", sequenceName = "DAILY_STATISTIC_SEQ", allocationSize = 1)
+    @Column(name = "id", nullable = false)
+    private Long id;
+    @Column(name = "type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private StatisticType type;
+    @Column(name = "date", nullable = false)
+    private LocalDate date;
+    @Column(name = "count", nullable = false)
+    private Long count;
+    @Column(name = "sum", nullable = false)
+    private Double sum;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public StatisticType getType() {
+        return type;
+    }
+
+    public void setType(StatisticType type) {
+        this.type = type;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public Double getSum() {
+        return sum;
+    }
+
+    public void setSum(Double sum) {
+        this.sum = sum;
+    }
+}
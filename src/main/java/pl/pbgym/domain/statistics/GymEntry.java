@@ -1,6 +1,7 @@
 package pl.pbgym.domain.statistics;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import pl.pbgym.domain.user.AbstractUser;
 
 import java.time.LocalDateTime;
@@ -8,6 +9,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "gym_entry")
 public class GymEntry {
+    // Club used by scans that do not name one, and by visits recorded before clubs were tracked.
+    public static final long DEFAULT_LOCATION_ID = 1L;
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gym_entry_seq_gen")
     @SequenceGenerator(name = "gym_entry_seq_gen", sequenceName = "GYM_ENTRY_SEQ", allocationSize = 1)
@@ -17,6 +21,13 @@ public class GymEntry {
     private LocalDateTime dateTimeOfEntry;
     @Column(name = "date_time_of_exit", nullable = false)
     private LocalDateTime dateTimeOfExit;
+    @Column(name = "location_id", nullable = false)
+    @ColumnDefault("1")
+    private Long locationId = DEFAULT_LOCATION_ID;
+    // Set when the visit was closed by the stale visit sweep instead of an exit scan.
+    @Column(name = "auto_closed", nullable = false)
+    @ColumnDefault("false")
+    private Boolean autoClosed = false;
     @ManyToOne
     @JoinColumn(name = "abstract_user_id")
     private AbstractUser abstractUser;
@@ -45,6 +56,22 @@ public class GymEntry {
         this.dateTimeOfExit = dateTimeOfExit;
     }
 
+    public Long getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(Long locationId) {
+        this.locationId = locationId;
+    }
+
+    public Boolean getAutoClosed() {
+        return autoClosed;
+    }
+
+    public void setAutoClosed(Boolean autoClosed) {
+        this.autoClosed = autoClosed;
+    }
+
     public AbstractUser getAbstractUser() {
         return abstractUser;
     }
@@ -0,0 +1,53 @@
+package pl.pbgym.domain.statistics;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "occupancy_history", uniqueConstraints = @UniqueConstraint(columnNames = {"sample_minute"}))
+public class OccupancyHistory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "occupancy_history_seq_gen")
+    @SequenceGenerator(name = "occupancy_history_seq_gen", sequenceName = "OCCUPANCY_HISTORY_SEQ", allocationSize = 1)
+    @Column(name = "id", nullable = false)
+    private Long id;
+    @Column(name = "sample_minute", nullable = false)
+    private LocalDateTime minute;
+    @Column(name = "occupancy", nullable = false)
+    private Integer occupancy;
+    @Column(name = "peak_occupancy", nullable = false)
+    private Integer peakOccupancy;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getMinute() {
+        return minute;
+    }
+
+    public void setMinute(LocalDateTime minute) {
+        this.minute = minute;
+    }
+
+    public Integer getOccupancy() {
+        return occupancy;
+    }
+
+    public void setOccupancy(Integer occupancy) {
+        this.occupancy = occupancy;
+    }
+
+    public Integer getPeakOccupancy() {
+        return peakOccupancy;
+    }
+
+    public void setPeakOccupancy(Integer peakOccupancy) {
+        this.peakOccupancy = peakOccupancy;
+    }
+}
@@ -0,0 +1,32 @@
+package pl.pbgym.domain.statistics;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "statistic_backfill")
+public class StatisticBackfill {
+    @Id
+    @Column(name = "type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private StatisticType type;
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+    public StatisticType getType() {
+        return type;
+    }
+
+    public void setType(StatisticType type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,9 @@
+package pl.pbgym.domain.statistics;
+
+public enum StatisticType {
+    GYM_ENTRIES,
+    PAYMENTS,
+    MEMBER_REGISTRATIONS,
+    PASS_REGISTRATIONS,
+    GROUP_CLASSES
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -63,6 +64,10 @@ public abstract class AbstractUser implements UserDetails {
     @OneToOne(cascade = CascadeType.REMOVE, fetch = FetchType.EAGER)
     @JoinColumn(name="address_id", referencedColumnName = "id", nullable = false)
     private Address address;
+    // Stamped into every issued token; raising it makes all tokens issued so far stop authenticating.
+    @Column(name = "token_version", nullable = false)
+    @ColumnDefault("0")
+    private long tokenVersion;
 
     @Override
     @JsonIgnore
@@ -168,6 +173,15 @@ public abstract class AbstractUser implements UserDetails {
         this.gender = gender;
     }
 
+    @JsonIgnore
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(long tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     @Override
     @JsonIgnore
     public String getUsername() {
@@ -0,0 +1,7 @@
+package pl.pbgym.domain.user;
+
+public enum UserType {
+    MEMBER,
+    TRAINER,
+    WORKER
+}
@@ -0,0 +1,47 @@
+package pl.pbgym.dto.auth;
+
+import pl.pbgym.domain.user.UserType;
+import pl.pbgym.domain.user.worker.PermissionType;
+
+// One row per permission of a worker, a single row with no permission for anyone else.
+public class AuthenticationRowDto {
+    private final Long userId;
+    private final String email;
+    private final String password;
+    private final UserType userType;
+    private final long tokenVersion;
+    private final PermissionType permission;
+
+    public AuthenticationRowDto(Long userId, String email, String password, String userType, long tokenVersion, PermissionType permission) {
+        this.userId = userId;
+        this.email = email;
+        this.password = password;
+        this.userType = UserType.valueOf(userType);
+        this.tokenVersion = tokenVersion;
+        this.permission = permission;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public UserType getUserType() {
+        return userType;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public PermissionType getPermission() {
+        return permission;
+    }
+}
@@ -0,0 +1,67 @@
+package pl.pbgym.dto.auth;
+
+public class GetTokenCacheResponseDto {
+    private Long hits;
+    private Long misses;
+    private Double hitRate;
+    private Long evictions;
+    private Long invalidations;
+    private Integer size;
+    private Integer maxEntries;
+
+    public Long getHits() {
+        return hits;
+    }
+
+    public void setHits(Long hits) {
+        this.hits = hits;
+    }
+
+    public Long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(Long misses) {
+        this.misses = misses;
+    }
+
+    public Double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(Double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public Long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(Long evictions) {
+        this.evictions = evictions;
+    }
+
+    public Long getInvalidations() {
+        return invalidations;
+    }
+
+    public void setInvalidations(Long invalidations) {
+        this.invalidations = invalidations;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public Integer getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(Integer maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+}
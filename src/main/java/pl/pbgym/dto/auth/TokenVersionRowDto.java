@@ -0,0 +1,20 @@
+package pl.pbgym.dto.auth;
+
+// The only state a request with a token still reads from the database: who owns the email and which tokens count.
+public class TokenVersionRowDto {
+    private final Long userId;
+    private final long tokenVersion;
+
+    public TokenVersionRowDto(Long userId, long tokenVersion) {
+        this.userId = userId;
+        this.tokenVersion = tokenVersion;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+}
@@ -0,0 +1,31 @@
+package pl.pbgym.dto.statistics;
+
+import java.time.LocalDate;
+
+public class DailyAggregateDto {
+    private final LocalDate date;
+    private final Long count;
+    private final Double sum;
+
+    public DailyAggregateDto(LocalDate date, Long count) {
+        this(date, count, 0.0);
+    }
+
+    public DailyAggregateDto(LocalDate date, Long count, Double sum) {
+        this.date = date;
+        this.count = count;
+        this.sum = sum != null ? sum : 0.0;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public Double getSum() {
+        return sum;
+    }
+}
@@ -0,0 +1,33 @@
+package pl.pbgym.dto.statistics;
+
+import java.time.LocalDateTime;
+
+public class GetAdmissionResponseDto {
+    private Long locationId;
+    private String email;
+    private LocalDateTime holdUntil;
+
+    public Long getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(Long locationId) {
+        this.locationId = locationId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public LocalDateTime getHoldUntil() {
+        return holdUntil;
+    }
+
+    public void setHoldUntil(LocalDateTime holdUntil) {
+        this.holdUntil = holdUntil;
+    }
+}
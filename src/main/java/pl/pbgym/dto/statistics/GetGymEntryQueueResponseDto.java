@@ -0,0 +1,94 @@
+package pl.pbgym.dto.statistics;
+
+public class GetGymEntryQueueResponseDto {
+    private Boolean enabled;
+    private Integer queueDepth;
+    private Integer capacity;
+    private Long persistedEntries;
+    private Long failedEntries;
+    private Long synchronousWrites;
+    private Long flushCount;
+    private Double lastFlushMillis;
+    private Double averageFlushMillis;
+    private Double maxFlushMillis;
+
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Integer getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(Integer queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
+    public Long getPersistedEntries() {
+        return persistedEntries;
+    }
+
+    public void setPersistedEntries(Long persistedEntries) {
+        this.persistedEntries = persistedEntries;
+    }
+
+    public Long getFailedEntries() {
+        return failedEntries;
+    }
+
+    public void setFailedEntries(Long failedEntries) {
+        this.failedEntries = failedEntries;
+    }
+
+    public Long getSynchronousWrites() {
+        return synchronousWrites;
+    }
+
+    public void setSynchronousWrites(Long synchronousWrites) {
+        this.synchronousWrites = synchronousWrites;
+    }
+
+    public Long getFlushCount() {
+        return flushCount;
+    }
+
+    public void setFlushCount(Long flushCount) {
+        this.flushCount = flushCount;
+    }
+
+    public Double getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    public void setLastFlushMillis(Double lastFlushMillis) {
+        this.lastFlushMillis = lastFlushMillis;
+    }
+
+    public Double getAverageFlushMillis() {
+        return averageFlushMillis;
+    }
+
+    public void setAverageFlushMillis(Double averageFlushMillis) {
+        this.averageFlushMillis = averageFlushMillis;
+    }
+
+    public Double getMaxFlushMillis() {
+        return maxFlushMillis;
+    }
+
+    public void setMaxFlushMillis(Double maxFlushMillis) {
+        this.maxFlushMillis = maxFlushMillis;
+    }
+}
@@ -7,6 +7,18 @@ public class GetGymEntryResponseDto {
     private LocalDateTime dateTimeOfEntry;
     private LocalDateTime dateTimeOfExit;
     private String email;
+    private Boolean autoClosed;
+
+    public GetGymEntryResponseDto() {
+    }
+
+    public GetGymEntryResponseDto(Long id, LocalDateTime dateTimeOfEntry, LocalDateTime dateTimeOfExit, String email, Boolean autoClosed) {
+        this.id = id;
+        this.dateTimeOfEntry = dateTimeOfEntry;
+        this.dateTimeOfExit = dateTimeOfExit;
+        this.email = email;
+        this.autoClosed = autoClosed;
+    }
 
     public Long getId() {
         return id;
@@ -39,4 +51,12 @@ public class GetGymEntryResponseDto {
     public void setEmail(String email) {
         this.email = email;
     }
+
+    public Boolean getAutoClosed() {
+        return autoClosed;
+    }
+
+    public void setAutoClosed(Boolean autoClosed) {
+        this.autoClosed = autoClosed;
+    }
 }
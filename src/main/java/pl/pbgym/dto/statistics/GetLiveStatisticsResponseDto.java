@@ -0,0 +1,58 @@
+package pl.pbgym.dto.statistics;
+
+public class GetLiveStatisticsResponseDto {
+    private Integer currentUserCount;
+    private String membersRegisteredToday;
+    private String passesRegisteredToday;
+    private String paymentsToday;
+    private String gymEntriesToday;
+    private String groupClassesToday;
+
+    public Integer getCurrentUserCount() {
+        return currentUserCount;
+    }
+
+    public void setCurrentUserCount(Integer currentUserCount) {
+        this.currentUserCount = currentUserCount;
+    }
+
+    public String getMembersRegisteredToday() {
+        return membersRegisteredToday;
+    }
+
+    public void setMembersRegisteredToday(String membersRegisteredToday) {
+        this.membersRegisteredToday = membersRegisteredToday;
+    }
+
+    public String getPassesRegisteredToday() {
+        return passesRegisteredToday;
+    }
+
+    public void setPassesRegisteredToday(String passesRegisteredToday) {
+        this.passesRegisteredToday = passesRegisteredToday;
+    }
+
+    public String getPaymentsToday() {
+        return paymentsToday;
+    }
+
+    public void setPaymentsToday(String paymentsToday) {
+        this.paymentsToday = paymentsToday;
+    }
+
+    public String getGymEntriesToday() {
+        return gymEntriesToday;
+    }
+
+    public void setGymEntriesToday(String gymEntriesToday) {
+        this.gymEntriesToday = gymEntriesToday;
+    }
+
+    public String getGroupClassesToday() {
+        return groupClassesToday;
+    }
+
+    public void setGroupClassesToday(String groupClassesToday) {
+        this.groupClassesToday = groupClassesToday;
+    }
+}
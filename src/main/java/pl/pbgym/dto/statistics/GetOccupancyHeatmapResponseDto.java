@@ -0,0 +1,25 @@
+package pl.pbgym.dto.statistics;
+
+import java.time.DayOfWeek;
+import java.util.Map;
+
+public class GetOccupancyHeatmapResponseDto {
+    private Integer windowWeeks;
+    private Map<DayOfWeek, double[]> averageOccupancy;
+
+    public Integer getWindowWeeks() {
+        return windowWeeks;
+    }
+
+    public void setWindowWeeks(Integer windowWeeks) {
+        this.windowWeeks = windowWeeks;
+    }
+
+    public Map<DayOfWeek, double[]> getAverageOccupancy() {
+        return averageOccupancy;
+    }
+
+    public void setAverageOccupancy(Map<DayOfWeek, double[]> averageOccupancy) {
+        this.averageOccupancy = averageOccupancy;
+    }
+}
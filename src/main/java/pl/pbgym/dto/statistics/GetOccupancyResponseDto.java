@@ -0,0 +1,24 @@
+package pl.pbgym.dto.statistics;
+
+import java.util.Map;
+
+public class GetOccupancyResponseDto {
+    private Integer total;
+    private Map<Long, Integer> locations;
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+
+    public Map<Long, Integer> getLocations() {
+        return locations;
+    }
+
+    public void setLocations(Map<Long, Integer> locations) {
+        this.locations = locations;
+    }
+}
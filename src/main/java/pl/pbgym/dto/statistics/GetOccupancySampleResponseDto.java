@@ -0,0 +1,42 @@
+package pl.pbgym.dto.statistics;
+
+import java.time.LocalDateTime;
+
+public class GetOccupancySampleResponseDto {
+    private LocalDateTime minute;
+    private Integer occupancy;
+    private Integer peakOccupancy;
+
+    public GetOccupancySampleResponseDto() {
+    }
+
+    public GetOccupancySampleResponseDto(LocalDateTime minute, Integer occupancy, Integer peakOccupancy) {
+        this.minute = minute;
+        this.occupancy = occupancy;
+        this.peakOccupancy = peakOccupancy;
+    }
+
+    public LocalDateTime getMinute() {
+        return minute;
+    }
+
+    public void setMinute(LocalDateTime minute) {
+        this.minute = minute;
+    }
+
+    public Integer getOccupancy() {
+        return occupancy;
+    }
+
+    public void setOccupancy(Integer occupancy) {
+        this.occupancy = occupancy;
+    }
+
+    public Integer getPeakOccupancy() {
+        return peakOccupancy;
+    }
+
+    public void setPeakOccupancy(Integer peakOccupancy) {
+        this.peakOccupancy = peakOccupancy;
+    }
+}
@@ -0,0 +1,34 @@
+package pl.pbgym.dto.statistics;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class GetOccupancyTimelineResponseDto {
+    private Integer peakOccupancy;
+    private LocalDateTime peakMinute;
+    private List<GetOccupancySampleResponseDto> samples;
+
+    public Integer getPeakOccupancy() {
+        return peakOccupancy;
+    }
+
+    public void setPeakOccupancy(Integer peakOccupancy) {
+        this.peakOccupancy = peakOccupancy;
+    }
+
+    public LocalDateTime getPeakMinute() {
+        return peakMinute;
+    }
+
+    public void setPeakMinute(LocalDateTime peakMinute) {
+        this.peakMinute = peakMinute;
+    }
+
+    public List<GetOccupancySampleResponseDto> getSamples() {
+        return samples;
+    }
+
+    public void setSamples(List<GetOccupancySampleResponseDto> samples) {
+        this.samples = samples;
+    }
+}
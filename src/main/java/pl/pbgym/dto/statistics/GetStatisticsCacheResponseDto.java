@@ -0,0 +1,44 @@
+package pl.pbgym.dto.statistics;
+
+import pl.pbgym.domain.statistics.StatisticType;
+
+import java.util.Map;
+
+public class GetStatisticsCacheResponseDto {
+    private Long hits;
+    private Long misses;
+    private Integer size;
+    private Map<StatisticType, Long> versions;
+
+    public Long getHits() {
+        return hits;
+    }
+
+    public void setHits(Long hits) {
+        this.hits = hits;
+    }
+
+    public Long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(Long misses) {
+        this.misses = misses;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public Map<StatisticType, Long> getVersions() {
+        return versions;
+    }
+
+    public void setVersions(Map<StatisticType, Long> versions) {
+        this.versions = versions;
+    }
+}
@@ -0,0 +1,168 @@
+package pl.pbgym.dto.statistics;
+
+import pl.pbgym.util.statistics.TimeSeries;
+
+public class GetStatisticsDashboardResponseDto {
+    private Integer trainerCount;
+    private Integer memberCount;
+    private Integer activePassCount;
+    private TimeSeries monthlyMemberRegistrations;
+    private TimeSeries dailyMemberRegistrations;
+    private String membersRegisteredToday;
+    private TimeSeries monthlyPassRegistrations;
+    private TimeSeries dailyPassRegistrations;
+    private String passesRegisteredToday;
+    private TimeSeries monthlyPaymentSums;
+    private TimeSeries dailyPaymentSums;
+    private String paymentsToday;
+    private TimeSeries monthlyGymEntries;
+    private TimeSeries dailyGymEntries;
+    private String gymEntriesToday;
+    private TimeSeries monthlyGroupClasses;
+    private TimeSeries dailyGroupClasses;
+    private String groupClassesToday;
+
+    public Integer getTrainerCount() {
+        return trainerCount;
+    }
+
+    public void setTrainerCount(Integer trainerCount) {
+        this.trainerCount = trainerCount;
+    }
+
+    public Integer getMemberCount() {
+        return memberCount;
+    }
+
+    public void setMemberCount(Integer memberCount) {
+        this.memberCount = memberCount;
+    }
+
+    public Integer getActivePassCount() {
+        return activePassCount;
+    }
+
+    public void setActivePassCount(Integer activePassCount) {
+        this.activePassCount = activePassCount;
+    }
+
+    public TimeSeries getMonthlyMemberRegistrations() {
+        return monthlyMemberRegistrations;
+    }
+
+    public void setMonthlyMemberRegistrations(TimeSeries monthlyMemberRegistrations) {
+        this.monthlyMemberRegistrations = monthlyMemberRegistrations;
+    }
+
+    public TimeSeries getDailyMemberRegistrations() {
+        return dailyMemberRegistrations;
+    }
+
+    public void setDailyMemberRegistrations(TimeSeries dailyMemberRegistrations) {
+        this.dailyMemberRegistrations = dailyMemberRegistrations;
+    }
+
+    public String getMembersRegisteredToday() {
+        return membersRegisteredToday;
+    }
+
+    public void setMembersRegisteredToday(String membersRegisteredToday) {
+        this.membersRegisteredToday = membersRegisteredToday;
+    }
+
+    public TimeSeries getMonthlyPassRegistrations() {
+        return monthlyPassRegistrations;
+    }
+
+    public void setMonthlyPassRegistrations(TimeSeries monthlyPassRegistrations) {
+        this.monthlyPassRegistrations = monthlyPassRegistrations;
+    }
+
+    public TimeSeries getDailyPassRegistrations() {
+        return dailyPassRegistrations;
+    }
+
+    public void setDailyPassRegistrations(TimeSeries dailyPassRegistrations) {
+        this.dailyPassRegistrations = dailyPassRegistrations;
+    }
+
+    public String getPassesRegisteredToday() {
+        return passesRegisteredToday;
+    }
+
+    public void setPassesRegisteredToday(String passesRegisteredToday) {
+        this.passesRegisteredToday = passesRegisteredToday;
+    }
+
+    public TimeSeries getMonthlyPaymentSums() {
+        return monthlyPaymentSums;
+    }
+
+    public void setMonthlyPaymentSums(TimeSeries monthlyPaymentSums) {
+        this.monthlyPaymentSums = monthlyPaymentSums;
+    }
+
+    public TimeSeries getDailyPaymentSums() {
+        return dailyPaymentSums;
+    }
+
+    public void setDailyPaymentSums(TimeSeries dailyPaymentSums) {
+        this.dailyPaymentSums = dailyPaymentSums;
+    }
+
+    public String getPaymentsToday() {
+        return paymentsToday;
+    }
+
+    public void setPaymentsToday(String paymentsToday) {
+        this.paymentsToday = paymentsToday;
+    }
+
+    public TimeSeries getMonthlyGymEntries() {
+        return monthlyGymEntries;
+    }
+
+    public void setMonthlyGymEntries(TimeSeries monthlyGymEntries) {
+        this.monthlyGymEntries = monthlyGymEntries;
+    }
+
+    public TimeSeries getDailyGymEntries() {
+        return dailyGymEntries;
+    }
+
+    public void setDailyGymEntries(TimeSeries dailyGymEntries) {
+        this.dailyGymEntries = dailyGymEntries;
+    }
+
+    public String getGymEntriesToday() {
+        return gymEntriesToday;
+    }
+
+    public void setGymEntriesToday(String gymEntriesToday) {
+        this.gymEntriesToday = gymEntriesToday;
+    }
+
+    public TimeSeries getMonthlyGroupClasses() {
+        return monthlyGroupClasses;
+    }
+
+    public void setMonthlyGroupClasses(TimeSeries monthlyGroupClasses) {
+        this.monthlyGroupClasses = monthlyGroupClasses;
+    }
+
+    public TimeSeries getDailyGroupClasses() {
+        return dailyGroupClasses;
+    }
+
+    public void setDailyGroupClasses(TimeSeries dailyGroupClasses) {
+        this.dailyGroupClasses = dailyGroupClasses;
+    }
+
+    public String getGroupClassesToday() {
+        return groupClassesToday;
+    }
+
+    public void setGroupClassesToday(String groupClassesToday) {
+        this.groupClassesToday = groupClassesToday;
+    }
+}
@@ -0,0 +1,21 @@
+package pl.pbgym.dto.statistics;
+
+import java.time.LocalDateTime;
+
+public class GymVisitDto {
+    private final LocalDateTime dateTimeOfEntry;
+    private final LocalDateTime dateTimeOfExit;
+
+    public GymVisitDto(LocalDateTime dateTimeOfEntry, LocalDateTime dateTimeOfExit) {
+        this.dateTimeOfEntry = dateTimeOfEntry;
+        this.dateTimeOfExit = dateTimeOfExit;
+    }
+
+    public LocalDateTime getDateTimeOfEntry() {
+        return dateTimeOfEntry;
+    }
+
+    public LocalDateTime getDateTimeOfExit() {
+        return dateTimeOfExit;
+    }
+}
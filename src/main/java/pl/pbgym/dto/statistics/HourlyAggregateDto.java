@@ -0,0 +1,32 @@
+package pl.pbgym.dto.statistics;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class HourlyAggregateDto {
+    private final LocalDateTime dateTime;
+    private final Long count;
+    private final Double sum;
+
+    public HourlyAggregateDto(LocalDate date, Integer hour, Long count) {
+        this(date, hour, count, 0.0);
+    }
+
+    public HourlyAggregateDto(LocalDate date, Integer hour, Long count, Double sum) {
+        this.dateTime = date.atTime(hour, 0);
+        this.count = count;
+        this.sum = sum != null ? sum : 0.0;
+    }
+
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public Double getSum() {
+        return sum;
+    }
+}
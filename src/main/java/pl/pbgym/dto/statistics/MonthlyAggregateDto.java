@@ -0,0 +1,31 @@
+package pl.pbgym.dto.statistics;
+
+import java.time.YearMonth;
+
+public class MonthlyAggregateDto {
+    private final YearMonth month;
+    private final Long count;
+    private final Double sum;
+
+    public MonthlyAggregateDto(Integer year, Integer month, Long count) {
+        this(year, month, count, 0.0);
+    }
+
+    public MonthlyAggregateDto(Integer year, Integer month, Long count, Double sum) {
+        this.month = YearMonth.of(year, month);
+        this.count = count;
+        this.sum = sum != null ? sum : 0.0;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public Double getSum() {
+        return sum;
+    }
+}
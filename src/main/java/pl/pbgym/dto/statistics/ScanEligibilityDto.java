@@ -0,0 +1,29 @@
+package pl.pbgym.dto.statistics;
+
+import pl.pbgym.domain.user.UserType;
+
+import java.time.LocalDateTime;
+
+public class ScanEligibilityDto {
+    private final Long userId;
+    private final UserType userType;
+    private final LocalDateTime passDateEnd;
+
+    public ScanEligibilityDto(Long userId, String userType, LocalDateTime passDateEnd) {
+        this.userId = userId;
+        this.userType = UserType.valueOf(userType);
+        this.passDateEnd = passDateEnd;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public UserType getUserType() {
+        return userType;
+    }
+
+    public LocalDateTime getPassDateEnd() {
+        return passDateEnd;
+    }
+}
@@ -0,0 +1,7 @@
+package pl.pbgym.exception.statistics;
+
+public class InvalidStatisticsRangeException extends RuntimeException {
+    public InvalidStatisticsRangeException(String message) {
+        super(message);
+    }
+}
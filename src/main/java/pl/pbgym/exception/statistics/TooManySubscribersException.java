@@ -0,0 +1,7 @@
+package pl.pbgym.exception.statistics;
+
+public class TooManySubscribersException extends RuntimeException {
+    public TooManySubscribersException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package pl.pbgym.exception.user_counter;
+
+public class LocationAtCapacityException extends RuntimeException {
+    public LocationAtCapacityException(String message) {
+        super(message);
+    }
+}
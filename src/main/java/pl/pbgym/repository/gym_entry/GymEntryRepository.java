@@ -1,14 +1,50 @@
 package pl.pbgym.repository.gym_entry;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import pl.pbgym.domain.statistics.GymEntry;
+import pl.pbgym.dto.statistics.DailyAggregateDto;
+import pl.pbgym.dto.statistics.GetGymEntryResponseDto;
+import pl.pbgym.dto.statistics.GymVisitDto;
+import pl.pbgym.dto.statistics.HourlyAggregateDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface GymEntryRepository extends JpaRepository<GymEntry, Long> {
 
-    @Query("SELECT ge FROM GymEntry ge WHERE ge.abstractUser.email = :email")
-    List<GymEntry> findAllByUserEmail(@Param("email") String email);
+    @Query("SELECT new pl.pbgym.dto.statistics.GetGymEntryResponseDto(ge.id, ge.dateTimeOfEntry, ge.dateTimeOfExit, u.email, ge.autoClosed) " +
+            "FROM GymEntry ge JOIN ge.abstractUser u WHERE u.email = :email ORDER BY ge.dateTimeOfEntry")
+    List<GetGymEntryResponseDto> findAllByUserEmail(@Param("email") String email);
+
+    // Forward-only streams of bare timestamps: callers aggregate them in one pass inside a read-only transaction.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new pl.pbgym.dto.statistics.GymVisitDto(ge.dateTimeOfEntry, ge.dateTimeOfExit) " +
+            "FROM GymEntry ge WHERE ge.dateTimeOfExit IS NOT NULL AND ge.dateTimeOfEntry >= :from")
+    Stream<GymVisitDto> streamFinishedVisitsSince(@Param("from") LocalDateTime from);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new pl.pbgym.dto.statistics.GymVisitDto(ge.dateTimeOfEntry, ge.dateTimeOfExit) " +
+            "FROM GymEntry ge WHERE ge.abstractUser.email = :email AND ge.dateTimeOfEntry >= :from AND ge.dateTimeOfEntry < :to " +
+            "ORDER BY ge.dateTimeOfEntry")
+    Stream<GymVisitDto> streamVisitsByUserEmailBetween(@Param("email") String email, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new pl.pbgym.dto.statistics.DailyAggregateDto(CAST(ge.dateTimeOfEntry AS LocalDate), COUNT(ge)) " +
+            "FROM GymEntry ge GROUP BY CAST(ge.dateTimeOfEntry AS LocalDate) ORDER BY CAST(ge.dateTimeOfEntry AS LocalDate)")
+    List<DailyAggregateDto> countDailyEntries();
+
+    @Query("SELECT new pl.pbgym.dto.statistics.HourlyAggregateDto(CAST(ge.dateTimeOfEntry AS LocalDate), HOUR(ge.dateTimeOfEntry), COUNT(ge)) " +
+            "FROM GymEntry ge WHERE ge.dateTimeOfEntry >= :from AND ge.dateTimeOfEntry < :to " +
+            "GROUP BY CAST(ge.dateTimeOfEntry AS LocalDate), HOUR(ge.dateTimeOfEntry) ORDER BY CAST(ge.dateTimeOfEntry AS LocalDate), HOUR(ge.dateTimeOfEntry)")
+    List<HourlyAggregateDto> countHourlyEntries(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new pl.pbgym.dto.statistics.HourlyAggregateDto(CAST(ge.dateTimeOfEntry AS LocalDate), HOUR(ge.dateTimeOfEntry), COUNT(ge)) " +
+            "FROM GymEntry ge WHERE ge.abstractUser.email = :email AND ge.dateTimeOfEntry >= :from AND ge.dateTimeOfEntry < :to " +
+            "GROUP BY CAST(ge.dateTimeOfEntry AS LocalDate), HOUR(ge.dateTimeOfEntry) ORDER BY CAST(ge.dateTimeOfEntry AS LocalDate), HOUR(ge.dateTimeOfEntry)")
+    List<HourlyAggregateDto> countHourlyEntriesByUserEmail(@Param("email") String email, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
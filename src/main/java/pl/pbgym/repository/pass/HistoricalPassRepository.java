@@ -4,11 +4,23 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import pl.pbgym.domain.pass.HistoricalPass;
+import pl.pbgym.dto.statistics.DailyAggregateDto;
+import pl.pbgym.dto.statistics.HourlyAggregateDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface HistoricalPassRepository extends JpaRepository<HistoricalPass, Long> {
 
     @Query("SELECT hp FROM HistoricalPass hp WHERE hp.member.email = :email")
     List<HistoricalPass> findAllByMemberEmail(@Param("email") String email);
+
+    @Query("SELECT new pl.pbgym.dto.statistics.DailyAggregateDto(CAST(hp.dateStart AS LocalDate), COUNT(hp)) " +
+            "FROM HistoricalPass hp GROUP BY CAST(hp.dateStart AS LocalDate) ORDER BY CAST(hp.dateStart AS LocalDate)")
+    List<DailyAggregateDto> countDailyPassStarts();
+
+    @Query("SELECT new pl.pbgym.dto.statistics.HourlyAggregateDto(CAST(hp.dateStart AS LocalDate), HOUR(hp.dateStart), COUNT(hp)) " +
+            "FROM HistoricalPass hp WHERE hp.dateStart >= :from AND hp.dateStart < :to " +
+            "GROUP BY CAST(hp.dateStart AS LocalDate), HOUR(hp.dateStart) ORDER BY CAST(hp.dateStart AS LocalDate), HOUR(hp.dateStart)")
+    List<HourlyAggregateDto> countHourlyPassStarts(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import pl.pbgym.domain.pass.Pass;
+import pl.pbgym.dto.statistics.DailyAggregateDto;
+import pl.pbgym.dto.statistics.HourlyAggregateDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,4 +19,13 @@ public interface PassRepository extends JpaRepository<Pass, Long> {
 
     @Query("SELECT p FROM Pass p WHERE p.dateEnd < :currentDate")
     List<Pass> getExpiredPassesForDeactivation(@Param("currentDate") LocalDateTime currentDate);
+
+    @Query("SELECT new pl.pbgym.dto.statistics.DailyAggregateDto(CAST(p.dateStart AS LocalDate), COUNT(p)) " +
+            "FROM Pass p GROUP BY CAST(p.dateStart AS LocalDate) ORDER BY CAST(p.dateStart AS LocalDate)")
+    List<DailyAggregateDto> countDailyPassStarts();
+
+    @Query("SELECT new pl.pbgym.dto.statistics.HourlyAggregateDto(CAST(p.dateStart AS LocalDate), HOUR(p.dateStart), COUNT(p)) " +
+            "FROM Pass p WHERE p.dateStart >= :from AND p.dateStart < :to " +
+            "GROUP BY CAST(p.dateStart AS LocalDate), HOUR(p.dateStart) ORDER BY CAST(p.dateStart AS LocalDate), HOUR(p.dateStart)")
+    List<HourlyAggregateDto> countHourlyPassStarts(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
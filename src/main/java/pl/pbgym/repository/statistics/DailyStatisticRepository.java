@@ -0,0 +1,34 @@
+package pl.pbgym.repository.statistics;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.pbgym.domain.statistics.DailyStatistic;
+import pl.pbgym.domain.statistics.StatisticType;
+import pl.pbgym.dto.statistics.MonthlyAggregateDto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface DailyStatisticRepository extends JpaRepository<DailyStatistic, Long> {
+
+    @Query("SELECT ds FROM DailyStatistic ds WHERE ds.type = :type ORDER BY ds.date ASC")
+    List<DailyStatistic> findAllByType(@Param("type") StatisticType type);
+
+    @Query("SELECT ds FROM DailyStatistic ds WHERE ds.type = :type AND ds.date BETWEEN :from AND :to ORDER BY ds.date ASC")
+    List<DailyStatistic> findAllByTypeBetween(@Param("type") StatisticType type, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new pl.pbgym.dto.statistics.MonthlyAggregateDto(YEAR(ds.date), MONTH(ds.date), SUM(ds.count), SUM(ds.sum)) " +
+            "FROM DailyStatistic ds WHERE ds.type = :type AND ds.date BETWEEN :from AND :to " +
+            "GROUP BY YEAR(ds.date), MONTH(ds.date) ORDER BY YEAR(ds.date), MONTH(ds.date)")
+    List<MonthlyAggregateDto> sumMonthlyByTypeBetween(@Param("type") StatisticType type, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT ds FROM DailyStatistic ds WHERE ds.type = :type AND ds.date = :date")
+    Optional<DailyStatistic> findByTypeAndDate(@Param("type") StatisticType type, @Param("date") LocalDate date);
+
+    @Modifying
+    @Query("UPDATE DailyStatistic ds SET ds.count = ds.count + :count, ds.sum = ds.sum + :sum WHERE ds.type = :type AND ds.date = :date")
+    int increment(@Param("type") StatisticType type, @Param("date") LocalDate date, @Param("count") long count, @Param("sum") double sum);
+}
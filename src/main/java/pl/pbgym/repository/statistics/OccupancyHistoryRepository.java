@@ -0,0 +1,19 @@
+package pl.pbgym.repository.statistics;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.pbgym.domain.statistics.OccupancyHistory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface OccupancyHistoryRepository extends JpaRepository<OccupancyHistory, Long> {
+
+    @Query("SELECT oh FROM OccupancyHistory oh WHERE oh.minute BETWEEN :from AND :to ORDER BY oh.minute ASC")
+    List<OccupancyHistory> findAllBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT oh FROM OccupancyHistory oh WHERE oh.minute = :minute")
+    Optional<OccupancyHistory> findByMinute(@Param("minute") LocalDateTime minute);
+}
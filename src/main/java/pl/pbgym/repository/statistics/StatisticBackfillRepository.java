@@ -0,0 +1,8 @@
+package pl.pbgym.repository.statistics;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import pl.pbgym.domain.statistics.StatisticBackfill;
+import pl.pbgym.domain.statistics.StatisticType;
+
+public interface StatisticBackfillRepository extends JpaRepository<StatisticBackfill, StatisticType> {
+}
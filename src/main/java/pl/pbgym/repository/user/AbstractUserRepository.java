@@ -1,12 +1,33 @@
 package pl.pbgym.repository.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.pbgym.domain.user.AbstractUser;
+import pl.pbgym.dto.auth.AuthenticationRowDto;
+import pl.pbgym.dto.auth.TokenVersionRowDto;
+import pl.pbgym.dto.statistics.ScanEligibilityDto;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AbstractUserRepository extends JpaRepository<AbstractUser, Long> {
     Optional<AbstractUser> findByEmail(String email);
+
+    // Only what a turnstile scan needs, without the eager address, pass, card and pass history of the entity.
+    @Query("SELECT new pl.pbgym.dto.statistics.ScanEligibilityDto(u.id, " +
+            "CASE TYPE(u) WHEN Member THEN 'MEMBER' WHEN Trainer THEN 'TRAINER' ELSE 'WORKER' END, p.dateEnd) " +
+            "FROM AbstractUser u LEFT JOIN Pass p ON p.member.id = u.id WHERE u.email = :email")
+    Optional<ScanEligibilityDto> findScanEligibilityByEmail(@Param("email") String email);
+
+    // Only what authentication needs, with the permissions of a worker joined in instead of loading the entity graph.
+    @Query("SELECT new pl.pbgym.dto.auth.AuthenticationRowDto(u.id, u.email, u.password, " +
+            "CASE TYPE(u) WHEN Member THEN 'MEMBER' WHEN Trainer THEN 'TRAINER' ELSE 'WORKER' END, u.tokenVersion, p.permission) " +
+            "FROM AbstractUser u LEFT JOIN Permission p ON p.worker.id = u.id WHERE u.email = :email")
+    List<AuthenticationRowDto> findAuthenticationRowsByEmail(@Param("email") String email);
+
+    @Query("SELECT new pl.pbgym.dto.auth.TokenVersionRowDto(u.id, u.tokenVersion) FROM AbstractUser u WHERE u.email = :email")
+    Optional<TokenVersionRowDto> findTokenVersionByEmail(@Param("email") String email);
 }
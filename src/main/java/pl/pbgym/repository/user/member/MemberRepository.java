@@ -1,10 +1,25 @@
 package pl.pbgym.repository.user.member;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import pl.pbgym.domain.user.member.Member;
+import pl.pbgym.dto.statistics.DailyAggregateDto;
+import pl.pbgym.dto.statistics.HourlyAggregateDto;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface MemberRepository extends JpaRepository<Member, Long> {
     Optional<Member> findByEmail(String email);
+
+    @Query("SELECT new pl.pbgym.dto.statistics.DailyAggregateDto(CAST(m.registrationDate AS LocalDate), COUNT(m)) " +
+            "FROM Member m GROUP BY CAST(m.registrationDate AS LocalDate) ORDER BY CAST(m.registrationDate AS LocalDate)")
+    List<DailyAggregateDto> countDailyRegistrations();
+
+    @Query("SELECT new pl.pbgym.dto.statistics.HourlyAggregateDto(CAST(m.registrationDate AS LocalDate), HOUR(m.registrationDate), COUNT(m)) " +
+            "FROM Member m WHERE m.registrationDate >= :from AND m.registrationDate < :to " +
+            "GROUP BY CAST(m.registrationDate AS LocalDate), HOUR(m.registrationDate) ORDER BY CAST(m.registrationDate AS LocalDate), HOUR(m.registrationDate)")
+    List<HourlyAggregateDto> countHourlyRegistrations(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -4,7 +4,10 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import pl.pbgym.domain.user.member.Payment;
+import pl.pbgym.dto.statistics.DailyAggregateDto;
+import pl.pbgym.dto.statistics.HourlyAggregateDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
@@ -16,4 +19,13 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     @Query("SELECT p FROM Payment p WHERE p.email = :email")
     List<Payment> findAllByMemberEmail(@Param("email") String email);
+
+    @Query("SELECT new pl.pbgym.dto.statistics.DailyAggregateDto(CAST(p.dateTime AS LocalDate), COUNT(p), SUM(p.amount)) " +
+            "FROM Payment p GROUP BY CAST(p.dateTime AS LocalDate) ORDER BY CAST(p.dateTime AS LocalDate)")
+    List<DailyAggregateDto> sumDailyPayments();
+
+    @Query("SELECT new pl.pbgym.dto.statistics.HourlyAggregateDto(CAST(p.dateTime AS LocalDate), HOUR(p.dateTime), COUNT(p), SUM(p.amount)) " +
+            "FROM Payment p WHERE p.dateTime >= :from AND p.dateTime < :to " +
+            "GROUP BY CAST(p.dateTime AS LocalDate), HOUR(p.dateTime) ORDER BY CAST(p.dateTime AS LocalDate), HOUR(p.dateTime)")
+    List<HourlyAggregateDto> sumHourlyPayments(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
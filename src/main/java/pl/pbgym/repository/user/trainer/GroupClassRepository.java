@@ -4,6 +4,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import pl.pbgym.domain.user.trainer.GroupClass;
+import pl.pbgym.dto.statistics.DailyAggregateDto;
+import pl.pbgym.dto.statistics.HourlyAggregateDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -27,4 +29,25 @@ public interface GroupClassRepository extends JpaRepository<GroupClass, Long> {
 
     @Query("SELECT gc FROM GroupClass gc WHERE gc.trainer.email = :email AND gc.dateStart <= :currentDate")
     List<GroupClass> findHistoricalGroupClassesByTrainerEmail(@Param("email") String email, @Param("currentDate") LocalDateTime currentDate);
+
+    @Query("SELECT new pl.pbgym.dto.statistics.DailyAggregateDto(CAST(gc.dateStart AS LocalDate), COUNT(gc)) " +
+            "FROM GroupClass gc GROUP BY CAST(gc.dateStart AS LocalDate) ORDER BY CAST(gc.dateStart AS LocalDate)")
+    List<DailyAggregateDto> countDailyGroupClasses();
+
+    @Query("SELECT new pl.pbgym.dto.statistics.HourlyAggregateDto(CAST(gc.dateStart AS LocalDate), HOUR(gc.dateStart), COUNT(gc)) " +
+            "FROM GroupClass gc WHERE gc.dateStart >= :from AND gc.dateStart < :to " +
+            "GROUP BY CAST(gc.dateStart AS LocalDate), HOUR(gc.dateStart) ORDER BY CAST(gc.dateStart AS LocalDate), HOUR(gc.dateStart)")
+    List<HourlyAggregateDto> countHourlyGroupClasses(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new pl.pbgym.dto.statistics.HourlyAggregateDto(CAST(gc.dateStart AS LocalDate), HOUR(gc.dateStart), COUNT(gc)) " +
+            "FROM GroupClass gc JOIN gc.members m WHERE m.email = :email AND gc.dateStart <= :currentDate AND gc.dateStart >= :from AND gc.dateStart < :to " +
+            "GROUP BY CAST(gc.dateStart AS LocalDate), HOUR(gc.dateStart) ORDER BY CAST(gc.dateStart AS LocalDate), HOUR(gc.dateStart)")
+    List<HourlyAggregateDto> countHourlyHistoricalGroupClassesByMemberEmail(@Param("email") String email, @Param("currentDate") LocalDateTime currentDate,
+                                                                             @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new pl.pbgym.dto.statistics.HourlyAggregateDto(CAST(gc.dateStart AS LocalDate), HOUR(gc.dateStart), COUNT(gc)) " +
+            "FROM GroupClass gc WHERE gc.trainer.email = :email AND gc.dateStart <= :currentDate AND gc.dateStart >= :from AND gc.dateStart < :to " +
+            "GROUP BY CAST(gc.dateStart AS LocalDate), HOUR(gc.dateStart) ORDER BY CAST(gc.dateStart AS LocalDate), HOUR(gc.dateStart)")
+    List<HourlyAggregateDto> countHourlyHistoricalGroupClassesByTrainerEmail(@Param("email") String email, @Param("currentDate") LocalDateTime currentDate,
+                                                                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package pl.pbgym.service.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.pbgym.dto.auth.AuthenticationRowDto;
+import pl.pbgym.dto.auth.TokenVersionRowDto;
+import pl.pbgym.repository.user.AbstractUserRepository;
+import pl.pbgym.util.auth.AuthenticatedUser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class AuthenticatedUserCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticatedUserCache.class);
+
+    private final Map<String, AuthenticatedUser> entries = new ConcurrentHashMap<>();
+    // Requests with a token only need the owner and the token version; the rest comes from the token's claims.
+    private final Map<String, TokenVersionRowDto> tokenVersions = new ConcurrentHashMap<>();
+    private final AbstractUserRepository abstractUserRepository;
+    private final int maxEntries;
+
+    public AuthenticatedUserCache(AbstractUserRepository abstractUserRepository,
+                                  @Value("${auth.principal-cache.max-entries:10000}") int maxEntries) {
+        this.abstractUserRepository = abstractUserRepository;
+        this.maxEntries = maxEntries;
+    }
+
+    // Unknown emails are not cached, so a user registered later can log in right away.
+    public Optional<AuthenticatedUser> get(String email) {
+        AuthenticatedUser cached = entries.get(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (entries.size() >= maxEntries) {
+            logger.info("Pamięć podręczna danych uwierzytelniania osiągnęła limit {} wpisów, czyszczenie.", maxEntries);
+            entries.clear();
+        }
+        // Loaded inside computeIfAbsent, so an invalidation racing with the load waits for it and removes the stale result.
+        return Optional.ofNullable(entries.computeIfAbsent(email, key -> {
+            List<AuthenticationRowDto> rows = abstractUserRepository.findAuthenticationRowsByEmail(key);
+            return rows.isEmpty() ? null : AuthenticatedUser.fromRows(rows);
+        }));
+    }
+
+    public Optional<TokenVersionRowDto> getTokenVersion(String email) {
+        TokenVersionRowDto cached = tokenVersions.get(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (tokenVersions.size() >= maxEntries) {
+            logger.info("Pamięć podręczna wersji tokenów osiągnęła limit {} wpisów, czyszczenie.", maxEntries);
+            tokenVersions.clear();
+        }
+        return Optional.ofNullable(tokenVersions.computeIfAbsent(email, key -> abstractUserRepository.findTokenVersionByEmail(key).orElse(null)));
+    }
+
+    // Dropped right away and once more after commit, so a login in between cannot keep the state from before the change.
+    public void invalidate(String email) {
+        entries.remove(email);
+        tokenVersions.remove(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(email);
+                    tokenVersions.remove(email);
+                }
+            });
+        }
+    }
+}
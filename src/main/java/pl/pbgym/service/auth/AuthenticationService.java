@@ -6,7 +6,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +23,9 @@ import pl.pbgym.repository.user.member.MemberRepository;
 import pl.pbgym.repository.user.trainer.TrainerRepository;
 import pl.pbgym.repository.user.worker.PermissionRepository;
 import pl.pbgym.repository.user.worker.WorkerRepository;
+import pl.pbgym.service.statistics.ScanEligibilityCache;
+import pl.pbgym.service.statistics.StatisticsRollupService;
+import pl.pbgym.util.auth.AuthenticatedUser;
 
 import java.time.LocalDateTime;
 
@@ -30,7 +34,6 @@ public class AuthenticationService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
 
-    private final AbstractUserRepository abstractUserRepository;
     private final MemberRepository memberRepository;
     private final TrainerRepository trainerRepository;
     private final WorkerRepository workerRepository;
@@ -40,12 +43,16 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final ModelMapper modelMapper;
+    private final StatisticsRollupService statisticsRollupService;
+    private final ScanEligibilityCache scanEligibilityCache;
+    private final AuthenticatedUserCache authenticatedUserCache;
 
     @Autowired
-    public AuthenticationService(AbstractUserRepository abstractUserRepository, MemberRepository memberRepository, TrainerRepository trainerRepository, WorkerRepository workerRepository,
+    public AuthenticationService(MemberRepository memberRepository, TrainerRepository trainerRepository, WorkerRepository workerRepository,
                                  AddressRepository addressRepository, PermissionRepository permissionRepository, PasswordEncoder passwordEncoder,
-                                 JwtService jwtService, AuthenticationManager authenticationManager, ModelMapper modelMapper) {
-        this.abstractUserRepository = abstractUserRepository;
+                                 JwtService jwtService, AuthenticationManager authenticationManager, ModelMapper modelMapper,
+                                 StatisticsRollupService statisticsRollupService, ScanEligibilityCache scanEligibilityCache,
+                                 AuthenticatedUserCache authenticatedUserCache) {
         this.memberRepository = memberRepository;
         this.trainerRepository = trainerRepository;
         this.workerRepository = workerRepository;
@@ -55,6 +62,9 @@ public class AuthenticationService {
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
         this.modelMapper = modelMapper;
+        this.statisticsRollupService = statisticsRollupService;
+        this.scanEligibilityCache = scanEligibilityCache;
+        this.authenticatedUserCache = authenticatedUserCache;
     }
 
     @Transactional
@@ -68,6 +78,9 @@ public class AuthenticationService {
             member.setRegistrationDate(LocalDateTime.now());
 
             memberRepository.save(member);
+            statisticsRollupService.recordMemberRegistration(member.getRegistrationDate());
+            scanEligibilityCache.invalidate(member.getEmail());
+            authenticatedUserCache.invalidate(member.getEmail());
             logger.info("Zarejestrowano nowego członka: {}, email: {}", member.getName(), member.getEmail());
         } catch (Exception e) {
             logger.error("Nie udało się zarejestrować nowego członka. Szczegóły: {}", e.getMessage());
@@ -87,6 +100,8 @@ public class AuthenticationService {
             trainer.setVisible(false);
 
             trainerRepository.save(trainer);
+            scanEligibilityCache.invalidate(trainer.getEmail());
+            authenticatedUserCache.invalidate(trainer.getEmail());
             logger.info("Zarejestrowano nowego trenera: {}, email: {}", trainer.getName(), trainer.getEmail());
         } catch (Exception e) {
             logger.error("Nie udało się zarejestrować nowego trenera. Szczegóły: {}", e.getMessage());
@@ -105,6 +120,8 @@ public class AuthenticationService {
             worker.setRegistrationDate(LocalDateTime.now());
 
             workerRepository.save(worker);
+            scanEligibilityCache.invalidate(worker.getEmail());
+            authenticatedUserCache.invalidate(worker.getEmail());
 
             if (!postWorkerRequestDto.getPermissions().isEmpty()) {
                 for (PermissionType p : postWorkerRequestDto.getPermissions()) {
@@ -123,26 +140,26 @@ public class AuthenticationService {
 
     public AuthenticationResponseDto authenticate(PostAuthenticationRequestDto request) {
         try {
-            authenticationManager.authenticate(
+            Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
             );
-            AbstractUser abstractUser = abstractUserRepository.findByEmail(request.getEmail())
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            // The principal is the projection already checked by the authentication manager, no second lookup needed.
+            AuthenticatedUser authenticatedUser = (AuthenticatedUser) authentication.getPrincipal();
             logger.info("Pomyślnie uwierzytelniono użytkownika: {}", request.getEmail());
-            return new AuthenticationResponseDto(generateJwtToken(abstractUser), abstractUser.getClass().getSimpleName());
+            return new AuthenticationResponseDto(generateJwtToken(authenticatedUser), authenticatedUser.toPrincipal().getClass().getSimpleName());
         } catch (Exception e) {
             logger.error("Nie udało się uwierzytelnić użytkownika: {}. Szczegóły: {}", request.getEmail(), e.getMessage());
             throw e;
         }
     }
 
-    public String generateJwtToken(AbstractUser abstractUser) {
+    public String generateJwtToken(UserDetails userDetails) {
         try {
-            String token = jwtService.generateToken(abstractUser);
-            logger.info("Wygenerowano token JWT dla użytkownika: {}", abstractUser.getEmail());
+            String token = jwtService.generateToken(userDetails);
+            logger.info("Wygenerowano token JWT dla użytkownika: {}", userDetails.getUsername());
             return token;
         } catch (Exception e) {
-            logger.error("Nie udało się wygenerować tokena JWT dla użytkownika: {}. Szczegóły: {}", abstractUser.getEmail(), e.getMessage());
+            logger.error("Nie udało się wygenerować tokena JWT dla użytkownika: {}. Szczegóły: {}", userDetails.getUsername(), e.getMessage());
             throw e;
         }
     }
@@ -1,6 +1,7 @@
 package pl.pbgym.service.auth;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -9,30 +10,94 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import pl.pbgym.domain.user.AbstractUser;
+import pl.pbgym.dto.auth.GetTokenCacheResponseDto;
+import pl.pbgym.util.auth.AuthenticatedUser;
+import pl.pbgym.util.auth.VerifiedJwt;
+import pl.pbgym.util.auth.VerifiedJwtCache;
 import pl.pbgym.util.encryption.EncryptionUtil;
 
 import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
-    @Value("${env.JWT_SECRET_KEY}")
-    private String SECRET_KEY;
+    private static final String AUTHORITIES_CLAIM = "authorities";
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String USER_TYPE_CLAIM = "type";
+    private static final String VERSION_CLAIM = "ver";
+
     private final EncryptionUtil encryptionUtil;
+    // Both are immutable and thread-safe, so they are built once instead of for every request.
+    private final Key signingKey;
+    private final JwtParser jwtParser;
+    private final VerifiedJwtCache tokenCache;
 
-    public JwtService(@Qualifier("jwtEncryptionUtil") EncryptionUtil encryptionUtil) {
+    public JwtService(@Qualifier("jwtEncryptionUtil") EncryptionUtil encryptionUtil, @Value("${env.JWT_SECRET_KEY}") String secretKey,
+                      @Value("${auth.token-cache.max-entries:10000}") int tokenCacheMaxEntries,
+                      @Value("${auth.token-cache.ttl-ms:900000}") long tokenCacheTtlMillis) {
         this.encryptionUtil = encryptionUtil;
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.tokenCache = new VerifiedJwtCache(tokenCacheMaxEntries, tokenCacheTtlMillis);
+    }
+
+    // Decrypts the token and checks its signature and expiry in one pass. Throws when the token is not valid.
+    // A token seen before is answered from the cache without any cryptography.
+    public VerifiedJwt verify(String jwt) {
+        return tokenCache.get(jwt, token -> {
+            Claims claims = extractAllClaims(token);
+            return new VerifiedJwt(claims.getSubject(), claims.getExpiration(), extractAuthorities(claims),
+                    extractLong(claims, USER_ID_CLAIM), claims.get(USER_TYPE_CLAIM, String.class), extractLong(claims, VERSION_CLAIM));
+        });
+    }
+
+    // Called when the user's email, password or permissions change, inside the transaction making the change. The
+    // raised version is committed together with it, so a token issued from the old state can't outlive the commit.
+    public void revoke(AbstractUser abstractUser, String email) {
+        abstractUser.setTokenVersion(abstractUser.getTokenVersion() + 1);
+        tokenCache.invalidate(email);
+    }
+
+    public GetTokenCacheResponseDto getTokenCacheStatistics() {
+        long hits = tokenCache.getHits();
+        long requests = hits + tokenCache.getMisses();
+        GetTokenCacheResponseDto responseDto = new GetTokenCacheResponseDto();
+        responseDto.setHits(hits);
+        responseDto.setMisses(tokenCache.getMisses());
+        responseDto.setHitRate(requests == 0 ? 0.0 : (double) hits / requests);
+        responseDto.setEvictions(tokenCache.getEvictions());
+        responseDto.setInvalidations(tokenCache.getInvalidations());
+        responseDto.setSize(tokenCache.getSize());
+        responseDto.setMaxEntries(tokenCache.getMaxEntries());
+        return responseDto;
     }
 
     public String extractEmail(String jwt) {
         return extractClaim(jwt, Claims::getSubject);
     }
 
+    // Tokens of application users carry their authorities, id, type and token version, so a request can be
+    // authenticated from the token alone.
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        AuthenticatedUser authenticatedUser = switch (userDetails) {
+            case AuthenticatedUser user -> user;
+            case AbstractUser abstractUser -> AuthenticatedUser.fromUser(abstractUser);
+            default -> null;
+        };
+        if (authenticatedUser != null) {
+            claims.put(AUTHORITIES_CLAIM, authenticatedUser.getAuthorityNames());
+            claims.put(USER_ID_CLAIM, authenticatedUser.getId());
+            claims.put(USER_TYPE_CLAIM, authenticatedUser.getUserType().name());
+            claims.put(VERSION_CLAIM, authenticatedUser.getTokenVersion());
+        }
+        return generateToken(claims, userDetails);
     }
 
     public <T> T extractClaim(String jwt, Function<Claims, T> claimsResolver) {
@@ -47,7 +112,7 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)) //a day
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
 
         try {
@@ -57,35 +122,25 @@ public class JwtService {
         }
     }
 
-    public boolean isTokenValid(String jwt, UserDetails userDetails) {
-        final String email = extractEmail(jwt);
-        return (email.equals(userDetails.getUsername())) && !isTokenExpired(jwt);
-    }
-
-    public boolean isTokenExpired(String jwt) {
-        return extractExpiration(jwt).before(new Date());
-    }
-
-    public Date extractExpiration(String jwt) {
-        return extractClaim(jwt, Claims::getExpiration);
-    }
-
     private Claims extractAllClaims(String jwt) {
         try {
             String decryptedJwt = encryptionUtil.decrypt(jwt);
-            return Jwts
-                    .parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(decryptedJwt)
-                    .getBody();
+            return jwtParser.parseClaimsJws(decryptedJwt).getBody();
         } catch (Exception e) {
             throw new RuntimeException("Decryption failed: " + e.getMessage(), e);
         }
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static Long extractLong(Claims claims, String name) {
+        return claims.get(name) instanceof Number number ? number.longValue() : null;
+    }
+
+    // Tokens issued without the claim carry no authorities; the caller then falls back to the user's own.
+    private List<String> extractAuthorities(Claims claims) {
+        Object authorities = claims.get(AUTHORITIES_CLAIM);
+        if (!(authorities instanceof Collection<?> values)) {
+            return List.of();
+        }
+        return values.stream().map(String::valueOf).toList();
     }
 }
@@ -24,6 +24,8 @@ import pl.pbgym.repository.offer.OfferRepository;
 import pl.pbgym.repository.pass.HistoricalPassRepository;
 import pl.pbgym.repository.pass.PassRepository;
 import pl.pbgym.repository.user.member.MemberRepository;
+import pl.pbgym.service.statistics.ScanEligibilityCache;
+import pl.pbgym.service.statistics.StatisticsRollupService;
 import pl.pbgym.service.user.member.PaymentService;
 import pl.pbgym.service.user.member.MemberService;
 import pl.pbgym.service.user.trainer.GroupClassService;
@@ -46,9 +48,11 @@ public class PassService {
     private final MemberService memberService;
     private final PaymentService paymentService;
     private final GroupClassService groupClassService;
+    private final StatisticsRollupService statisticsRollupService;
+    private final ScanEligibilityCache scanEligibilityCache;
 
     @Autowired
-    public PassService(OfferRepository offerRepository, PassRepository passRepository, HistoricalPassRepository historicalPassRepository, MemberRepository memberRepository, ModelMapper modelMapper, MemberService memberService, PaymentService paymentService, GroupClassService groupClassService) {
+    public PassService(OfferRepository offerRepository, PassRepository passRepository, HistoricalPassRepository historicalPassRepository, MemberRepository memberRepository, ModelMapper modelMapper, MemberService memberService, PaymentService paymentService, GroupClassService groupClassService, StatisticsRollupService statisticsRollupService, ScanEligibilityCache scanEligibilityCache) {
         this.offerRepository = offerRepository;
         this.passRepository = passRepository;
         this.historicalPassRepository = historicalPassRepository;
@@ -57,6 +61,8 @@ public class PassService {
         this.memberService = memberService;
         this.paymentService = paymentService;
         this.groupClassService = groupClassService;
+        this.statisticsRollupService = statisticsRollupService;
+        this.scanEligibilityCache = scanEligibilityCache;
     }
 
     @Transactional
@@ -90,6 +96,8 @@ public class PassService {
                             });
                             Pass pass = createPassClass(member, offer);
                             passRepository.save(pass);
+                            statisticsRollupService.recordPassRegistration(pass.getDateStart());
+                            scanEligibilityCache.invalidate(email);
                             logger.info("Dodano karnet dla użytkownika o emailu {} z ID karnetu {}.", email, pass.getId());
                         },
                         () -> {
@@ -160,6 +168,7 @@ public class PassService {
 
         historicalPassRepository.save(historicalPass);
         passRepository.delete(pass);
+        scanEligibilityCache.invalidate(member.getEmail());
         logger.info("Karnet o ID {} został zdezaktywowany.", pass.getId());
     }
 
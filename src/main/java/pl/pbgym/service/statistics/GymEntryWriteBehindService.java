@@ -0,0 +1,220 @@
+package pl.pbgym.service.statistics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import pl.pbgym.domain.statistics.GymEntry;
+import pl.pbgym.dto.statistics.GetGymEntryQueueResponseDto;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class GymEntryWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GymEntryWriteBehindService.class);
+    private static final String INSERT_GYM_ENTRY = "INSERT INTO gym_entry (id, date_time_of_entry, date_time_of_exit, location_id, auto_closed, abstract_user_id) " +
+            "VALUES (nextval('gym_entry_seq'), ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StatisticsRollupService statisticsRollupService;
+    private final OccupancyHeatmapService occupancyHeatmapService;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final BlockingQueue<GymEntry> queue;
+    private final LongAdder persistedEntries = new LongAdder();
+    private final LongAdder failedEntries = new LongAdder();
+    private final LongAdder synchronousWrites = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile boolean running = true;
+    private Thread drainer;
+
+    public GymEntryWriteBehindService(JdbcTemplate jdbcTemplate, StatisticsRollupService statisticsRollupService, OccupancyHeatmapService occupancyHeatmapService,
+                                      @Value("${statistics.write-behind.enabled:true}") boolean enabled,
+                                      @Value("${statistics.write-behind.capacity:10000}") int capacity,
+                                      @Value("${statistics.write-behind.batch-size:100}") int batchSize,
+                                      @Value("${statistics.write-behind.flush-ms:500}") long flushIntervalMillis,
+                                      @Value("${statistics.write-behind.offer-timeout-ms:1000}") long offerTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.statisticsRollupService = statisticsRollupService;
+        this.occupancyHeatmapService = occupancyHeatmapService;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            drainer = Thread.ofPlatform().name("gym-entry-writer").start(this::drain);
+        }
+    }
+
+    // Lets the drainer empty the queue before the data source goes away.
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (drainer == null) {
+            return;
+        }
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            logger.error("Nie zapisano {} wejść na siłownię przed zamknięciem aplikacji.", queue.size());
+        }
+    }
+
+    public void enqueue(GymEntry gymEntry) {
+        if (enabled && running) {
+            try {
+                // Backpressure: a full queue makes the scan wait for the drainer instead of dropping the visit.
+                if (queue.offer(gymEntry, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+                logger.warn("Kolejka zapisu wejść na siłownię jest pełna, zapis synchroniczny.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronousWrites.increment();
+        flush(List.of(gymEntry));
+    }
+
+    // Without the queue the visits are still written as one batch instead of one insert each.
+    public void enqueueAll(List<GymEntry> gymEntries) {
+        if (enabled && running) {
+            gymEntries.forEach(this::enqueue);
+            return;
+        }
+        synchronousWrites.add(gymEntries.size());
+        flush(gymEntries);
+    }
+
+    public GetGymEntryQueueResponseDto getQueueStatistics() {
+        long flushes = flushCount.sum();
+        GetGymEntryQueueResponseDto responseDto = new GetGymEntryQueueResponseDto();
+        responseDto.setEnabled(enabled);
+        responseDto.setQueueDepth(queue.size());
+        responseDto.setCapacity(capacity);
+        responseDto.setPersistedEntries(persistedEntries.sum());
+        responseDto.setFailedEntries(failedEntries.sum());
+        responseDto.setSynchronousWrites(synchronousWrites.sum());
+        responseDto.setFlushCount(flushes);
+        responseDto.setLastFlushMillis(lastFlushNanos.get() / 1_000_000.0);
+        responseDto.setMaxFlushMillis(maxFlushNanos.get() / 1_000_000.0);
+        responseDto.setAverageFlushMillis(flushes == 0 ? 0.0 : totalFlushNanos.get() / 1_000_000.0 / flushes);
+        return responseDto;
+    }
+
+    // A batch is written once it is full or once the flush interval has passed since its first visit.
+    private void drain() {
+        List<GymEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                GymEntry first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    GymEntry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<GymEntry> batch) {
+        long start = System.nanoTime();
+        List<GymEntry> persisted = batch;
+        try {
+            jdbcTemplate.batchUpdate(INSERT_GYM_ENTRY, batch, batch.size(), this::bind);
+        } catch (DataAccessException e) {
+            // One bad row (e.g. a user deleted in the meantime) must not cost the rest of the batch.
+            logger.warn("Zapis wsadowy {} wejść na siłownię nie powiódł się, zapis pojedynczy. Szczegóły: {}", batch.size(), e.getMessage());
+            persisted = insertOneByOne(batch);
+        }
+        recordFlush(System.nanoTime() - start);
+        persistedEntries.add(persisted.size());
+
+        // One rollup increment per day of the batch instead of one per visit.
+        Map<LocalDate, Long> entriesPerDay = new TreeMap<>();
+        persisted.forEach(gymEntry -> entriesPerDay.merge(gymEntry.getDateTimeOfEntry().toLocalDate(), 1L, Long::sum));
+        entriesPerDay.forEach(statisticsRollupService::recordGymEntries);
+        // Like the rollup, the heatmap only counts visits that made it to the database, so a rebuild finds the same ones.
+        persisted.forEach(gymEntry -> occupancyHeatmapService.recordVisit(gymEntry.getDateTimeOfEntry(), gymEntry.getDateTimeOfExit()));
+    }
+
+    private List<GymEntry> insertOneByOne(List<GymEntry> batch) {
+        List<GymEntry> persisted = new ArrayList<>(batch.size());
+        for (GymEntry gymEntry : batch) {
+            try {
+                jdbcTemplate.update(INSERT_GYM_ENTRY, statement -> bind(statement, gymEntry));
+                persisted.add(gymEntry);
+            } catch (DataAccessException e) {
+                failedEntries.increment();
+                logger.error("Nie udało się zapisać wejścia na siłownię użytkownika o ID {} ({} - {}). Szczegóły: {}",
+                        gymEntry.getAbstractUser().getId(), gymEntry.getDateTimeOfEntry(), gymEntry.getDateTimeOfExit(), e.getMessage());
+            }
+        }
+        return persisted;
+    }
+
+    private void bind(PreparedStatement statement, GymEntry gymEntry) throws SQLException {
+        statement.setTimestamp(1, Timestamp.valueOf(gymEntry.getDateTimeOfEntry()));
+        statement.setTimestamp(2, Timestamp.valueOf(gymEntry.getDateTimeOfExit()));
+        statement.setLong(3, gymEntry.getLocationId());
+        statement.setBoolean(4, gymEntry.getAutoClosed());
+        statement.setLong(5, gymEntry.getAbstractUser().getId());
+    }
+
+    private void recordFlush(long nanos) {
+        flushCount.increment();
+        totalFlushNanos.addAndGet(nanos);
+        lastFlushNanos.set(nanos);
+        maxFlushNanos.accumulateAndGet(nanos, Math::max);
+    }
+}
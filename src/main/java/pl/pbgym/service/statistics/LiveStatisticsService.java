@@ -0,0 +1,259 @@
+package pl.pbgym.service.statistics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.pbgym.dto.statistics.GetAdmissionResponseDto;
+import pl.pbgym.dto.statistics.GetLiveStatisticsResponseDto;
+import pl.pbgym.exception.statistics.TooManySubscribersException;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Service
+public class LiveStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveStatisticsService.class);
+
+    // Events a subscriber may fall behind by before it is dropped as too slow.
+    private static final int MAX_PENDING_EVENTS = 64;
+
+    private final List<Subscriber> occupancySubscribers = new CopyOnWriteArrayList<>();
+    private final List<Subscriber> statisticsSubscribers = new CopyOnWriteArrayList<>();
+    private final List<Subscriber> admissionSubscribers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Queue<GetAdmissionResponseDto> pendingAdmissions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger currentUserCount = new AtomicInteger();
+    private final AtomicBoolean occupancyChanged = new AtomicBoolean();
+    private final StatisticsService statisticsService;
+    private final StatisticsCache statisticsCache;
+    private final ExecutorService liveStatisticsExecutor;
+    private final long emitterTimeout;
+    private final long sendTimeoutNanos;
+    private final int maxSubscribers;
+    // Only touched by the scheduler thread.
+    private long publishedVersion = -1;
+    private LocalDate publishedDate;
+
+    public LiveStatisticsService(StatisticsService statisticsService, StatisticsCache statisticsCache,
+                                 @Qualifier("liveStatisticsExecutor") ExecutorService liveStatisticsExecutor,
+                                 @Value("${statistics.live.timeout-ms:1800000}") long emitterTimeout,
+                                 @Value("${statistics.live.send-timeout-ms:5000}") long sendTimeout,
+                                 @Value("${statistics.live.max-subscribers:500}") int maxSubscribers) {
+        this.statisticsService = statisticsService;
+        this.statisticsCache = statisticsCache;
+        this.liveStatisticsExecutor = liveStatisticsExecutor;
+        this.emitterTimeout = emitterTimeout;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeout);
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    // The first event is written on the subscribing request's own thread, so the stream starts with the current state.
+    public SseEmitter subscribeToOccupancy() {
+        Subscriber subscriber = register(occupancySubscribers);
+        subscriber.start(() -> SseEmitter.event().name("occupancy").data(currentUserCount.get()));
+        return subscriber.emitter;
+    }
+
+    public SseEmitter subscribeToStatistics() {
+        Subscriber subscriber = register(statisticsSubscribers);
+        subscriber.start(() -> SseEmitter.event().name("statistics").data(getSnapshot()));
+        return subscriber.emitter;
+    }
+
+    public SseEmitter subscribeToAdmissions() {
+        Subscriber subscriber = register(admissionSubscribers);
+        subscriber.start(null);
+        return subscriber.emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public void updateOccupancy(int userCount) {
+        currentUserCount.set(userCount);
+        occupancyChanged.set(true);
+    }
+
+    // Queued and sent by the scheduler, so a scan never waits on a slow subscriber.
+    public void notifyAdmission(GetAdmissionResponseDto admission) {
+        pendingAdmissions.add(admission);
+    }
+
+    // Every change within one interval collapses into a single event. The scheduler thread only queues it for each
+    // subscriber and the sender threads write it, so a slow client never delays the other scheduled jobs. Payments,
+    // registrations and the other rollup writes are noticed through the statistics cache version.
+    @Scheduled(fixedRateString = "#{1000 / ${statistics.live.max-updates-per-second:4}}")
+    public void publish() {
+        boolean occupancyDirty = occupancyChanged.getAndSet(false);
+        long version = statisticsCache.getVersion();
+        LocalDate today = LocalDate.now();
+        boolean statisticsDirty = occupancyDirty || version != publishedVersion || !today.equals(publishedDate);
+
+        if (occupancyDirty && !occupancySubscribers.isEmpty()) {
+            int userCount = currentUserCount.get();
+            occupancySubscribers.forEach(subscriber -> subscriber.offer("occupancy", userCount));
+        }
+        // Unlike occupancy, admissions are not collapsed - every called user gets their own event.
+        GetAdmissionResponseDto admission;
+        while ((admission = pendingAdmissions.poll()) != null) {
+            GetAdmissionResponseDto event = admission;
+            admissionSubscribers.forEach(subscriber -> subscriber.offer("admission", event));
+        }
+        if (statisticsDirty && !statisticsSubscribers.isEmpty()) {
+            try {
+                GetLiveStatisticsResponseDto snapshot = getSnapshot();
+                statisticsSubscribers.forEach(subscriber -> subscriber.offer("statistics", snapshot));
+            } catch (Exception e) {
+                logger.error("Nie udało się przygotować statystyk na żywo. Szczegóły: {}", e.getMessage());
+                return;
+            }
+        }
+        publishedVersion = version;
+        publishedDate = today;
+    }
+
+    private GetLiveStatisticsResponseDto getSnapshot() {
+        GetLiveStatisticsResponseDto snapshot = new GetLiveStatisticsResponseDto();
+        snapshot.setCurrentUserCount(currentUserCount.get());
+        snapshot.setMembersRegisteredToday(statisticsService.getMembersRegisteredTodayWithChange());
+        snapshot.setPassesRegisteredToday(statisticsService.getPassesRegisteredTodayWithChange());
+        snapshot.setPaymentsToday(statisticsService.getPaymentsTodayWithChange());
+        snapshot.setGymEntriesToday(statisticsService.getGymEntriesTodayWithChange());
+        snapshot.setGroupClassesToday(statisticsService.getGroupClassesTodayWithChange());
+        return snapshot;
+    }
+
+    // The streams are open to anonymous clients, so the number of concurrently open ones is capped.
+    private Subscriber register(List<Subscriber> subscribers) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            logger.warn("Odrzucono subskrypcję strumienia statystyk na żywo, osiągnięto limit {} subskrybentów.", maxSubscribers);
+            throw new TooManySubscribersException("Too many live statistics subscribers, the limit is " + maxSubscribers);
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(emitterTimeout), subscribers);
+        subscriber.emitter.onCompletion(subscriber::remove);
+        subscriber.emitter.onTimeout(subscriber::remove);
+        subscriber.emitter.onError(e -> subscriber.remove());
+        subscribers.add(subscriber);
+        logger.info("Nowy subskrybent strumienia statystyk na żywo. Liczba subskrybentów: {}.", subscriberCount.get());
+        return subscriber;
+    }
+
+    // Events of one subscriber are written in order by at most one sender thread at a time.
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final List<Subscriber> subscribers;
+        private final Queue<SseEmitter.SseEventBuilder> pendingEvents = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        // Held from registration until the first event is written, so no queued update can overtake it.
+        private final AtomicBoolean draining = new AtomicBoolean(true);
+        private final AtomicBoolean removed = new AtomicBoolean();
+        // System.nanoTime() at which the write in progress began, 0 while idle.
+        private volatile long sendingSince;
+
+        private Subscriber(SseEmitter emitter, List<Subscriber> subscribers) {
+            this.emitter = emitter;
+            this.subscribers = subscribers;
+        }
+
+        private void start(Supplier<SseEmitter.SseEventBuilder> firstEvent) {
+            try {
+                if (firstEvent != null) {
+                    emitter.send(firstEvent.get());
+                }
+            } catch (IOException | IllegalStateException e) {
+                remove();
+            } catch (RuntimeException e) {
+                remove();
+                throw e;
+            } finally {
+                draining.set(false);
+            }
+            if (!removed.get() && !pendingEvents.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        // A subscriber stuck in one write for longer than the send timeout, or too far behind, is dropped.
+        private void offer(String eventName, Object data) {
+            long since = sendingSince;
+            if (since != 0 && System.nanoTime() - since > sendTimeoutNanos) {
+                drop("zapis trwa dłużej niż limit czasu");
+                return;
+            }
+            if (pendingCount.incrementAndGet() > MAX_PENDING_EVENTS) {
+                drop("zbyt wiele zaległych zdarzeń");
+                return;
+            }
+            pendingEvents.add(SseEmitter.event().name(eventName).data(data));
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                liveStatisticsExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                remove();
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!removed.get() && (event = pendingEvents.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    sendingSince = System.nanoTime();
+                    try {
+                        emitter.send(event);
+                    } finally {
+                        sendingSince = 0;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away - drop it instead of retrying on every tick, the container completes the request.
+                remove();
+            } finally {
+                draining.set(false);
+            }
+            // An event queued after the last poll but before the flag was cleared would otherwise wait for the next one.
+            if (!removed.get() && !pendingEvents.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        // Not completed from here: the emitter is locked by the write in progress, and completing it would make the
+        // scheduler wait for that write after all. The stuck write fails on its own or the emitter times out.
+        private void drop(String reason) {
+            logger.warn("Odłączono powolnego subskrybenta strumienia statystyk na żywo: {}.", reason);
+            remove();
+        }
+
+        private void remove() {
+            if (removed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                pendingEvents.clear();
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package pl.pbgym.service.statistics;
+
+import pl.pbgym.domain.statistics.GymEntry;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Occupancy and admission state of one club. Admission and release are called from inside the compute of the user's
+// open visit, so the calls for one user never interleave; calls for different users only meet on the atomics below.
+class LocationShard {
+
+    // Open visits at this club keyed by user email.
+    final Map<String, GymEntry> openVisits = new ConcurrentHashMap<>();
+    private final LongAdder occupancy = new LongAdder();
+    private final LongAdder chainOccupancy;
+    // People inside plus slots held for called users. A slot is only ever claimed by CAS against the capacity,
+    // so two simultaneous scans cannot both take the last one.
+    private final AtomicInteger takenSlots = new AtomicInteger();
+    private final Queue<String> waiting = new ConcurrentLinkedQueue<>();
+    private final Map<String, LocalDateTime> called = new ConcurrentHashMap<>();
+    private final long holdMillis;
+    // Zero means no limit.
+    private volatile int capacity;
+
+    LocationShard(int capacity, long holdMillis, LongAdder chainOccupancy) {
+        this.capacity = capacity;
+        this.holdMillis = holdMillis;
+        this.chainOccupancy = chainOccupancy;
+    }
+
+    // A called user takes the slot held for them, anyone else only gets in while nobody is waiting ahead of them.
+    boolean tryAdmit(String email) {
+        boolean admitted = called.remove(email) != null || (waiting.isEmpty() && tryClaimSlot());
+        if (admitted) {
+            enter();
+        }
+        return admitted;
+    }
+
+    // Returns the users called in the meantime; the new waiter may be one of them if a slot has just been freed.
+    List<String> enqueue(String email) {
+        if (!waiting.contains(email)) {
+            waiting.add(email);
+        }
+        return callWaiting();
+    }
+
+    // Restored visits were admitted before the restart, so they take their slot regardless of the capacity.
+    void restore() {
+        takenSlots.incrementAndGet();
+        enter();
+    }
+
+    List<String> leave() {
+        occupancy.decrement();
+        chainOccupancy.decrement();
+        takenSlots.decrementAndGet();
+        return callWaiting();
+    }
+
+    List<String> expireHolds(LocalDateTime now) {
+        called.forEach((email, holdUntil) -> {
+            if (holdUntil.isBefore(now) && called.remove(email, holdUntil)) {
+                takenSlots.decrementAndGet();
+            }
+        });
+        return callWaiting();
+    }
+
+    List<String> setCapacity(int capacity) {
+        this.capacity = capacity;
+        return callWaiting();
+    }
+
+    LocalDateTime getHoldUntil(String email) {
+        return called.get(email);
+    }
+
+    int getPosition(String email) {
+        int position = 1;
+        for (String waitingEmail : waiting) {
+            if (waitingEmail.equals(email)) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    int getOccupancy() {
+        return occupancy.intValue();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    // Hands every free slot to the head of the queue and holds it for them, so a walk-in cannot take it first.
+    private List<String> callWaiting() {
+        List<String> newlyCalled = new ArrayList<>(0);
+        while (!waiting.isEmpty() && tryClaimSlot()) {
+            String next = waiting.poll();
+            if (next == null) {
+                takenSlots.decrementAndGet();
+                break;
+            }
+            called.put(next, LocalDateTime.now().plus(holdMillis, ChronoUnit.MILLIS));
+            newlyCalled.add(next);
+        }
+        return newlyCalled;
+    }
+
+    private boolean tryClaimSlot() {
+        while (true) {
+            int taken = takenSlots.get();
+            int limit = capacity;
+            if (limit > 0 && taken >= limit) {
+                return false;
+            }
+            if (takenSlots.compareAndSet(taken, taken + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void enter() {
+        occupancy.increment();
+        chainOccupancy.increment();
+    }
+}
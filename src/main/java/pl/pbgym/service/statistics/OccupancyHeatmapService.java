@@ -0,0 +1,143 @@
+package pl.pbgym.service.statistics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.pbgym.dto.statistics.GetOccupancyHeatmapResponseDto;
+import pl.pbgym.dto.statistics.GymVisitDto;
+import pl.pbgym.repository.gym_entry.GymEntryRepository;
+import pl.pbgym.util.statistics.SeriesUnit;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+// Average occupancy per hour of the week. Every hour-of-week slot of every week in a ring is one packed long: the week
+// index in the high half and the occupied user-seconds of that hour in the low half. A visit is added with a CAS per
+// hour it spans and a slot left over from an older week is simply overwritten, so neither recording nor reading locks.
+@Service
+public class OccupancyHeatmapService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyHeatmapService.class);
+    private static final int SLOTS_PER_WEEK = 7 * 24;
+    private static final long SECONDS_MASK = 0xFFFFFFFFL;
+
+    private final GymEntryRepository gymEntryRepository;
+    private final int windowWeeks;
+    // The ring holds one week more than the window, so slots that have not come up yet in the current week are
+    // averaged over the previous full weeks.
+    private final int ringWeeks;
+    private volatile AtomicLongArray slots;
+
+    public OccupancyHeatmapService(GymEntryRepository gymEntryRepository, @Value("${statistics.heatmap.weeks:4}") int windowWeeks) {
+        this.gymEntryRepository = gymEntryRepository;
+        this.windowWeeks = windowWeeks;
+        this.ringWeeks = windowWeeks + 1;
+        this.slots = new AtomicLongArray(ringWeeks * SLOTS_PER_WEEK);
+    }
+
+    // Filled off to the side and swapped in, so readers never see a half-built map. It only runs at startup; a visit
+    // flushed while its query runs may be left out until the next restart.
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        AtomicLongArray rebuilt = new AtomicLongArray(ringWeeks * SLOTS_PER_WEEK);
+        LocalDateTime windowStart = SeriesUnit.WEEK.startOf(currentWeek() - windowWeeks).minusDays(1);
+        long visitCount = 0;
+        try (Stream<GymVisitDto> visits = gymEntryRepository.streamFinishedVisitsSince(windowStart)) {
+            Iterator<GymVisitDto> iterator = visits.iterator();
+            while (iterator.hasNext()) {
+                GymVisitDto visit = iterator.next();
+                recordVisit(rebuilt, visit.getDateTimeOfEntry(), visit.getDateTimeOfExit());
+                visitCount++;
+            }
+        }
+        slots = rebuilt;
+        logger.info("Odbudowano mapę obłożenia siłowni z {} wizyt.", visitCount);
+    }
+
+    public void recordVisit(LocalDateTime entry, LocalDateTime exit) {
+        recordVisit(slots, entry, exit);
+    }
+
+    public GetOccupancyHeatmapResponseDto getHeatmap(Integer weeks) {
+        int window = weeks == null ? windowWeeks : Math.max(1, Math.min(weeks, windowWeeks));
+        LocalDateTime now = LocalDateTime.now();
+        long currentWeek = SeriesUnit.WEEK.indexOf(now);
+        int currentSlot = slotOf(now);
+        AtomicLongArray current = slots;
+
+        Map<DayOfWeek, double[]> averageOccupancy = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            double[] hours = new double[24];
+            for (int hour = 0; hour < 24; hour++) {
+                int slot = (day.getValue() - 1) * 24 + hour;
+                long lastWeek = slot <= currentSlot ? currentWeek : currentWeek - 1;
+                long seconds = 0;
+                for (long week = lastWeek - window + 1; week <= lastWeek; week++) {
+                    long packed = current.get(indexOf(week, slot));
+                    if (packed >>> 32 == (week & SECONDS_MASK)) {
+                        seconds += packed & SECONDS_MASK;
+                    }
+                }
+                hours[hour] = Math.round(seconds / (window * 3600.0) * 100.0) / 100.0;
+            }
+            averageOccupancy.put(day, hours);
+        }
+
+        GetOccupancyHeatmapResponseDto responseDto = new GetOccupancyHeatmapResponseDto();
+        responseDto.setWindowWeeks(window);
+        responseDto.setAverageOccupancy(averageOccupancy);
+        return responseDto;
+    }
+
+    private void recordVisit(AtomicLongArray target, LocalDateTime entry, LocalDateTime exit) {
+        long oldestWeek = currentWeek() - ringWeeks + 1;
+        LocalDateTime cursor = entry;
+        while (cursor.isBefore(exit)) {
+            LocalDateTime slotEnd = cursor.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            LocalDateTime end = slotEnd.isBefore(exit) ? slotEnd : exit;
+            long week = SeriesUnit.WEEK.indexOf(cursor);
+            if (week >= oldestWeek) {
+                addSeconds(target, week, slotOf(cursor), Duration.between(cursor, end).toSeconds());
+            }
+            cursor = end;
+        }
+    }
+
+    private void addSeconds(AtomicLongArray target, long week, int slot, long seconds) {
+        int index = indexOf(week, slot);
+        long stamp = week & SECONDS_MASK;
+        while (true) {
+            long current = target.get(index);
+            long currentWeek = current >>> 32;
+            if (current != 0 && currentWeek > stamp) {
+                // The slot already belongs to a newer week, this visit has dropped out of the ring.
+                return;
+            }
+            long total = currentWeek == stamp ? Math.min((current & SECONDS_MASK) + seconds, SECONDS_MASK) : seconds;
+            if (target.compareAndSet(index, current, stamp << 32 | total)) {
+                return;
+            }
+        }
+    }
+
+    private int indexOf(long week, int slot) {
+        return (int) Math.floorMod(week, ringWeeks) * SLOTS_PER_WEEK + slot;
+    }
+
+    private int slotOf(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+
+    private long currentWeek() {
+        return SeriesUnit.WEEK.indexOf(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,139 @@
+package pl.pbgym.service.statistics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pl.pbgym.domain.statistics.OccupancyHistory;
+import pl.pbgym.dto.statistics.GetOccupancySampleResponseDto;
+import pl.pbgym.dto.statistics.GetOccupancyTimelineResponseDto;
+import pl.pbgym.exception.statistics.InvalidStatisticsRangeException;
+import pl.pbgym.repository.statistics.OccupancyHistoryRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Chain-wide occupancy of the last 24 hours at one-minute resolution. Every minute owns one slot of a fixed ring of
+// packed longs: the minute index in the high half, the peak and the latest occupancy of that minute in the low half.
+// A scan updates its slot with a single CAS and a slot left over from yesterday is simply overwritten, so recording
+// never locks and never allocates.
+@Service
+public class OccupancyTimelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyTimelineService.class);
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int COUNT_MASK = 0xFFFF;
+
+    private final OccupancyHistoryRepository occupancyHistoryRepository;
+    private final AtomicLongArray slots = new AtomicLongArray(MINUTES_PER_DAY);
+    private final long maxHistoryMinutes;
+
+    public OccupancyTimelineService(OccupancyHistoryRepository occupancyHistoryRepository,
+                                    @Value("${statistics.timeline.history-max-minutes:44640}") long maxHistoryMinutes) {
+        this.occupancyHistoryRepository = occupancyHistoryRepository;
+        this.maxHistoryMinutes = maxHistoryMinutes;
+    }
+
+    // Concurrent scans may record out of order, so the latest value of a minute can lag behind by a scan. The peak
+    // is exact, and the next minute starts from the live count again (see rollOver).
+    public void record(int occupancy) {
+        long minute = minuteOf(LocalDateTime.now());
+        int index = (int) Math.floorMod(minute, MINUTES_PER_DAY);
+        int count = Math.min(Math.max(occupancy, 0), COUNT_MASK);
+        while (true) {
+            long current = slots.get(index);
+            int peak = current >>> 32 == minute ? Math.max(peakOf(current), count) : count;
+            if (slots.compareAndSet(index, current, pack(minute, peak, count))) {
+                return;
+            }
+        }
+    }
+
+    // Carries the occupancy into the new minute, so quiet minutes are filled too, and stores the finished one. Called
+    // every minute by UserCounterService with the live chain-wide count, not the value of the last recorded scan.
+    public void rollOver(int occupancy) {
+        record(occupancy);
+        persist(LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(1));
+    }
+
+    public void persist(LocalDateTime minute) {
+        long packed = slots.get((int) Math.floorMod(minuteOf(minute), MINUTES_PER_DAY));
+        if (packed >>> 32 != minuteOf(minute)) {
+            return;
+        }
+        LocalDateTime start = minute.truncatedTo(ChronoUnit.MINUTES);
+        OccupancyHistory occupancyHistory = occupancyHistoryRepository.findByMinute(start).orElseGet(OccupancyHistory::new);
+        occupancyHistory.setMinute(start);
+        occupancyHistory.setOccupancy(lastOf(packed));
+        occupancyHistory.setPeakOccupancy(peakOf(packed));
+        try {
+            occupancyHistoryRepository.save(occupancyHistory);
+        } catch (Exception e) {
+            logger.error("Nie udało się zapisać obłożenia siłowni z minuty {}. Szczegóły: {}", start, e.getMessage());
+        }
+    }
+
+    public GetOccupancyTimelineResponseDto getTimeline(Integer minutes) {
+        int window = minutes == null ? MINUTES_PER_DAY : Math.max(1, Math.min(minutes, MINUTES_PER_DAY));
+        long now = minuteOf(LocalDateTime.now());
+        List<GetOccupancySampleResponseDto> samples = new ArrayList<>(window);
+        for (long minute = now - window + 1; minute <= now; minute++) {
+            long packed = slots.get((int) Math.floorMod(minute, MINUTES_PER_DAY));
+            if (packed >>> 32 == minute) {
+                samples.add(new GetOccupancySampleResponseDto(timeOf(minute), lastOf(packed), peakOf(packed)));
+            }
+        }
+        return toTimeline(samples);
+    }
+
+    public GetOccupancyTimelineResponseDto getHistory(LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new InvalidStatisticsRangeException("Start date " + from + " is after end date " + to);
+        }
+        // Every minute of the range is one row loaded into memory.
+        long minutes = ChronoUnit.MINUTES.between(from, to) + 1;
+        if (minutes > maxHistoryMinutes) {
+            throw new InvalidStatisticsRangeException("Range " + from + ".." + to + " spans " + minutes + " minutes, the limit is " + maxHistoryMinutes);
+        }
+        return toTimeline(occupancyHistoryRepository.findAllBetween(from, to).stream()
+                .map(history -> new GetOccupancySampleResponseDto(history.getMinute(), history.getOccupancy(), history.getPeakOccupancy()))
+                .toList());
+    }
+
+    private GetOccupancyTimelineResponseDto toTimeline(List<GetOccupancySampleResponseDto> samples) {
+        GetOccupancyTimelineResponseDto responseDto = new GetOccupancyTimelineResponseDto();
+        responseDto.setSamples(samples);
+        responseDto.setPeakOccupancy(0);
+        samples.forEach(sample -> {
+            if (sample.getPeakOccupancy() > responseDto.getPeakOccupancy()) {
+                responseDto.setPeakOccupancy(sample.getPeakOccupancy());
+                responseDto.setPeakMinute(sample.getMinute());
+            }
+        });
+        return responseDto;
+    }
+
+    private static long pack(long minute, int peak, int last) {
+        return minute << 32 | (long) peak << 16 | last;
+    }
+
+    private static int peakOf(long packed) {
+        return (int) (packed >>> 16) & COUNT_MASK;
+    }
+
+    private static int lastOf(long packed) {
+        return (int) packed & COUNT_MASK;
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime timeOf(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+}
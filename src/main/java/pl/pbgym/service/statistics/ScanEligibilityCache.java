@@ -0,0 +1,58 @@
+package pl.pbgym.service.statistics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.pbgym.dto.statistics.ScanEligibilityDto;
+import pl.pbgym.repository.user.AbstractUserRepository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class ScanEligibilityCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanEligibilityCache.class);
+
+    private final Map<String, ScanEligibilityDto> entries = new ConcurrentHashMap<>();
+    private final AbstractUserRepository abstractUserRepository;
+    private final int maxEntries;
+
+    public ScanEligibilityCache(AbstractUserRepository abstractUserRepository,
+                                @Value("${statistics.scan-cache.max-entries:10000}") int maxEntries) {
+        this.abstractUserRepository = abstractUserRepository;
+        this.maxEntries = maxEntries;
+    }
+
+    // Unknown emails are not cached, so a user registered later is found on the next scan.
+    public Optional<ScanEligibilityDto> get(String email) {
+        ScanEligibilityDto cached = entries.get(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (entries.size() >= maxEntries) {
+            logger.info("Pamięć podręczna uprawnień do wejścia osiągnęła limit {} wpisów, czyszczenie.", maxEntries);
+            entries.clear();
+        }
+        // Loaded inside computeIfAbsent, so an invalidation racing with the load waits for it and removes the stale result.
+        return Optional.ofNullable(entries.computeIfAbsent(email,
+                key -> abstractUserRepository.findScanEligibilityByEmail(key).orElse(null)));
+    }
+
+    // Dropped right away and once more after commit, so a scan in between cannot keep the state from before the change.
+    public void invalidate(String email) {
+        entries.remove(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(email);
+                }
+            });
+        }
+    }
+}
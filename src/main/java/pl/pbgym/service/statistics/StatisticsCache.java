@@ -0,0 +1,100 @@
+package pl.pbgym.service.statistics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pl.pbgym.domain.statistics.StatisticType;
+import pl.pbgym.dto.statistics.GetStatisticsCacheResponseDto;
+import pl.pbgym.util.statistics.CachedStatistic;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+@Service
+public class StatisticsCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsCache.class);
+
+    private final Map<String, CachedStatistic<?>> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(StatisticType.values().length);
+    private final AtomicLong eTagSequence = new AtomicLong();
+    // Keeps ETags handed out before a restart from matching entries computed after it.
+    private final String eTagPrefix = Long.toHexString(System.currentTimeMillis());
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final int maxEntries;
+
+    public StatisticsCache(@Value("${statistics.cache.max-entries:512}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    // A null type marks a result that depends on every statistic, like the dashboard.
+    @SuppressWarnings("unchecked")
+    public <T> CachedStatistic<T> get(String key, StatisticType type, Supplier<T> loader) {
+        // Series without an end date run until now and "today" moves with the clock, so entries also expire every hour.
+        String hourlyKey = key + "@" + LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        long version = versionOf(type);
+
+        CachedStatistic<?> cached = entries.get(hourlyKey);
+        if (cached != null && cached.getVersion() == version) {
+            hits.increment();
+            return (CachedStatistic<T>) cached;
+        }
+        misses.increment();
+
+        // Stamped with the version read before loading, so a write that races with the load forces a reload next time.
+        CachedStatistic<T> loaded = new CachedStatistic<>(loader.get(), nextETag(), version);
+        if (entries.size() >= maxEntries) {
+            logger.info("Pamięć podręczna statystyk osiągnęła limit {} wpisów, czyszczenie.", maxEntries);
+            entries.clear();
+        }
+        entries.put(hourlyKey, loaded);
+        return loaded;
+    }
+
+    public void invalidate(StatisticType type) {
+        versions.incrementAndGet(type.ordinal());
+    }
+
+    public long getVersion() {
+        return versionOf(null);
+    }
+
+    public GetStatisticsCacheResponseDto getStatistics() {
+        Map<StatisticType, Long> currentVersions = new EnumMap<>(StatisticType.class);
+        for (StatisticType type : StatisticType.values()) {
+            currentVersions.put(type, versions.get(type.ordinal()));
+        }
+
+        GetStatisticsCacheResponseDto responseDto = new GetStatisticsCacheResponseDto();
+        responseDto.setHits(hits.sum());
+        responseDto.setMisses(misses.sum());
+        responseDto.setSize(entries.size());
+        responseDto.setVersions(currentVersions);
+        return responseDto;
+    }
+
+    // Versions only grow, so their sum changes whenever any of them does.
+    private long versionOf(StatisticType type) {
+        if (type != null) {
+            return versions.get(type.ordinal());
+        }
+        long sum = 0;
+        for (int i = 0; i < versions.length(); i++) {
+            sum += versions.get(i);
+        }
+        return sum;
+    }
+
+    private String nextETag() {
+        return "\"" + eTagPrefix + "-" + Long.toHexString(eTagSequence.incrementAndGet()) + "\"";
+    }
+}
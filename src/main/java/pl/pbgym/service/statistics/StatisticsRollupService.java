@@ -0,0 +1,181 @@
+package pl.pbgym.service.statistics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.pbgym.domain.statistics.DailyStatistic;
+import pl.pbgym.domain.statistics.StatisticBackfill;
+import pl.pbgym.domain.statistics.StatisticType;
+import pl.pbgym.dto.statistics.DailyAggregateDto;
+import pl.pbgym.repository.gym_entry.GymEntryRepository;
+import pl.pbgym.repository.pass.HistoricalPassRepository;
+import pl.pbgym.repository.pass.PassRepository;
+import pl.pbgym.repository.statistics.DailyStatisticRepository;
+import pl.pbgym.repository.statistics.StatisticBackfillRepository;
+import pl.pbgym.repository.user.member.MemberRepository;
+import pl.pbgym.repository.user.member.PaymentRepository;
+import pl.pbgym.repository.user.trainer.GroupClassRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Service
+public class StatisticsRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsRollupService.class);
+
+    private final DailyStatisticRepository dailyStatisticRepository;
+    private final StatisticBackfillRepository statisticBackfillRepository;
+    private final GymEntryRepository gymEntryRepository;
+    private final PaymentRepository paymentRepository;
+    private final MemberRepository memberRepository;
+    private final PassRepository passRepository;
+    private final HistoricalPassRepository historicalPassRepository;
+    private final GroupClassRepository groupClassRepository;
+    private final StatisticsCache statisticsCache;
+    private final TransactionTemplate transactionTemplate;
+
+    public StatisticsRollupService(DailyStatisticRepository dailyStatisticRepository, StatisticBackfillRepository statisticBackfillRepository, GymEntryRepository gymEntryRepository, PaymentRepository paymentRepository,
+                                   MemberRepository memberRepository, PassRepository passRepository, HistoricalPassRepository historicalPassRepository,
+                                   GroupClassRepository groupClassRepository, StatisticsCache statisticsCache, PlatformTransactionManager transactionManager) {
+        this.dailyStatisticRepository = dailyStatisticRepository;
+        this.statisticBackfillRepository = statisticBackfillRepository;
+        this.gymEntryRepository = gymEntryRepository;
+        this.paymentRepository = paymentRepository;
+        this.memberRepository = memberRepository;
+        this.passRepository = passRepository;
+        this.historicalPassRepository = historicalPassRepository;
+        this.groupClassRepository = groupClassRepository;
+        this.statisticsCache = statisticsCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void recordGymEntries(LocalDate date, long count) {
+        record(StatisticType.GYM_ENTRIES, date, count, 0.0);
+    }
+
+    public void recordPayment(LocalDateTime dateTime, Double amount) {
+        record(StatisticType.PAYMENTS, dateTime.toLocalDate(), 1, amount);
+    }
+
+    public void recordMemberRegistration(LocalDateTime registrationDate) {
+        record(StatisticType.MEMBER_REGISTRATIONS, registrationDate.toLocalDate(), 1, 0.0);
+    }
+
+    public void recordPassRegistration(LocalDateTime dateStart) {
+        record(StatisticType.PASS_REGISTRATIONS, dateStart.toLocalDate(), 1, 0.0);
+    }
+
+    public void recordGroupClass(LocalDateTime dateStart) {
+        record(StatisticType.GROUP_CLASSES, dateStart.toLocalDate(), 1, 0.0);
+    }
+
+    public void removeGroupClass(LocalDateTime dateStart) {
+        record(StatisticType.GROUP_CLASSES, dateStart.toLocalDate(), -1, 0.0);
+    }
+
+    // Each metric is rebuilt from the source tables until a marker records that its backfill completed. Rollup rows
+    // alone do not prove that, since an increment committed before the backfill would create one.
+    public void backfillMissingRollups() {
+        backfillUnlessDone(StatisticType.GYM_ENTRIES, gymEntryRepository::countDailyEntries);
+        backfillUnlessDone(StatisticType.PAYMENTS, paymentRepository::sumDailyPayments);
+        backfillUnlessDone(StatisticType.MEMBER_REGISTRATIONS, memberRepository::countDailyRegistrations);
+        backfillUnlessDone(StatisticType.PASS_REGISTRATIONS, () -> Stream.concat(
+                passRepository.countDailyPassStarts().stream(),
+                historicalPassRepository.countDailyPassStarts().stream()
+        ).toList());
+        backfillUnlessDone(StatisticType.GROUP_CLASSES, groupClassRepository::countDailyGroupClasses);
+    }
+
+    private void backfillUnlessDone(StatisticType type, Supplier<List<DailyAggregateDto>> aggregates) {
+        if (statisticBackfillRepository.existsById(type)) {
+            return;
+        }
+        backfill(type, aggregates.get());
+        StatisticBackfill statisticBackfill = new StatisticBackfill();
+        statisticBackfill.setType(type);
+        statisticBackfill.setCompletedAt(LocalDateTime.now());
+        statisticBackfillRepository.save(statisticBackfill);
+    }
+
+    private void backfill(StatisticType type, List<DailyAggregateDto> aggregates) {
+        Map<LocalDate, DailyAggregateDto> merged = new TreeMap<>();
+        aggregates.forEach(aggregate -> merged.merge(aggregate.getDate(), aggregate, (first, second) ->
+                new DailyAggregateDto(first.getDate(), first.getCount() + second.getCount(), first.getSum() + second.getSum())));
+
+        merged.values().forEach(aggregate -> rebuild(type, aggregate.getDate(), aggregate.getCount(), aggregate.getSum()));
+        logger.info("Uzupełniono statystyki {} dla {} dni.", type, merged.size());
+    }
+
+    public void rebuild(StatisticType type, LocalDate date, long count, double sum) {
+        transactionTemplate.executeWithoutResult(status -> {
+            DailyStatistic dailyStatistic = dailyStatisticRepository.findByTypeAndDate(type, date).orElseGet(() -> {
+                DailyStatistic created = new DailyStatistic();
+                created.setType(type);
+                created.setDate(date);
+                return created;
+            });
+            dailyStatistic.setCount(count);
+            dailyStatistic.setSum(sum);
+            dailyStatisticRepository.save(dailyStatistic);
+        });
+        statisticsCache.invalidate(type);
+    }
+
+    // Rollups are applied only once the business transaction has committed, so a rolled back
+    // payment or registration never leaves a phantom increment behind.
+    private void record(StatisticType type, LocalDate date, long count, double sum) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyIncrement(type, date, count, sum);
+                }
+            });
+        } else {
+            applyIncrement(type, date, count, sum);
+        }
+    }
+
+    private void applyIncrement(StatisticType type, LocalDate date, long count, double sum) {
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                incrementOrCreate(type, date, count, sum);
+                statisticsCache.invalidate(type);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Another writer created the row for this day in the meantime - the retry will just increment it.
+                logger.info("Wiersz statystyki {} dla dnia {} został utworzony równolegle, ponawianie.", type, date);
+            } catch (Exception e) {
+                logger.error("Nie udało się zaktualizować statystyki {} dla dnia {}. Szczegóły: {}", type, date, e.getMessage());
+                return;
+            }
+        }
+        logger.error("Nie udało się zaktualizować statystyki {} dla dnia {} po ponowieniu.", type, date);
+    }
+
+    private void incrementOrCreate(StatisticType type, LocalDate date, long count, double sum) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (dailyStatisticRepository.increment(type, date, count, sum) == 0) {
+                DailyStatistic dailyStatistic = new DailyStatistic();
+                dailyStatistic.setType(type);
+                dailyStatistic.setDate(date);
+                dailyStatistic.setCount(count);
+                dailyStatistic.setSum(sum);
+                dailyStatisticRepository.saveAndFlush(dailyStatistic);
+            }
+        });
+    }
+}
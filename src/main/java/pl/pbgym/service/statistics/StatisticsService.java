@@ -1,543 +1,337 @@
 package pl.pbgym.service.statistics;
 
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import pl.pbgym.domain.pass.Pass;
-import pl.pbgym.domain.statistics.GymEntry;
-import pl.pbgym.domain.user.member.Member;
-import pl.pbgym.domain.user.member.Payment;
-import pl.pbgym.domain.user.trainer.GroupClass;
+import org.springframework.transaction.annotation.Transactional;
+import pl.pbgym.domain.statistics.DailyStatistic;
+import pl.pbgym.domain.statistics.StatisticType;
 import pl.pbgym.dto.statistics.GetGymEntryResponseDto;
-import pl.pbgym.dto.user.trainer.GetGroupClassResponseDto;
+import pl.pbgym.dto.statistics.GetOccupancyHeatmapResponseDto;
+import pl.pbgym.dto.statistics.GetStatisticsDashboardResponseDto;
+import pl.pbgym.dto.statistics.GymVisitDto;
+import pl.pbgym.dto.statistics.HourlyAggregateDto;
+import pl.pbgym.dto.statistics.MonthlyAggregateDto;
+import pl.pbgym.exception.user.member.MemberNotFoundException;
+import pl.pbgym.exception.user.trainer.TrainerNotFoundException;
 import pl.pbgym.repository.gym_entry.GymEntryRepository;
+import pl.pbgym.repository.pass.HistoricalPassRepository;
 import pl.pbgym.repository.pass.PassRepository;
+import pl.pbgym.repository.statistics.DailyStatisticRepository;
 import pl.pbgym.repository.user.member.MemberRepository;
 import pl.pbgym.repository.user.member.PaymentRepository;
 import pl.pbgym.repository.user.trainer.GroupClassRepository;
 import pl.pbgym.repository.user.trainer.TrainerRepository;
-import pl.pbgym.service.user.trainer.GroupClassService;
+import pl.pbgym.service.user.member.MemberService;
+import pl.pbgym.service.user.trainer.TrainerService;
+import pl.pbgym.util.statistics.SeriesRange;
+import pl.pbgym.util.statistics.SeriesUnit;
+import pl.pbgym.util.statistics.TimeSeries;
 
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
 @Service
 public class StatisticsService {
 
     private final GymEntryRepository gymEntryRepository;
-    private final PaymentRepository paymentRepository;
-    private final GroupClassService groupClassService;
     private final GroupClassRepository groupClassRepository;
     private final MemberRepository memberRepository;
     private final TrainerRepository trainerRepository;
     private final PassRepository passRepository;
-    private final ModelMapper modelMapper;
-
-    public StatisticsService(GymEntryRepository gymEntryRepository, PaymentRepository paymentRepository, GroupClassService groupClassService, GroupClassRepository groupClassRepository, MemberRepository memberRepository, TrainerRepository trainerRepository, PassRepository passRepository, ModelMapper modelMapper) {
+    private final HistoricalPassRepository historicalPassRepository;
+    private final PaymentRepository paymentRepository;
+    private final DailyStatisticRepository dailyStatisticRepository;
+    private final MemberService memberService;
+    private final TrainerService trainerService;
+    private final ExecutorService statisticsExecutor;
+    private final OccupancyHeatmapService occupancyHeatmapService;
+
+    public StatisticsService(GymEntryRepository gymEntryRepository, GroupClassRepository groupClassRepository, MemberRepository memberRepository, TrainerRepository trainerRepository, PassRepository passRepository,
+                             HistoricalPassRepository historicalPassRepository, PaymentRepository paymentRepository, DailyStatisticRepository dailyStatisticRepository, MemberService memberService, TrainerService trainerService,
+                             @Qualifier("statisticsExecutor") ExecutorService statisticsExecutor, OccupancyHeatmapService occupancyHeatmapService) {
         this.gymEntryRepository = gymEntryRepository;
-        this.paymentRepository = paymentRepository;
-        this.groupClassService = groupClassService;
         this.groupClassRepository = groupClassRepository;
         this.memberRepository = memberRepository;
         this.trainerRepository = trainerRepository;
         this.passRepository = passRepository;
-        this.modelMapper = modelMapper;
+        this.historicalPassRepository = historicalPassRepository;
+        this.paymentRepository = paymentRepository;
+        this.dailyStatisticRepository = dailyStatisticRepository;
+        this.memberService = memberService;
+        this.trainerService = trainerService;
+        this.statisticsExecutor = statisticsExecutor;
+        this.occupancyHeatmapService = occupancyHeatmapService;
     }
 
     public List<GetGymEntryResponseDto> getAllGymEntriesByUserEmail(String email) {
-        List<GymEntry> gymEntries = gymEntryRepository.findAllByUserEmail(email);
-
-        if(!gymEntries.isEmpty()) {
-            return gymEntries.stream().map(gymEntry -> {
-                GetGymEntryResponseDto responseDto = modelMapper.map(gymEntry, GetGymEntryResponseDto.class);
-                responseDto.setEmail(gymEntry.getAbstractUser().getEmail());
-                return responseDto;
-            }).toList();
-        } else {
-            return Collections.emptyList();
-        }
+        return gymEntryRepository.findAllByUserEmail(email);
     }
 
-    public Map<YearMonth, Integer> getMonthlyGymEntriesCountByUserEmail(String email) {
-        List<GymEntry> gymEntries = gymEntryRepository.findAllByUserEmail(email);
-        if (gymEntries.isEmpty()) {
-            return Collections.emptyMap();
-        }
-
-        LocalDate oldestEntryDate = gymEntries.stream()
-                .map(GymEntry::getDateTimeOfEntry)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
-
-        LocalDate today = LocalDate.now();
-        YearMonth startMonth = YearMonth.of(oldestEntryDate.getYear(), oldestEntryDate.getMonth());
-        YearMonth currentMonth = YearMonth.of(today.getYear(), today.getMonth());
-
-        Map<YearMonth, Integer> monthlyEntries = new LinkedHashMap<>();
-        for (YearMonth month = startMonth; !month.isAfter(currentMonth); month = month.plusMonths(1)) {
-            monthlyEntries.put(month, 0);
-        }
-
-        gymEntries.forEach(entry -> {
-            YearMonth entryMonth = YearMonth.from(entry.getDateTimeOfEntry());
-            monthlyEntries.put(entryMonth, monthlyEntries.getOrDefault(entryMonth, 0) + 1);
-        });
-
-        return monthlyEntries;
+    public TimeSeries getGymEntriesByUserEmail(String email, SeriesRange range) {
+        return toCountSeries(range, gymEntryRepository.countHourlyEntriesByUserEmail(email, range.getQueryFrom(), range.getQueryTo()),
+                HourlyAggregateDto::getDateTime, HourlyAggregateDto::getCount);
     }
 
-    public Map<LocalDate, Integer> getDailyGymMinutesByUserEmail(String email) {
-        List<GymEntry> gymEntries = gymEntryRepository.findAllByUserEmail(email);
-        if (gymEntries.isEmpty()) {
-            return Collections.emptyMap();
-        }
-
-        LocalDate oldestEntryDate = gymEntries.stream()
-                .map(GymEntry::getDateTimeOfEntry)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
-
-        LocalDate today = LocalDate.now();
-
-        Map<LocalDate, Integer> dailyGymMinutes = new LinkedHashMap<>();
-        for (LocalDate date = oldestEntryDate; !date.isAfter(today); date = date.plusDays(1)) {
-            dailyGymMinutes.put(date, 0);
+    @Transactional(readOnly = true)
+    public TimeSeries getGymMinutesByUserEmail(String email, SeriesRange range) {
+        try (Stream<GymVisitDto> visits = gymEntryRepository.streamVisitsByUserEmailBetween(email, range.getQueryFrom(), range.getQueryTo())) {
+            Iterator<GymVisitDto> iterator = visits.iterator();
+            if (!iterator.hasNext() && range.getFrom() == null) {
+                return TimeSeries.emptyCounts(range.getUnit());
+            }
+
+            // Visits arrive ordered by entry time, so the first one fixes the start of an open-ended series.
+            GymVisitDto visit = iterator.hasNext() ? iterator.next() : null;
+            TimeSeries gymMinutes = range.newCounts(visit != null ? visit.getDateTimeOfEntry() : null, null);
+            LocalDateTime now = LocalDateTime.now();
+
+            while (visit != null) {
+                int minutesSpent = (int) Duration.between(
+                        visit.getDateTimeOfEntry(),
+                        visit.getDateTimeOfExit() != null ? visit.getDateTimeOfExit() : now
+                ).toMinutes();
+
+                gymMinutes.add(visit.getDateTimeOfEntry(), minutesSpent);
+                visit = iterator.hasNext() ? iterator.next() : null;
+            }
+
+            return gymMinutes;
         }
-
-        gymEntries.forEach(entry -> {
-            LocalDate entryDate = entry.getDateTimeOfEntry().toLocalDate();
-            if (!dailyGymMinutes.containsKey(entryDate)) return;
-
-            int minutesSpent = (int) Duration.between(
-                    entry.getDateTimeOfEntry(),
-                    entry.getDateTimeOfExit() != null ? entry.getDateTimeOfExit() : LocalDateTime.now()
-            ).toMinutes();
-
-            dailyGymMinutes.put(entryDate, dailyGymMinutes.get(entryDate) + minutesSpent);
-        });
-
-        return dailyGymMinutes;
-    }
-
-    public Map<YearMonth, Integer> getHistoricalClassesCountMonthlyForTrainer(String trainerEmail) {
-        List<GetGroupClassResponseDto> historicalClasses = groupClassService.getAllHistoricalGroupClassesByTrainerEmail(trainerEmail);
-        return mapGroupClassListToMonthlyCounts(historicalClasses);
-    }
-
-    public Map<YearMonth, Integer> getHistoricalClassesCountMonthlyForMember(String memberEmail) {
-        List<GetGroupClassResponseDto> historicalClasses = groupClassService.getAllHistoricalGroupClassesByMemberEmail(memberEmail);
-        return mapGroupClassListToMonthlyCounts(historicalClasses);
     }
 
-    private Map<YearMonth, Integer> mapGroupClassListToMonthlyCounts(List<GetGroupClassResponseDto> groupClasses) {
-        if (groupClasses.isEmpty()) {
-            return Collections.emptyMap();
+    public TimeSeries getHistoricalClassesCountForTrainer(String trainerEmail, SeriesRange range) {
+        if (!trainerService.trainerExists(trainerEmail)) {
+            throw new TrainerNotFoundException("Trainer not found with email " + trainerEmail);
         }
+        return toCountSeries(range, groupClassRepository.countHourlyHistoricalGroupClassesByTrainerEmail(trainerEmail, LocalDateTime.now(), range.getQueryFrom(), range.getQueryTo()),
+                HourlyAggregateDto::getDateTime, HourlyAggregateDto::getCount);
+    }
 
-        LocalDate oldestDate = groupClasses.stream()
-                .map(GetGroupClassResponseDto::getDateStart)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
-
-        LocalDate currentDate = LocalDate.now();
-        YearMonth startMonth = YearMonth.from(oldestDate);
-        YearMonth currentMonth = YearMonth.from(currentDate);
-
-        Map<YearMonth, Integer> monthlyCounts = new LinkedHashMap<>();
-        for (YearMonth month = startMonth; !month.isAfter(currentMonth); month = month.plusMonths(1)) {
-            monthlyCounts.put(month, 0);
+    public TimeSeries getHistoricalClassesCountForMember(String memberEmail, SeriesRange range) {
+        if (!memberService.memberExists(memberEmail)) {
+            throw new MemberNotFoundException("Member not found with email " + memberEmail);
         }
-
-        groupClasses.forEach(classDto -> {
-            YearMonth classMonth = YearMonth.from(classDto.getDateStart());
-            monthlyCounts.put(classMonth, monthlyCounts.getOrDefault(classMonth, 0) + 1);
-        });
-
-        return monthlyCounts;
+        return toCountSeries(range, groupClassRepository.countHourlyHistoricalGroupClassesByMemberEmail(memberEmail, LocalDateTime.now(), range.getQueryFrom(), range.getQueryTo()),
+                HourlyAggregateDto::getDateTime, HourlyAggregateDto::getCount);
     }
 
     public Integer getAllTrainersCount() {
-        return trainerRepository.findAll().size();
+        return (int) trainerRepository.count();
     }
 
     public Integer getAllMembersCount() {
-        return memberRepository.findAll().size();
+        return (int) memberRepository.count();
     }
 
     public Integer getAllActivePassesCount() {
-        return passRepository.findAll().size();
+        return (int) passRepository.count();
     }
 
-    public Map<YearMonth, Integer> getMonthlyMemberRegistrations() {
-        List<Member> members = memberRepository.findAll();
-        if (members.isEmpty()) {
-            return Collections.emptyMap();
-        }
-
-        LocalDate oldestRegistrationDate = members.stream()
-                .map(Member::getRegistrationDate)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
-
-        LocalDate today = LocalDate.now();
-        YearMonth startMonth = YearMonth.from(oldestRegistrationDate);
-        YearMonth currentMonth = YearMonth.from(today);
-
-        Map<YearMonth, Integer> monthlyRegistrations = new LinkedHashMap<>();
-        for (YearMonth month = startMonth; !month.isAfter(currentMonth); month = month.plusMonths(1)) {
-            monthlyRegistrations.put(month, 0);
-        }
-
-        members.forEach(member -> {
-            YearMonth registrationMonth = YearMonth.from(member.getRegistrationDate().toLocalDate());
-            monthlyRegistrations.put(registrationMonth, monthlyRegistrations.getOrDefault(registrationMonth, 0) + 1);
-        });
-
-        return monthlyRegistrations;
-    }
-
-    public Map<LocalDate, Integer> getDailyMemberRegistrations() {
-        List<Member> members = memberRepository.findAll();
-        if (members.isEmpty()) {
-            return Collections.emptyMap();
-        }
-
-        LocalDate oldestRegistrationDate = members.stream()
-                .map(Member::getRegistrationDate)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
-
-        LocalDate today = LocalDate.now();
-
-        Map<LocalDate, Integer> dailyRegistrations = new LinkedHashMap<>();
-        for (LocalDate date = oldestRegistrationDate; !date.isAfter(today); date = date.plusDays(1)) {
-            dailyRegistrations.put(date, 0);
-        }
-
-        members.forEach(member -> {
-            LocalDate registrationDate = member.getRegistrationDate().toLocalDate();
-            dailyRegistrations.put(registrationDate, dailyRegistrations.getOrDefault(registrationDate, 0) + 1);
-        });
-
-        return dailyRegistrations;
+    public TimeSeries getMemberRegistrations(SeriesRange range) {
+        return countSeries(StatisticType.MEMBER_REGISTRATIONS, range);
     }
 
     public String getMembersRegisteredTodayWithChange() {
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-
-        long todayCount = memberRepository.findAll().stream()
-                .filter(member -> member.getRegistrationDate().toLocalDate().isEqual(today))
-                .count();
-
-        long yesterdayCount = memberRepository.findAll().stream()
-                .filter(member -> member.getRegistrationDate().toLocalDate().isEqual(yesterday))
-                .count();
-
-        double percentageChange = calculatePercentageChange(yesterdayCount, todayCount);
-
-        return String.format("%d; %+.0f%%", todayCount, percentageChange);
-    }
-
-    public Map<YearMonth, Integer> getMonthlyPassRegistrations() {
-        List<Pass> passes = passRepository.findAll();
-        if (passes.isEmpty()) {
-            return Collections.emptyMap();
-        }
-
-        LocalDate oldestStartDate = passes.stream()
-                .map(Pass::getDateStart)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
-
-        LocalDate today = LocalDate.now();
-        YearMonth startMonth = YearMonth.from(oldestStartDate);
-        YearMonth currentMonth = YearMonth.from(today);
-
-        Map<YearMonth, Integer> monthlyRegistrations = new LinkedHashMap<>();
-        for (YearMonth month = startMonth; !month.isAfter(currentMonth); month = month.plusMonths(1)) {
-            monthlyRegistrations.put(month, 0);
-        }
-
-        passes.forEach(pass -> {
-            YearMonth startMonthOfPass = YearMonth.from(pass.getDateStart().toLocalDate());
-            monthlyRegistrations.put(startMonthOfPass, monthlyRegistrations.getOrDefault(startMonthOfPass, 0) + 1);
-        });
-
-        return monthlyRegistrations;
+        return formatCountWithChange(StatisticType.MEMBER_REGISTRATIONS);
     }
 
-    public Map<LocalDate, Integer> getDailyPassRegistrations() {
-        List<Pass> passes = passRepository.findAll();
-        if (passes.isEmpty()) {
-            return Collections.emptyMap();
-        }
-
-        LocalDate oldestStartDate = passes.stream()
-                .map(Pass::getDateStart)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
-
-        LocalDate today = LocalDate.now();
-
-        Map<LocalDate, Integer> dailyRegistrations = new LinkedHashMap<>();
-        for (LocalDate date = oldestStartDate; !date.isAfter(today); date = date.plusDays(1)) {
-            dailyRegistrations.put(date, 0);
-        }
-
-        passes.forEach(pass -> {
-            LocalDate startDateOfPass = pass.getDateStart().toLocalDate();
-            dailyRegistrations.put(startDateOfPass, dailyRegistrations.getOrDefault(startDateOfPass, 0) + 1);
-        });
-
-        return dailyRegistrations;
+    public TimeSeries getPassRegistrations(SeriesRange range) {
+        return countSeries(StatisticType.PASS_REGISTRATIONS, range);
     }
 
     public String getPassesRegisteredTodayWithChange() {
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-
-        long todayCount = passRepository.findAll().stream()
-                .filter(pass -> pass.getDateStart().toLocalDate().isEqual(today))
-                .count();
-
-        long yesterdayCount = passRepository.findAll().stream()
-                .filter(pass -> pass.getDateStart().toLocalDate().isEqual(yesterday))
-                .count();
-
-        double percentageChange = calculatePercentageChange(yesterdayCount, todayCount);
-
-        return String.format("%d; %+.0f%%", todayCount, percentageChange);
+        return formatCountWithChange(StatisticType.PASS_REGISTRATIONS);
     }
 
-    public Map<YearMonth, Double> getMonthlyPaymentSums() {
-        List<Payment> payments = paymentRepository.findAll();
-        if (payments.isEmpty()) {
-            return Collections.emptyMap();
-        }
-
-        LocalDate oldestPaymentDate = payments.stream()
-                .map(Payment::getDateTime)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
-
-        LocalDate today = LocalDate.now();
-        YearMonth startMonth = YearMonth.from(oldestPaymentDate);
-        YearMonth currentMonth = YearMonth.from(today);
-
-        Map<YearMonth, Double> monthlySums = new LinkedHashMap<>();
-        for (YearMonth month = startMonth; !month.isAfter(currentMonth); month = month.plusMonths(1)) {
-            monthlySums.put(month, 0.0);
-        }
-
-        payments.forEach(payment -> {
-            YearMonth paymentMonth = YearMonth.from(payment.getDateTime().toLocalDate());
-            monthlySums.put(paymentMonth, monthlySums.getOrDefault(paymentMonth, 0.0) + payment.getAmount());
-        });
-
-        return monthlySums;
+    public TimeSeries getPaymentSums(SeriesRange range) {
+        return switch (range.getUnit()) {
+            case HOUR -> toSumSeries(range, paymentRepository.sumHourlyPayments(range.getQueryFrom(), range.getQueryTo()),
+                    HourlyAggregateDto::getDateTime, HourlyAggregateDto::getSum);
+            case MONTH -> toSumSeries(range, dailyStatisticRepository.sumMonthlyByTypeBetween(StatisticType.PAYMENTS, range.getQueryFromDate(), range.getQueryToDate()),
+                    aggregate -> aggregate.getMonth().atDay(1).atStartOfDay(), MonthlyAggregateDto::getSum);
+            default -> toSumSeries(range, dailyStatisticRepository.findAllByTypeBetween(StatisticType.PAYMENTS, range.getQueryFromDate(), range.getQueryToDate()),
+                    rollup -> rollup.getDate().atStartOfDay(), DailyStatistic::getSum);
+        };
     }
 
-    public Map<LocalDate, Double> getDailyPaymentSums() {
-        List<Payment> payments = paymentRepository.findAll();
-        if (payments.isEmpty()) {
-            return Collections.emptyMap();
-        }
-
-        LocalDate oldestPaymentDate = payments.stream()
-                .map(Payment::getDateTime)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
-
+    public String getPaymentsTodayWithChange() {
         LocalDate today = LocalDate.now();
 
-        Map<LocalDate, Double> dailySums = new LinkedHashMap<>();
-        for (LocalDate date = oldestPaymentDate; !date.isAfter(today); date = date.plusDays(1)) {
-            dailySums.put(date, 0.0);
-        }
+        double todaySum = dailyStatisticRepository.findByTypeAndDate(StatisticType.PAYMENTS, today)
+                .map(DailyStatistic::getSum)
+                .orElse(0.0);
 
-        payments.forEach(payment -> {
-            LocalDate paymentDate = payment.getDateTime().toLocalDate();
-            dailySums.put(paymentDate, dailySums.getOrDefault(paymentDate, 0.0) + payment.getAmount());
-        });
+        double yesterdaySum = dailyStatisticRepository.findByTypeAndDate(StatisticType.PAYMENTS, today.minusDays(1))
+                .map(DailyStatistic::getSum)
+                .orElse(0.0);
 
-        return dailySums;
+        return formatSumWithChange(todaySum, yesterdaySum);
     }
 
-    public String getPaymentsTodayWithChange() {
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-
-        double todaySum = paymentRepository.findAll().stream()
-                .filter(payment -> payment.getDateTime().toLocalDate().isEqual(today))
-                .mapToDouble(Payment::getAmount)
-                .sum();
-
-        double yesterdaySum = paymentRepository.findAll().stream()
-                .filter(payment -> payment.getDateTime().toLocalDate().isEqual(yesterday))
-                .mapToDouble(Payment::getAmount)
-                .sum();
+    public TimeSeries getGymEntries(SeriesRange range) {
+        return countSeries(StatisticType.GYM_ENTRIES, range);
+    }
 
-        double percentageChange = calculatePercentageChange(yesterdaySum, todaySum);
+    public String getGymEntriesTodayWithChange() {
+        return formatCountWithChange(StatisticType.GYM_ENTRIES);
+    }
 
-        return String.format("%.2f; %+.0f%%", todaySum, percentageChange);
+    public TimeSeries getGroupClassCounts(SeriesRange range) {
+        return countSeries(StatisticType.GROUP_CLASSES, range);
     }
 
-    public Map<YearMonth, Integer> getMonthlyGymEntries() {
-        List<GymEntry> gymEntries = gymEntryRepository.findAll();
-        if (gymEntries.isEmpty()) {
-            return Collections.emptyMap();
-        }
+    public String getGroupClassesTodayWithChange() {
+        return formatCountWithChange(StatisticType.GROUP_CLASSES);
+    }
 
-        LocalDate oldestDate = gymEntries.stream()
-                .map(GymEntry::getDateTimeOfEntry)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
+    public GetOccupancyHeatmapResponseDto getOccupancyHeatmap(Integer weeks) {
+        return occupancyHeatmapService.getHeatmap(weeks);
+    }
 
-        LocalDate today = LocalDate.now();
-        YearMonth startMonth = YearMonth.from(oldestDate);
-        YearMonth currentMonth = YearMonth.from(today);
+    public GetStatisticsDashboardResponseDto getDashboard() {
+        CompletableFuture<Integer> trainerCount = supplyAsync(this::getAllTrainersCount);
+        CompletableFuture<Integer> memberCount = supplyAsync(this::getAllMembersCount);
+        CompletableFuture<Integer> activePassCount = supplyAsync(this::getAllActivePassesCount);
 
-        Map<YearMonth, Integer> monthlyEntries = new LinkedHashMap<>();
-        for (YearMonth month = startMonth; !month.isAfter(currentMonth); month = month.plusMonths(1)) {
-            monthlyEntries.put(month, 0);
+        Map<StatisticType, CompletableFuture<List<DailyStatistic>>> rollupFutures = new EnumMap<>(StatisticType.class);
+        for (StatisticType type : StatisticType.values()) {
+            rollupFutures.put(type, supplyAsync(() -> dailyStatisticRepository.findAllByType(type)));
         }
 
-        gymEntries.forEach(entry -> {
-            YearMonth entryMonth = YearMonth.from(entry.getDateTimeOfEntry());
-            monthlyEntries.put(entryMonth, monthlyEntries.getOrDefault(entryMonth, 0) + 1);
-        });
+        // Every series and KPI of a given type is derived from the same rows, so each rollup type is read only once.
+        TimeSeries memberRegistrationsSeries = toDailyCounts(rollupFutures.get(StatisticType.MEMBER_REGISTRATIONS).join());
+        TimeSeries passRegistrationsSeries = toDailyCounts(rollupFutures.get(StatisticType.PASS_REGISTRATIONS).join());
+        TimeSeries paymentsSeries = toDailySums(rollupFutures.get(StatisticType.PAYMENTS).join());
+        TimeSeries gymEntriesSeries = toDailyCounts(rollupFutures.get(StatisticType.GYM_ENTRIES).join());
+        TimeSeries groupClassesSeries = toDailyCounts(rollupFutures.get(StatisticType.GROUP_CLASSES).join());
 
-        return monthlyEntries;
-    }
+        LocalDate today = LocalDate.now();
+        GetStatisticsDashboardResponseDto dashboard = new GetStatisticsDashboardResponseDto();
+        dashboard.setTrainerCount(trainerCount.join());
+        dashboard.setMemberCount(memberCount.join());
+        dashboard.setActivePassCount(activePassCount.join());
 
-    public Map<LocalDate, Integer> getDailyGymEntries() {
-        List<GymEntry> gymEntries = gymEntryRepository.findAll();
-        if (gymEntries.isEmpty()) {
-            return Collections.emptyMap();
-        }
+        dashboard.setMonthlyMemberRegistrations(memberRegistrationsSeries.regroup(SeriesUnit.MONTH));
+        dashboard.setDailyMemberRegistrations(memberRegistrationsSeries);
+        dashboard.setMembersRegisteredToday(formatCountWithChange(memberRegistrationsSeries.countOn(today), memberRegistrationsSeries.countOn(today.minusDays(1))));
 
-        LocalDate oldestDate = gymEntries.stream()
-                .map(GymEntry::getDateTimeOfEntry)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
+        dashboard.setMonthlyPassRegistrations(passRegistrationsSeries.regroup(SeriesUnit.MONTH));
+        dashboard.setDailyPassRegistrations(passRegistrationsSeries);
+        dashboard.setPassesRegisteredToday(formatCountWithChange(passRegistrationsSeries.countOn(today), passRegistrationsSeries.countOn(today.minusDays(1))));
 
-        LocalDate today = LocalDate.now();
+        dashboard.setMonthlyPaymentSums(paymentsSeries.regroup(SeriesUnit.MONTH));
+        dashboard.setDailyPaymentSums(paymentsSeries);
+        dashboard.setPaymentsToday(formatSumWithChange(paymentsSeries.sumOn(today), paymentsSeries.sumOn(today.minusDays(1))));
 
-        Map<LocalDate, Integer> dailyEntries = new LinkedHashMap<>();
-        for (LocalDate date = oldestDate; !date.isAfter(today); date = date.plusDays(1)) {
-            dailyEntries.put(date, 0);
-        }
+        dashboard.setMonthlyGymEntries(gymEntriesSeries.regroup(SeriesUnit.MONTH));
+        dashboard.setDailyGymEntries(gymEntriesSeries);
+        dashboard.setGymEntriesToday(formatCountWithChange(gymEntriesSeries.countOn(today), gymEntriesSeries.countOn(today.minusDays(1))));
 
-        gymEntries.forEach(entry -> {
-            LocalDate entryDate = entry.getDateTimeOfEntry().toLocalDate();
-            dailyEntries.put(entryDate, dailyEntries.getOrDefault(entryDate, 0) + 1);
-        });
+        dashboard.setMonthlyGroupClasses(groupClassesSeries.regroup(SeriesUnit.MONTH));
+        dashboard.setDailyGroupClasses(groupClassesSeries);
+        dashboard.setGroupClassesToday(formatCountWithChange(groupClassesSeries.countOn(today), groupClassesSeries.countOn(today.minusDays(1))));
 
-        return dailyEntries;
+        return dashboard;
     }
 
-    public String getGymEntriesTodayWithChange() {
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, statisticsExecutor);
+    }
 
-        long todayCount = gymEntryRepository.findAll().stream()
-                .filter(entry -> entry.getDateTimeOfEntry().toLocalDate().isEqual(today))
-                .count();
+    // Day, week and month series come from the daily rollups, only hourly series have to read the source tables.
+    private TimeSeries countSeries(StatisticType type, SeriesRange range) {
+        return switch (range.getUnit()) {
+            case HOUR -> toCountSeries(range, countHourly(type, range), HourlyAggregateDto::getDateTime, HourlyAggregateDto::getCount);
+            case MONTH -> toCountSeries(range, dailyStatisticRepository.sumMonthlyByTypeBetween(type, range.getQueryFromDate(), range.getQueryToDate()),
+                    aggregate -> aggregate.getMonth().atDay(1).atStartOfDay(), MonthlyAggregateDto::getCount);
+            default -> toCountSeries(range, dailyStatisticRepository.findAllByTypeBetween(type, range.getQueryFromDate(), range.getQueryToDate()),
+                    rollup -> rollup.getDate().atStartOfDay(), DailyStatistic::getCount);
+        };
+    }
 
-        long yesterdayCount = gymEntryRepository.findAll().stream()
-                .filter(entry -> entry.getDateTimeOfEntry().toLocalDate().isEqual(yesterday))
-                .count();
+    private List<HourlyAggregateDto> countHourly(StatisticType type, SeriesRange range) {
+        LocalDateTime from = range.getQueryFrom();
+        LocalDateTime to = range.getQueryTo();
+        return switch (type) {
+            case GYM_ENTRIES -> gymEntryRepository.countHourlyEntries(from, to);
+            case PAYMENTS -> paymentRepository.sumHourlyPayments(from, to);
+            case MEMBER_REGISTRATIONS -> memberRepository.countHourlyRegistrations(from, to);
+            case PASS_REGISTRATIONS -> Stream.concat(
+                    passRepository.countHourlyPassStarts(from, to).stream(),
+                    historicalPassRepository.countHourlyPassStarts(from, to).stream()
+            ).toList();
+            case GROUP_CLASSES -> groupClassRepository.countHourlyGroupClasses(from, to);
+        };
+    }
 
-        double percentageChange = calculatePercentageChange(yesterdayCount, todayCount);
+    private TimeSeries toDailyCounts(List<DailyStatistic> rollups) {
+        return toCountSeries(SeriesRange.all(SeriesUnit.DAY), rollups, rollup -> rollup.getDate().atStartOfDay(), DailyStatistic::getCount);
+    }
 
-        return String.format("%d; %+.0f%%", todayCount, percentageChange);
+    private TimeSeries toDailySums(List<DailyStatistic> rollups) {
+        return toSumSeries(SeriesRange.all(SeriesUnit.DAY), rollups, rollup -> rollup.getDate().atStartOfDay(), DailyStatistic::getSum);
     }
 
-    public Map<YearMonth, Integer> getMonthlyGroupClassCounts() {
-        List<GroupClass> groupClasses = groupClassRepository.findAll();
-        if (groupClasses.isEmpty()) {
-            return Collections.emptyMap();
+    // Buckets may be finer than the requested unit (daily rollups in a weekly series), adding them folds them into place.
+    private <T> TimeSeries toCountSeries(SeriesRange range, List<T> buckets, Function<T, LocalDateTime> bucketStart, ToLongFunction<T> count) {
+        if (buckets.isEmpty() && range.getFrom() == null) {
+            return TimeSeries.emptyCounts(range.getUnit());
         }
 
-        LocalDate oldestDate = groupClasses.stream()
-                .map(GroupClass::getDateStart)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
+        TimeSeries series = range.newCounts(earliest(buckets, bucketStart), latest(buckets, bucketStart));
+        buckets.forEach(bucket -> series.add(bucketStart.apply(bucket), (int) count.applyAsLong(bucket)));
 
-        LocalDate today = LocalDate.now();
-        YearMonth startMonth = YearMonth.from(oldestDate);
-        YearMonth currentMonth = YearMonth.from(today);
+        return series;
+    }
 
-        Map<YearMonth, Integer> monthlyCounts = new LinkedHashMap<>();
-        for (YearMonth month = startMonth; !month.isAfter(currentMonth); month = month.plusMonths(1)) {
-            monthlyCounts.put(month, 0);
+    private <T> TimeSeries toSumSeries(SeriesRange range, List<T> buckets, Function<T, LocalDateTime> bucketStart, ToDoubleFunction<T> sum) {
+        if (buckets.isEmpty() && range.getFrom() == null) {
+            return TimeSeries.emptySums(range.getUnit());
         }
 
-        groupClasses.forEach(groupClass -> {
-            YearMonth classMonth = YearMonth.from(groupClass.getDateStart());
-            monthlyCounts.put(classMonth, monthlyCounts.getOrDefault(classMonth, 0) + 1);
-        });
+        TimeSeries series = range.newSums(earliest(buckets, bucketStart), latest(buckets, bucketStart));
+        buckets.forEach(bucket -> series.add(bucketStart.apply(bucket), sum.applyAsDouble(bucket)));
 
-        return monthlyCounts;
+        return series;
     }
 
-    public Map<LocalDate, Integer> getDailyGroupClassCounts() {
-        List<GroupClass> groupClasses = groupClassRepository.findAll();
-        if (groupClasses.isEmpty()) {
-            return Collections.emptyMap();
-        }
+    private <T> LocalDateTime earliest(List<T> buckets, Function<T, LocalDateTime> bucketStart) {
+        return buckets.stream().map(bucketStart).min(Comparator.naturalOrder()).orElse(null);
+    }
 
-        LocalDate oldestDate = groupClasses.stream()
-                .map(GroupClass::getDateStart)
-                .min(Comparator.naturalOrder())
-                .orElseThrow()
-                .toLocalDate();
+    private <T> LocalDateTime latest(List<T> buckets, Function<T, LocalDateTime> bucketStart) {
+        return buckets.stream().map(bucketStart).max(Comparator.naturalOrder()).orElse(null);
+    }
 
+    private String formatCountWithChange(StatisticType type) {
         LocalDate today = LocalDate.now();
 
-        Map<LocalDate, Integer> dailyCounts = new LinkedHashMap<>();
-        for (LocalDate date = oldestDate; !date.isAfter(today); date = date.plusDays(1)) {
-            dailyCounts.put(date, 0);
-        }
+        long todayCount = dailyStatisticRepository.findByTypeAndDate(type, today)
+                .map(DailyStatistic::getCount)
+                .orElse(0L);
 
-        groupClasses.forEach(groupClass -> {
-            LocalDate classDate = groupClass.getDateStart().toLocalDate();
-            dailyCounts.put(classDate, dailyCounts.getOrDefault(classDate, 0) + 1);
-        });
+        long yesterdayCount = dailyStatisticRepository.findByTypeAndDate(type, today.minusDays(1))
+                .map(DailyStatistic::getCount)
+                .orElse(0L);
 
-        return dailyCounts;
+        return formatCountWithChange(todayCount, yesterdayCount);
     }
 
-    public String getGroupClassesTodayWithChange() {
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-
-        long todayCount = groupClassRepository.findAll().stream()
-                .filter(groupClass -> groupClass.getDateStart().toLocalDate().isEqual(today))
-                .count();
-
-        long yesterdayCount = groupClassRepository.findAll().stream()
-                .filter(groupClass -> groupClass.getDateStart().toLocalDate().isEqual(yesterday))
-                .count();
-
-        double percentageChange = calculatePercentageChange(yesterdayCount, todayCount);
+    private String formatCountWithChange(long todayCount, long yesterdayCount) {
+        return String.format("%d; %+.0f%%", todayCount, calculatePercentageChange(yesterdayCount, todayCount));
+    }
 
-        return String.format("%d; %+.0f%%", todayCount, percentageChange);
+    private String formatSumWithChange(double todaySum, double yesterdaySum) {
+        return String.format("%.2f; %+.0f%%", todaySum, calculatePercentageChange(yesterdaySum, todaySum));
     }
 
     private double calculatePercentageChange(double previous, double current) {
@@ -3,79 +3,377 @@ package pl.pbgym.service.statistics;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import pl.pbgym.domain.statistics.GymEntry;
-import pl.pbgym.domain.user.member.Member;
-import pl.pbgym.domain.user.worker.Worker;
+import pl.pbgym.domain.user.AbstractUser;
+import pl.pbgym.domain.user.UserType;
+import pl.pbgym.dto.statistics.GetAdmissionResponseDto;
+import pl.pbgym.dto.statistics.ScanEligibilityDto;
+import pl.pbgym.exception.user_counter.LocationAtCapacityException;
 import pl.pbgym.exception.user_counter.NoActivePassException;
 import pl.pbgym.exception.user_counter.WorkerNotAllowedToBeScannedException;
-import pl.pbgym.repository.gym_entry.GymEntryRepository;
 import pl.pbgym.repository.user.AbstractUserRepository;
+import pl.pbgym.util.statistics.OpenVisitJournal;
+import pl.pbgym.util.statistics.ScanDebouncer;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class UserCounterService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserCounterService.class);
 
-    private final Set<String> emailsOfUsersAtTheGym = ConcurrentHashMap.newKeySet();
-    private final Set<GymEntry> tempGymEntries = ConcurrentHashMap.newKeySet();
+    // One shard per club, so scans at different clubs never touch the same map or counter.
+    private final Map<Long, LocationShard> shards = new ConcurrentHashMap<>();
+    // Club of every open visit by user email. Each scan runs inside a compute on this map, so two scans of one user -
+    // even at two different clubs - never interleave, while scans of different users only meet on a map bin.
+    private final Map<String, Long> userLocations = new ConcurrentHashMap<>();
+    private final LongAdder chainOccupancy = new LongAdder();
+    // Open visits in the order they began. Entries only ever join at the tail, so the stale ones are always at the
+    // head and a sweep stops at the first visit that is still young. Visits closed by a scan stay queued until the
+    // sweep reaches them and are dropped then. Left empty when auto-closing is switched off (after-minutes=0).
+    private final Queue<ExpiringVisit> visitExpiry = new ConcurrentLinkedQueue<>();
     private final AbstractUserRepository abstractUserRepository;
-    private final GymEntryRepository gymEntryRepository;
+    private final ScanEligibilityCache scanEligibilityCache;
+    private final GymEntryWriteBehindService gymEntryWriteBehindService;
+    private final LiveStatisticsService liveStatisticsService;
+    private final OccupancyTimelineService occupancyTimelineService;
+    private final OpenVisitJournal openVisitJournal;
+    private final ScanDebouncer scanDebouncer;
+    private final int defaultCapacity;
+    private final Map<Long, Integer> capacities;
+    private final boolean admissionQueueEnabled;
+    private final long admissionHoldMillis;
+    private final Duration maxVisitDuration;
 
-    public UserCounterService(AbstractUserRepository abstractUserRepository, GymEntryRepository gymEntryRepository) {
+    public UserCounterService(AbstractUserRepository abstractUserRepository, ScanEligibilityCache scanEligibilityCache, GymEntryWriteBehindService gymEntryWriteBehindService,
+                              LiveStatisticsService liveStatisticsService, OpenVisitJournal openVisitJournal,
+                              OccupancyTimelineService occupancyTimelineService, ScanDebouncer scanDebouncer,
+                              @Value("${statistics.capacity.default:0}") int defaultCapacity,
+                              @Value("${statistics.capacity.locations:}") String capacities,
+                              @Value("${statistics.capacity.queue-enabled:true}") boolean admissionQueueEnabled,
+                              @Value("${statistics.capacity.hold-ms:120000}") long admissionHoldMillis,
+                              @Value("${statistics.auto-close.after-minutes:300}") long maxVisitMinutes) {
         this.abstractUserRepository = abstractUserRepository;
-        this.gymEntryRepository = gymEntryRepository;
+        this.scanEligibilityCache = scanEligibilityCache;
+        this.gymEntryWriteBehindService = gymEntryWriteBehindService;
+        this.liveStatisticsService = liveStatisticsService;
+        this.occupancyTimelineService = occupancyTimelineService;
+        this.openVisitJournal = openVisitJournal;
+        this.scanDebouncer = scanDebouncer;
+        this.defaultCapacity = defaultCapacity;
+        this.capacities = parseCapacities(capacities);
+        this.admissionQueueEnabled = admissionQueueEnabled;
+        this.admissionHoldMillis = admissionHoldMillis;
+        this.maxVisitDuration = Duration.ofMinutes(maxVisitMinutes);
     }
 
     public void registerUserAction(String email) {
-        logger.info("Rejestrowanie akcji użytkownika o emailu {}.", email);
-        abstractUserRepository.findByEmail(email).ifPresentOrElse(abstractUser -> {
-            if (abstractUser instanceof Worker) {
-                logger.error("Pracownik o emailu {} próbował wejść na siłownię, co jest niedozwolone.", email);
-                throw new WorkerNotAllowedToBeScannedException("Worker is not allowed here!");
-            } else if (abstractUser instanceof Member member) {
-                if (member.getPass() == null) {
-                    logger.error("Członek o emailu {} nie ma aktywnego karnetu.", email);
-                    throw new NoActivePassException("Member with email " + email + " doesn't have an active pass!");
-                }
+        registerUserAction(email, GymEntry.DEFAULT_LOCATION_ID);
+    }
+
+    public void registerUserAction(String email, Long locationId) {
+        logger.info("Rejestrowanie akcji użytkownika o emailu {} w klubie o ID {}.", email, locationId);
+        ScanEligibilityDto scanEligibility = scanEligibilityCache.get(email).orElseThrow(() -> {
+            logger.error("Nie znaleziono użytkownika o emailu {} w bazie danych.", email);
+            return new EntityNotFoundException("User with email " + email + " not found");
+        });
+
+        if (scanEligibility.getUserType() == UserType.WORKER) {
+            logger.error("Pracownik o emailu {} próbował wejść na siłownię, co jest niedozwolone.", email);
+            throw new WorkerNotAllowedToBeScannedException("Worker is not allowed here!");
+        } else if (scanEligibility.getUserType() == UserType.MEMBER) {
+            // A pass past its end date is refused even before the nightly job deactivates it.
+            if (scanEligibility.getPassDateEnd() == null || scanEligibility.getPassDateEnd().isBefore(LocalDateTime.now())) {
+                logger.error("Członek o emailu {} nie ma aktywnego karnetu.", email);
+                throw new NoActivePassException("Member with email " + email + " doesn't have an active pass!");
             }
+        }
+        // Checked after eligibility, so only scans that would toggle the user are debounced.
+        if (!scanDebouncer.tryAcquire(email)) {
+            logger.info("Pominięto powtórny skan użytkownika o emailu {} w oknie ochronnym.", email);
+            return;
+        }
+        // A reference is enough for the entry - only the user id is ever written.
+        AbstractUser abstractUser = abstractUserRepository.getReferenceById(scanEligibility.getUserId());
 
-            if (emailsOfUsersAtTheGym.contains(email)) {
-                GymEntry gymEntry = tempGymEntries.stream()
-                        .filter(entry -> entry.getAbstractUser().getEmail().equals(email))
-                        .findFirst()
-                        .orElseThrow(() -> {
-                            logger.error("Nie znaleziono GymEntry dla użytkownika o emailu {} podczas rejestrowania wyjścia.", email);
-                            return new EntityNotFoundException("GymEntry not found for email: " + email);
-                        });
+        LocationShard shard = shardOf(locationId);
 
-                gymEntry.setDateTimeOfExit(LocalDateTime.now());
-                gymEntryRepository.save(gymEntry);
-                logger.info("Zarejestrowano wyjście użytkownika o emailu {}. Data i czas wyjścia: {}.", email, gymEntry.getDateTimeOfExit());
-
-                tempGymEntries.remove(gymEntry);
-                emailsOfUsersAtTheGym.remove(email);
-            } else {
-                GymEntry gymEntry = new GymEntry();
-                gymEntry.setDateTimeOfEntry(LocalDateTime.now());
-                gymEntry.setAbstractUser(abstractUser);
-                tempGymEntries.add(gymEntry);
-                emailsOfUsersAtTheGym.add(email);
-                logger.info("Zarejestrowano wejście użytkownika o emailu {}. Data i czas wejścia: {}.", email, gymEntry.getDateTimeOfEntry());
+        // Entry and exit toggle atomically per user: an open visit is either closed and removed, or a new one is opened.
+        AtomicReference<GymEntry> finishedVisit = new AtomicReference<>();
+        AtomicReference<GymEntry> abandonedVisit = new AtomicReference<>();
+        AtomicReference<GymEntry> openedVisit = new AtomicReference<>();
+        AtomicBoolean refused = new AtomicBoolean();
+        List<String> calledUsers = new ArrayList<>(0);
+        List<String> calledAtOtherLocation = new ArrayList<>(0);
+        userLocations.compute(email, (key, currentLocationId) -> {
+            if (currentLocationId != null && !currentLocationId.equals(locationId)) {
+                abandonedVisit.set(closeVisitAt(email, currentLocationId, calledAtOtherLocation));
             }
-        }, () -> {
-            logger.error("Nie znaleziono użytkownika o emailu {} w bazie danych.", email);
-            throw new EntityNotFoundException("User with email " + email + " not found");
+            openedVisit.set(toggleVisit(email, locationId, shard, abstractUser, finishedVisit, refused, calledUsers));
+            return openedVisit.get() == null ? null : locationId;
+        });
+        GymEntry abandoned = abandonedVisit.get();
+        if (abandoned != null) {
+            notifyCalledUsers(abandoned.getLocationId(), shards.get(abandoned.getLocationId()), calledAtOtherLocation);
+            // A user who left a club without scanning out and shows up at another one is checked out of the first club.
+            logger.warn("Użytkownik o emailu {} nie zeskanował wyjścia z klubu o ID {}, wizyta została zamknięta.", email, abandoned.getLocationId());
+            finishVisit(email, abandoned);
+        }
+        notifyCalledUsers(locationId, shard, calledUsers);
+
+        if (refused.get()) {
+            // A refused scan must not count as the one a quick retry would be debounced against.
+            scanDebouncer.release(email);
+            int position = shard.getPosition(email);
+            logger.warn("Klub o ID {} jest pełny, odmowa wejścia użytkownikowi o emailu {}. Pozycja w kolejce: {}.", locationId, email, position);
+            throw new LocationAtCapacityException("Location " + locationId + " is at full capacity" +
+                    (position > 0 ? ", position in queue: " + position : ""));
+        }
+        liveStatisticsService.updateOccupancy(chainOccupancy.intValue());
+        occupancyTimelineService.record(chainOccupancy.intValue());
+
+        GymEntry gymEntry = finishedVisit.get();
+        if (gymEntry != null) {
+            finishVisit(email, gymEntry);
+        } else {
+            logger.info("Zarejestrowano wejście użytkownika o emailu {} w klubie o ID {}. Data i czas wejścia: {}.",
+                    email, locationId, openedVisit.get().getDateTimeOfEntry());
+        }
+    }
+
+    // Runs inside the user's compute on userLocations. Returns the visit that was opened, null on exit or refusal.
+    private GymEntry toggleVisit(String email, Long locationId, LocationShard shard, AbstractUser abstractUser,
+                                 AtomicReference<GymEntry> finishedVisit, AtomicBoolean refused, List<String> calledUsers) {
+        return shard.openVisits.compute(email, (key, openVisit) -> {
+            // Journaled and counted inside compute, so the journal and the counters always match the map.
+            if (openVisit != null) {
+                openVisit.setDateTimeOfExit(LocalDateTime.now());
+                openVisitJournal.recordExit(email, openVisit.getDateTimeOfExit());
+                calledUsers.addAll(shard.leave());
+                finishedVisit.set(openVisit);
+                return null;
+            }
+            if (!shard.tryAdmit(email)) {
+                // Queued first and retried, so a slot freed in between goes to this user instead of being missed.
+                if (admissionQueueEnabled) {
+                    calledUsers.addAll(shard.enqueue(email));
+                }
+                if (!admissionQueueEnabled || !shard.tryAdmit(email)) {
+                    refused.set(true);
+                    return null;
+                }
+                calledUsers.remove(email);
+            }
+            GymEntry gymEntry = new GymEntry();
+            gymEntry.setDateTimeOfEntry(LocalDateTime.now());
+            gymEntry.setLocationId(locationId);
+            gymEntry.setAbstractUser(abstractUser);
+            openVisitJournal.recordEntry(email, locationId, gymEntry.getDateTimeOfEntry());
+            if (!maxVisitDuration.isZero()) {
+                visitExpiry.add(new ExpiringVisit(email, gymEntry));
+            }
+            return gymEntry;
         });
     }
 
+    public void restoreOpenVisits() {
+        List<ExpiringVisit> restoredVisits = new ArrayList<>();
+        openVisitJournal.getOpenVisits().forEach((email, openVisit) ->
+                abstractUserRepository.findByEmail(email).ifPresentOrElse(abstractUser -> {
+                    GymEntry gymEntry = new GymEntry();
+                    gymEntry.setDateTimeOfEntry(openVisit.getDateTimeOfEntry());
+                    gymEntry.setLocationId(openVisit.getLocationId());
+                    gymEntry.setAbstractUser(abstractUser);
+                    LocationShard shard = shardOf(openVisit.getLocationId());
+                    // Restored under the user's compute like a scan, and only if the user has no visit open yet.
+                    userLocations.compute(email, (key, currentLocationId) -> {
+                        if (currentLocationId != null) {
+                            return currentLocationId;
+                        }
+                        shard.openVisits.compute(email, (openEmail, currentVisit) -> {
+                            if (currentVisit != null) {
+                                return currentVisit;
+                            }
+                            shard.restore();
+                            restoredVisits.add(new ExpiringVisit(email, gymEntry));
+                            return gymEntry;
+                        });
+                        return openVisit.getLocationId();
+                    });
+                }, () -> {
+                    logger.warn("Pominięto otwartą wizytę z dziennika dla nieistniejącego użytkownika o emailu {}.", email);
+                    openVisitJournal.recordExit(email, LocalDateTime.now());
+                }));
+        restoredVisits.sort(Comparator.comparing(restoredVisit -> restoredVisit.gymEntry.getDateTimeOfEntry()));
+        if (!maxVisitDuration.isZero()) {
+            visitExpiry.addAll(restoredVisits);
+        }
+        liveStatisticsService.updateOccupancy(chainOccupancy.intValue());
+        occupancyTimelineService.record(chainOccupancy.intValue());
+        openVisitJournal.compact();
+        logger.info("Przywrócono {} otwartych wizyt po ponownym uruchomieniu.", chainOccupancy.sum());
+    }
+
     public int getCurrentUserCount() {
-        int count = emailsOfUsersAtTheGym.size();
-        logger.info("Aktualna liczba użytkowników na siłowni: {}.", count);
+        int count = chainOccupancy.intValue();
+        logger.info("Aktualna liczba użytkowników we wszystkich klubach: {}.", count);
+        return count;
+    }
+
+    public int getCurrentUserCount(Long locationId) {
+        LocationShard shard = shards.get(locationId);
+        int count = shard == null ? 0 : shard.getOccupancy();
+        logger.info("Aktualna liczba użytkowników w klubie o ID {}: {}.", locationId, count);
         return count;
     }
+
+    public Map<Long, Integer> getCurrentUserCountByLocation() {
+        Map<Long, Integer> counts = new TreeMap<>();
+        shards.forEach((locationId, shard) -> counts.put(locationId, shard.getOccupancy()));
+        return counts;
+    }
+
+    public void setCapacity(Long locationId, int capacity) {
+        LocationShard shard = shardOf(locationId);
+        notifyCalledUsers(locationId, shard, shard.setCapacity(capacity));
+        logger.info("Ustawiono pojemność klubu o ID {} na {}.", locationId, capacity);
+    }
+
+    // A called user who does not show up within the hold time gives the slot to the next one in the queue.
+    @Scheduled(fixedDelayString = "${statistics.capacity.sweep-ms:5000}")
+    public void expireAdmissionHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        shards.forEach((locationId, shard) -> notifyCalledUsers(locationId, shard, shard.expireHolds(now)));
+    }
+
+    // Scheduled here rather than in the timeline, so the new minute starts from the live count.
+    @Scheduled(cron = "${statistics.timeline.cron:0 * * * * *}")
+    public void rollOverOccupancyTimeline() {
+        occupancyTimelineService.rollOver(chainOccupancy.intValue());
+    }
+
+    @Scheduled(fixedDelayString = "${statistics.auto-close.sweep-ms:60000}")
+    public void closeStaleVisits() {
+        if (!maxVisitDuration.isZero()) {
+            closeVisitsEnteredBefore(LocalDateTime.now().minus(maxVisitDuration));
+        }
+    }
+
+    // Closes every visit that began before the cutoff, as if the user had scanned out once the maximum visit time
+    // passed. Work is proportional to the visits taken off the queue, never to all open visits.
+    public synchronized int closeVisitsEnteredBefore(LocalDateTime cutoff) {
+        LocalDateTime now = LocalDateTime.now();
+        List<GymEntry> closedVisits = new ArrayList<>();
+        ExpiringVisit expiringVisit;
+        while ((expiringVisit = visitExpiry.peek()) != null && expiringVisit.gymEntry.getDateTimeOfEntry().isBefore(cutoff)) {
+            visitExpiry.poll();
+            ExpiringVisit expired = expiringVisit;
+            LocationShard shard = shards.get(expired.gymEntry.getLocationId());
+            List<String> calledUsers = new ArrayList<>(0);
+            // Closed under the user's compute, so it can't interleave with a scan of the same user.
+            userLocations.computeIfPresent(expired.email, (email, locationId) -> {
+                if (!locationId.equals(expired.gymEntry.getLocationId())) {
+                    return locationId;
+                }
+                // Only the exact visit that expired is closed - the user may have scanned out and back in since.
+                shard.openVisits.computeIfPresent(email, (key, openVisit) -> {
+                    if (openVisit != expired.gymEntry) {
+                        return openVisit;
+                    }
+                    LocalDateTime exit = openVisit.getDateTimeOfEntry().plus(maxVisitDuration);
+                    openVisit.setDateTimeOfExit(exit.isBefore(now) ? exit : now);
+                    openVisit.setAutoClosed(true);
+                    openVisitJournal.recordExit(email, openVisit.getDateTimeOfExit());
+                    calledUsers.addAll(shard.leave());
+                    closedVisits.add(openVisit);
+                    return null;
+                });
+                return shard.openVisits.containsKey(email) ? locationId : null;
+            });
+            notifyCalledUsers(expired.gymEntry.getLocationId(), shard, calledUsers);
+        }
+        if (closedVisits.isEmpty()) {
+            return 0;
+        }
+        liveStatisticsService.updateOccupancy(chainOccupancy.intValue());
+        occupancyTimelineService.record(chainOccupancy.intValue());
+        gymEntryWriteBehindService.enqueueAll(closedVisits);
+        logger.warn("Automatycznie zamknięto {} wizyt bez zeskanowanego wyjścia, rozpoczętych przed {}.", closedVisits.size(), cutoff);
+        return closedVisits.size();
+    }
+
+    // Runs inside the user's compute on userLocations; the caller finishes the returned visit outside of it.
+    private GymEntry closeVisitAt(String email, Long locationId, List<String> calledUsers) {
+        LocationShard shard = shards.get(locationId);
+        GymEntry openVisit = shard.openVisits.remove(email);
+        if (openVisit != null) {
+            openVisit.setDateTimeOfExit(LocalDateTime.now());
+            openVisitJournal.recordExit(email, openVisit.getDateTimeOfExit());
+            calledUsers.addAll(shard.leave());
+        }
+        return openVisit;
+    }
+
+    // Finished visits are queued outside compute and written in batches, so a scan never waits for the database.
+    // The heatmap and the daily rollup take them from there once they are persisted.
+    private void finishVisit(String email, GymEntry gymEntry) {
+        gymEntryWriteBehindService.enqueue(gymEntry);
+        logger.info("Zarejestrowano wyjście użytkownika o emailu {} z klubu o ID {}. Data i czas wyjścia: {}.",
+                email, gymEntry.getLocationId(), gymEntry.getDateTimeOfExit());
+    }
+
+    private LocationShard shardOf(Long locationId) {
+        return shards.computeIfAbsent(locationId, id ->
+                new LocationShard(capacities.getOrDefault(id, defaultCapacity), admissionHoldMillis, chainOccupancy));
+    }
+
+    private void notifyCalledUsers(Long locationId, LocationShard shard, List<String> calledUsers) {
+        calledUsers.forEach(email -> {
+            GetAdmissionResponseDto admission = new GetAdmissionResponseDto();
+            admission.setLocationId(locationId);
+            admission.setEmail(email);
+            admission.setHoldUntil(shard.getHoldUntil(email));
+            liveStatisticsService.notifyAdmission(admission);
+            logger.info("Zwolniło się miejsce w klubie o ID {} dla oczekującego użytkownika o emailu {}.", locationId, email);
+        });
+    }
+
+    // Per-club capacities in the form "1=120,2=80".
+    private static Map<Long, Integer> parseCapacities(String capacities) {
+        Map<Long, Integer> parsed = new HashMap<>();
+        for (String capacity : capacities.split(",")) {
+            if (capacity.isBlank()) {
+                continue;
+            }
+            String[] parts = capacity.split("=");
+            parsed.put(Long.valueOf(parts[0].trim()), Integer.valueOf(parts[1].trim()));
+        }
+        return parsed;
+    }
+
+    private static class ExpiringVisit {
+        private final String email;
+        private final GymEntry gymEntry;
+
+        private ExpiringVisit(String email, GymEntry gymEntry) {
+            this.email = email;
+            this.gymEntry = gymEntry;
+        }
+    }
 }
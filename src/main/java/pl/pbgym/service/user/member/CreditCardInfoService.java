@@ -56,10 +56,12 @@ public class CreditCardInfoService {
                     CreditCardInfo creditCardInfo = modelMapper.map(requestDto, CreditCardInfo.class);
                     creditCardInfo.setMember(m);
 
-                    creditCardInfo.setCardNumber(encrypt(creditCardInfo.getCardNumber()));
-                    creditCardInfo.setCvc(encrypt(creditCardInfo.getCvc()));
-                    creditCardInfo.setExpirationMonth(encrypt(creditCardInfo.getExpirationMonth()));
-                    creditCardInfo.setExpirationYear(encrypt(creditCardInfo.getExpirationYear()));
+                    String[] encrypted = encrypt(creditCardInfo.getCardNumber(), creditCardInfo.getCvc(),
+                            creditCardInfo.getExpirationMonth(), creditCardInfo.getExpirationYear());
+                    creditCardInfo.setCardNumber(encrypted[0]);
+                    creditCardInfo.setCvc(encrypted[1]);
+                    creditCardInfo.setExpirationMonth(encrypted[2]);
+                    creditCardInfo.setExpirationYear(encrypted[3]);
 
                     creditCardInfoRepository.save(creditCardInfo);
                     logger.info("Pomyślnie zapisano informacje o karcie kredytowej dla użytkownika o emailu: {}", email);
@@ -76,10 +78,11 @@ public class CreditCardInfoService {
             return creditCardInfoRepository.findByMemberEmail(email)
                     .map(info -> {
                         GetCreditCardInfoResponseDto dto = modelMapper.map(info, GetCreditCardInfoResponseDto.class);
-                        dto.setCardNumber("************" + (decrypt(dto.getCardNumber())).substring(12));
+                        String[] decrypted = decrypt(dto.getCardNumber(), dto.getExpirationMonth(), dto.getExpirationYear());
+                        dto.setCardNumber("************" + decrypted[0].substring(12));
                         dto.setCvc("***");
-                        dto.setExpirationMonth(decrypt(dto.getExpirationMonth()));
-                        dto.setExpirationYear(decrypt(dto.getExpirationYear()));
+                        dto.setExpirationMonth(decrypted[1]);
+                        dto.setExpirationYear(decrypted[2]);
                         logger.info("Pomyślnie pobrano ukryte informacje o karcie kredytowej dla użytkownika o emailu: {}", email);
                         return dto;
                     })
@@ -106,10 +109,11 @@ public class CreditCardInfoService {
         return creditCardInfoRepository.findByMemberEmail(email)
                 .map(info -> {
                     GetCreditCardInfoResponseDto dto = modelMapper.map(info, GetCreditCardInfoResponseDto.class);
-                    dto.setCardNumber(decrypt(dto.getCardNumber()));
-                    dto.setCvc(decrypt(dto.getCvc()));
-                    dto.setExpirationMonth(decrypt(dto.getExpirationMonth()));
-                    dto.setExpirationYear(decrypt(dto.getExpirationYear()));
+                    String[] decrypted = decrypt(dto.getCardNumber(), dto.getCvc(), dto.getExpirationMonth(), dto.getExpirationYear());
+                    dto.setCardNumber(decrypted[0]);
+                    dto.setCvc(decrypted[1]);
+                    dto.setExpirationMonth(decrypted[2]);
+                    dto.setExpirationYear(decrypted[3]);
                     logger.info("Pomyślnie pobrano pełne informacje o karcie kredytowej dla użytkownika o emailu: {}", email);
                     return dto;
                 })
@@ -130,18 +134,18 @@ public class CreditCardInfoService {
                 });
     }
 
-    private String encrypt(String plainText) {
+    private String[] encrypt(String... plainTexts) {
         try {
-            return encryptionUtil.encrypt(plainText);
+            return encryptionUtil.encryptAll(plainTexts);
         } catch (Exception e) {
             logger.error("Nieudana próba szyfrowania: {}", e.getMessage());
             throw new RuntimeException("Encryption failed: " + e.getMessage(), e);
         }
     }
 
-    private String decrypt(String encryptedText) {
+    private String[] decrypt(String... encryptedTexts) {
         try {
-            return encryptionUtil.decrypt(encryptedText);
+            return encryptionUtil.decryptAll(encryptedTexts);
         } catch (Exception e) {
             logger.error("Nieudana próba odszyfrowania: {}", e.getMessage());
             throw new RuntimeException("Decryption failed: " + e.getMessage(), e);
@@ -17,7 +17,10 @@ import pl.pbgym.dto.user.member.UpdateMemberRequestDto;
 import pl.pbgym.exception.user.IncorrectPasswordException;
 import pl.pbgym.exception.user.member.MemberNotFoundException;
 import pl.pbgym.repository.user.member.MemberRepository;
+import pl.pbgym.service.auth.AuthenticatedUserCache;
 import pl.pbgym.service.auth.AuthenticationService;
+import pl.pbgym.service.auth.JwtService;
+import pl.pbgym.service.statistics.ScanEligibilityCache;
 
 import java.util.List;
 import java.util.Optional;
@@ -32,13 +35,20 @@ public class MemberService {
     private final ModelMapper modelMapper;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationService authenticationService;
+    private final ScanEligibilityCache scanEligibilityCache;
+    private final JwtService jwtService;
+    private final AuthenticatedUserCache authenticatedUserCache;
 
     @Autowired
-    public MemberService(MemberRepository memberRepository, ModelMapper modelMapper, PasswordEncoder passwordEncoder, AuthenticationService authenticationService) {
+    public MemberService(MemberRepository memberRepository, ModelMapper modelMapper, PasswordEncoder passwordEncoder, AuthenticationService authenticationService, ScanEligibilityCache scanEligibilityCache, JwtService jwtService,
+                         AuthenticatedUserCache authenticatedUserCache) {
         this.memberRepository = memberRepository;
         this.modelMapper = modelMapper;
         this.passwordEncoder = passwordEncoder;
         this.authenticationService = authenticationService;
+        this.scanEligibilityCache = scanEligibilityCache;
+        this.jwtService = jwtService;
+        this.authenticatedUserCache = authenticatedUserCache;
     }
 
     public GetMemberResponseDto getMemberByEmail(String email) {
@@ -95,6 +105,8 @@ public class MemberService {
                         throw new IncorrectPasswordException("Old password is incorrect");
                     } else {
                         m.setPassword(passwordEncoder.encode(newPassword));
+                        jwtService.revoke(m, email);
+                        authenticatedUserCache.invalidate(email);
                         logger.info("Pomyślnie zaktualizowano hasło dla członka z adresem email: {}", email);
                     }
                 },
@@ -110,6 +122,8 @@ public class MemberService {
         Optional<Member> member = memberRepository.findByEmail(email);
         member.ifPresentOrElse(m -> {
                     m.setPassword(passwordEncoder.encode(newPassword));
+                    jwtService.revoke(m, email);
+                    authenticatedUserCache.invalidate(email);
                     logger.info("Pomyślnie zaktualizowano hasło dla członka z adresem email: {}", email);
                 },
                 () -> {
@@ -125,6 +139,9 @@ public class MemberService {
         AuthenticationResponseDto authenticationResponseDto = new AuthenticationResponseDto();
         member.ifPresentOrElse(m -> {
                     m.setEmail(newEmail);
+                    scanEligibilityCache.invalidate(email);
+                    jwtService.revoke(m, email);
+                    authenticatedUserCache.invalidate(email);
                     String jwt = authenticationService.generateJwtToken(m);
                     authenticationResponseDto.setJwt(jwt);
                     logger.info("Pomyślnie zaktualizowano adres email dla członka z {} na {}", email, newEmail);
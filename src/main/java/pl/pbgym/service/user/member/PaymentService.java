@@ -13,6 +13,7 @@ import pl.pbgym.exception.payment.NoPaymentMethodException;
 import pl.pbgym.exception.payment.PaymentMethodExpiredException;
 import pl.pbgym.exception.user.member.MemberNotFoundException;
 import pl.pbgym.repository.user.member.PaymentRepository;
+import pl.pbgym.service.statistics.StatisticsRollupService;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -26,12 +27,14 @@ public class PaymentService {
     private final CreditCardInfoService creditCardInfoService;
     private final MemberService memberService;
     private final ModelMapper modelMapper;
+    private final StatisticsRollupService statisticsRollupService;
 
-    public PaymentService(PaymentRepository paymentRepository, CreditCardInfoService creditCardInfoService, MemberService memberService, ModelMapper modelMapper) {
+    public PaymentService(PaymentRepository paymentRepository, CreditCardInfoService creditCardInfoService, MemberService memberService, ModelMapper modelMapper, StatisticsRollupService statisticsRollupService) {
         this.paymentRepository = paymentRepository;
         this.creditCardInfoService = creditCardInfoService;
         this.memberService = memberService;
         this.modelMapper = modelMapper;
+        this.statisticsRollupService = statisticsRollupService;
     }
 
     @Transactional
@@ -58,6 +61,7 @@ public class PaymentService {
         payment.setPesel(member.getPesel());
 
         paymentRepository.save(payment);
+        statisticsRollupService.recordPayment(payment.getDateTime(), payment.getAmount());
         logger.info("Pomyślnie zarejestrowano płatność w wysokości {} PLN dla użytkownika {}", amount, member.getEmail());
     }
 
@@ -16,6 +16,7 @@ import pl.pbgym.exception.user_counter.NoActivePassException;
 import pl.pbgym.repository.user.member.MemberRepository;
 import pl.pbgym.repository.user.trainer.GroupClassRepository;
 import pl.pbgym.repository.user.trainer.TrainerRepository;
+import pl.pbgym.service.statistics.StatisticsRollupService;
 import pl.pbgym.service.user.member.MemberService;
 
 import java.time.LocalDateTime;
@@ -33,14 +34,16 @@ public class GroupClassService {
     private final TrainerService trainerService;
     private final MemberService memberService;
     private final ModelMapper modelMapper;
+    private final StatisticsRollupService statisticsRollupService;
 
-    public GroupClassService(GroupClassRepository groupClassRepository, TrainerRepository trainerRepository, MemberRepository memberRepository, TrainerService trainerService, TrainerService TrainerService, MemberService memberService, ModelMapper modelMapper) {
+    public GroupClassService(GroupClassRepository groupClassRepository, TrainerRepository trainerRepository, MemberRepository memberRepository, TrainerService trainerService, TrainerService TrainerService, MemberService memberService, ModelMapper modelMapper, StatisticsRollupService statisticsRollupService) {
         this.groupClassRepository = groupClassRepository;
         this.trainerRepository = trainerRepository;
         this.memberRepository = memberRepository;
         this.trainerService = trainerService;
         this.memberService = memberService;
         this.modelMapper = modelMapper;
+        this.statisticsRollupService = statisticsRollupService;
     }
 
     public List<GetGroupClassResponseDto> getAllUpcomingGroupClasses() {
@@ -136,6 +139,7 @@ public class GroupClassService {
             GroupClass groupClass = modelMapper.map(requestDto, GroupClass.class);
             groupClass.setTrainer(trainer);
             groupClassRepository.save(groupClass);
+            statisticsRollupService.recordGroupClass(groupClass.getDateStart());
             logger.info("Pomyślnie zapisano zajęcia grupowe o tytule: {}", requestDto.getTitle());
         }, () -> {
             logger.error("Nie znaleziono trenera o emailu: {}", requestDto.getTrainerEmail());
@@ -164,6 +168,11 @@ public class GroupClassService {
                     throw new NewMemberLimitLowerThanCurrentMembers("Nowy limit uczestników " + requestDto.getMemberLimit() + " jest mniejszy niż obecna liczba uczestników " + groupClass.getMemberLimit());
                 }
 
+                if (!groupClass.getDateStart().toLocalDate().isEqual(requestDto.getDateStart().toLocalDate())) {
+                    statisticsRollupService.removeGroupClass(groupClass.getDateStart());
+                    statisticsRollupService.recordGroupClass(requestDto.getDateStart());
+                }
+
                 groupClass.setTitle(requestDto.getTitle());
                 groupClass.setDateStart(requestDto.getDateStart());
                 groupClass.setDurationInMinutes(requestDto.getDurationInMinutes());
@@ -242,6 +251,7 @@ public class GroupClassService {
             }
 
             groupClassRepository.delete(groupClass);
+            statisticsRollupService.removeGroupClass(groupClass.getDateStart());
             logger.info("Pomyślnie usunięto zajęcia grupowe o ID: {}", groupClassId);
         }, () -> {
             logger.error("Nie znaleziono zajęć grupowych o ID: {}", groupClassId);
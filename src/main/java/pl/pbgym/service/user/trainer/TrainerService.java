@@ -16,7 +16,10 @@ import pl.pbgym.exception.user.IncorrectPasswordException;
 import pl.pbgym.exception.user.trainer.TrainerNotFoundException;
 import pl.pbgym.repository.user.trainer.TrainerTagRepository;
 import pl.pbgym.repository.user.trainer.TrainerRepository;
+import pl.pbgym.service.auth.AuthenticatedUserCache;
 import pl.pbgym.service.auth.AuthenticationService;
+import pl.pbgym.service.auth.JwtService;
+import pl.pbgym.service.statistics.ScanEligibilityCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -33,14 +36,21 @@ public class TrainerService {
     private final ModelMapper modelMapper;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationService authenticationService;
+    private final ScanEligibilityCache scanEligibilityCache;
+    private final JwtService jwtService;
+    private final AuthenticatedUserCache authenticatedUserCache;
 
     @Autowired
-    public TrainerService(TrainerRepository trainerRepository, TrainerTagRepository trainerTagRepository, ModelMapper modelMapper, PasswordEncoder passwordEncoder, AuthenticationService authenticationService) {
+    public TrainerService(TrainerRepository trainerRepository, TrainerTagRepository trainerTagRepository, ModelMapper modelMapper, PasswordEncoder passwordEncoder, AuthenticationService authenticationService, ScanEligibilityCache scanEligibilityCache, JwtService jwtService,
+                          AuthenticatedUserCache authenticatedUserCache) {
         this.trainerRepository = trainerRepository;
         this.trainerTagRepository = trainerTagRepository;
         this.modelMapper = modelMapper;
         this.passwordEncoder = passwordEncoder;
         this.authenticationService = authenticationService;
+        this.scanEligibilityCache = scanEligibilityCache;
+        this.jwtService = jwtService;
+        this.authenticatedUserCache = authenticatedUserCache;
     }
 
     public GetTrainerResponseDto getTrainerByEmail(String email) {
@@ -96,6 +106,8 @@ public class TrainerService {
                 throw new IncorrectPasswordException("Old password is incorrect");
             } else {
                 t.setPassword(passwordEncoder.encode(newPassword));
+                jwtService.revoke(t, email);
+                authenticatedUserCache.invalidate(email);
                 logger.info("Pomyślnie zaktualizowano hasło dla trenera o emailu: {}", email);
             }
         }, () -> {
@@ -110,6 +122,8 @@ public class TrainerService {
         Optional<Trainer> trainer = trainerRepository.findByEmail(email);
         trainer.ifPresentOrElse(t -> {
             t.setPassword(passwordEncoder.encode(newPassword));
+            jwtService.revoke(t, email);
+            authenticatedUserCache.invalidate(email);
             logger.info("Pomyślnie zaktualizowano hasło dla trenera o emailu: {}", email);
         }, () -> {
             logger.error("Nie znaleziono trenera o emailu: {}", email);
@@ -124,6 +138,9 @@ public class TrainerService {
         AuthenticationResponseDto authenticationResponseDto = new AuthenticationResponseDto();
         trainer.ifPresentOrElse(t -> {
             t.setEmail(newEmail);
+            scanEligibilityCache.invalidate(email);
+            jwtService.revoke(t, email);
+            authenticatedUserCache.invalidate(email);
             String jwt = authenticationService.generateJwtToken(t);
             authenticationResponseDto.setJwt(jwt);
             logger.info("Pomyślnie zaktualizowano email trenera z {} na {}", email, newEmail);
@@ -17,7 +17,10 @@ import pl.pbgym.exception.user.IncorrectPasswordException;
 import pl.pbgym.exception.user.worker.WorkerNotFoundException;
 import pl.pbgym.repository.user.worker.PermissionRepository;
 import pl.pbgym.repository.user.worker.WorkerRepository;
+import pl.pbgym.service.auth.AuthenticatedUserCache;
 import pl.pbgym.service.auth.AuthenticationService;
+import pl.pbgym.service.auth.JwtService;
+import pl.pbgym.service.statistics.ScanEligibilityCache;
 
 import java.util.List;
 import java.util.Optional;
@@ -31,14 +34,21 @@ public class WorkerService {
     private final ModelMapper modelMapper;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationService authenticationService;
+    private final ScanEligibilityCache scanEligibilityCache;
+    private final JwtService jwtService;
+    private final AuthenticatedUserCache authenticatedUserCache;
 
     @Autowired
-    public WorkerService(WorkerRepository workerRepository, PermissionRepository permissionRepository, ModelMapper modelMapper, PasswordEncoder passwordEncoder, AuthenticationService authenticationService) {
+    public WorkerService(WorkerRepository workerRepository, PermissionRepository permissionRepository, ModelMapper modelMapper, PasswordEncoder passwordEncoder, AuthenticationService authenticationService, ScanEligibilityCache scanEligibilityCache, JwtService jwtService,
+                         AuthenticatedUserCache authenticatedUserCache) {
         this.workerRepository = workerRepository;
         this.permissionRepository = permissionRepository;
         this.modelMapper = modelMapper;
         this.passwordEncoder = passwordEncoder;
         this.authenticationService = authenticationService;
+        this.scanEligibilityCache = scanEligibilityCache;
+        this.jwtService = jwtService;
+        this.authenticatedUserCache = authenticatedUserCache;
     }
 
     public GetWorkerResponseDto getWorkerByEmail(String email) {
@@ -76,6 +86,8 @@ public class WorkerService {
                             permissionRepository.save(permission);
                         }
                     }
+                    jwtService.revoke(w, email);
+                    authenticatedUserCache.invalidate(email);
                 },
                 () -> {
                     throw new WorkerNotFoundException("Worker not found with email: " + email);
@@ -90,6 +102,8 @@ public class WorkerService {
                         throw new IncorrectPasswordException("Old password is incorrect");
                     } else {
                         w.setPassword(passwordEncoder.encode(newPassword));
+                        jwtService.revoke(w, email);
+                        authenticatedUserCache.invalidate(email);
                     }
                 },
                 () -> {
@@ -100,7 +114,11 @@ public class WorkerService {
     @Transactional
     public void updatePasswordWithoutOldPasswordCheck(String newPassword, String email) {
         Optional<Worker> worker = workerRepository.findByEmail(email);
-        worker.ifPresentOrElse(w -> w.setPassword(passwordEncoder.encode(newPassword)),
+        worker.ifPresentOrElse(w -> {
+                    w.setPassword(passwordEncoder.encode(newPassword));
+                    jwtService.revoke(w, email);
+                    authenticatedUserCache.invalidate(email);
+                },
                 () -> {
                     throw new EntityNotFoundException("User not found with email: " + email);
                 });
@@ -112,6 +130,9 @@ public class WorkerService {
         AuthenticationResponseDto authenticationResponseDto = new AuthenticationResponseDto();
         worker.ifPresentOrElse(w -> {
                     w.setEmail(newEmail);
+                    scanEligibilityCache.invalidate(email);
+                    jwtService.revoke(w, email);
+                    authenticatedUserCache.invalidate(email);
                     String jwt = authenticationService.generateJwtToken(w);
                     authenticationResponseDto.setJwt(jwt);
                 },
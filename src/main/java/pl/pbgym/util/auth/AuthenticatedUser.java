@@ -0,0 +1,149 @@
+package pl.pbgym.util.auth;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import pl.pbgym.domain.user.AbstractUser;
+import pl.pbgym.domain.user.UserType;
+import pl.pbgym.domain.user.member.Member;
+import pl.pbgym.domain.user.trainer.Trainer;
+import pl.pbgym.domain.user.worker.Permission;
+import pl.pbgym.domain.user.worker.PermissionType;
+import pl.pbgym.domain.user.worker.Worker;
+import pl.pbgym.dto.auth.AuthenticationRowDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Read-only view of a user for authentication: id, email, password hash, type, token version and authority names.
+// It is shared by the principal cache, so it is immutable and deliberately not a CredentialsContainer, which would let
+// the authentication manager erase the cached password hash after a login.
+public final class AuthenticatedUser implements UserDetails {
+
+    private static final Set<String> PERMISSION_NAMES = Arrays.stream(PermissionType.values())
+            .map(Enum::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final Long id;
+    private final String email;
+    private final String password;
+    private final UserType userType;
+    private final long tokenVersion;
+    private final List<String> authorities;
+
+    public AuthenticatedUser(Long id, String email, String password, UserType userType, long tokenVersion, List<String> authorities) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.userType = userType;
+        this.tokenVersion = tokenVersion;
+        this.authorities = List.copyOf(authorities);
+    }
+
+    // Rows of a single user as returned by the authentication query.
+    public static AuthenticatedUser fromRows(List<AuthenticationRowDto> rows) {
+        AuthenticationRowDto first = rows.get(0);
+        List<String> authorities = new ArrayList<>(rows.size() + 1);
+        authorities.add(first.getUserType().name());
+        rows.stream()
+                .map(AuthenticationRowDto::getPermission)
+                .filter(permission -> permission != null)
+                .forEach(permission -> authorities.add(permission.name()));
+        return new AuthenticatedUser(first.getUserId(), first.getEmail(), first.getPassword(), first.getUserType(),
+                first.getTokenVersion(), authorities);
+    }
+
+    public static AuthenticatedUser fromUser(AbstractUser abstractUser) {
+        UserType userType = switch (abstractUser) {
+            case Member member -> UserType.MEMBER;
+            case Trainer trainer -> UserType.TRAINER;
+            default -> UserType.WORKER;
+        };
+        return new AuthenticatedUser(abstractUser.getId(), abstractUser.getEmail(), abstractUser.getPassword(), userType,
+                abstractUser.getTokenVersion(), abstractUser.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    // Controllers only read the id, the email, the type and the worker permissions of the principal, so it is built
+    // from this view instead of being loaded from the database. It is detached and must not be saved.
+    public AbstractUser toPrincipal() {
+        AbstractUser principal = switch (userType) {
+            case MEMBER -> new Member();
+            case TRAINER -> new Trainer();
+            case WORKER -> {
+                Worker worker = new Worker();
+                worker.setPermissions(authorities.stream()
+                        .filter(PERMISSION_NAMES::contains)
+                        .map(authority -> {
+                            Permission permission = new Permission();
+                            permission.setWorker(worker);
+                            permission.set(PermissionType.valueOf(authority));
+                            return permission;
+                        })
+                        .collect(Collectors.toList()));
+                yield worker;
+            }
+        };
+        principal.setId(id);
+        principal.setEmail(email);
+        return principal;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public UserType getUserType() {
+        return userType;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public List<String> getAuthorityNames() {
+        return authorities;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities.stream().map(SimpleGrantedAuthority::new).toList();
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
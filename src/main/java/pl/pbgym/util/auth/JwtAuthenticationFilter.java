@@ -8,11 +8,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import pl.pbgym.domain.user.UserType;
+import pl.pbgym.dto.auth.TokenVersionRowDto;
+import pl.pbgym.service.auth.AuthenticatedUserCache;
 import pl.pbgym.service.auth.JwtService;
 
 import java.io.IOException;
@@ -21,12 +22,12 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final AuthenticatedUserCache authenticatedUserCache;
 
     @Autowired
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, AuthenticatedUserCache authenticatedUserCache) {
         this.jwtService = jwtService;
-        this.userDetailsService = userDetailsService;
+        this.authenticatedUserCache = authenticatedUserCache;
     }
 
     @Override
@@ -36,26 +37,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String email;
         if(authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
-        jwt = authHeader.substring(7);
-        email = jwtService.extractEmail(jwt);
-        if(email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
-            if(jwtService.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+        // One decrypt and one signature check per request; the expiry is checked by the parser as well.
+        final VerifiedJwt verifiedJwt = jwtService.verify(authHeader.substring(7));
+        if(verifiedJwt.getEmail() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Tokens issued before versions existed carry none and count as version 0.
+            long tokenVersion = verifiedJwt.getVersion() == null ? 0 : verifiedJwt.getVersion();
+            AuthenticatedUser authenticatedUser = verifiedJwt.getUserId() != null && verifiedJwt.getUserType() != null
+                    ? fromClaims(verifiedJwt, tokenVersion)
+                    : fromStoredUser(verifiedJwt, tokenVersion);
+            if(authenticatedUser == null) {
+                filterChain.doFilter(request, response);
+                return;
             }
+            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                    authenticatedUser.toPrincipal(),
+                    null,
+                    authenticatedUser.getAuthorities()
+            );
+            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // The principal and its authorities are taken from the token. The token version is the only state read, so a
+    // token issued before the user's password, email or permissions changed - or for an account re-created under the
+    // same email - no longer authenticates.
+    private AuthenticatedUser fromClaims(VerifiedJwt verifiedJwt, long tokenVersion) {
+        TokenVersionRowDto stored = authenticatedUserCache.getTokenVersion(verifiedJwt.getEmail()).orElse(null);
+        if(stored == null || stored.getTokenVersion() != tokenVersion || !verifiedJwt.getUserId().equals(stored.getUserId())) {
+            return null;
+        }
+        return new AuthenticatedUser(verifiedJwt.getUserId(), verifiedJwt.getEmail(), null,
+                UserType.valueOf(verifiedJwt.getUserType()), tokenVersion, verifiedJwt.getAuthorities());
+    }
+
+    // Tokens issued before the claims were added carry no id or type, so their user is read from the principal cache.
+    private AuthenticatedUser fromStoredUser(VerifiedJwt verifiedJwt, long tokenVersion) {
+        AuthenticatedUser authenticatedUser = authenticatedUserCache.get(verifiedJwt.getEmail()).orElse(null);
+        return authenticatedUser != null && authenticatedUser.getTokenVersion() == tokenVersion ? authenticatedUser : null;
+    }
+}
@@ -0,0 +1,48 @@
+package pl.pbgym.util.auth;
+
+import java.util.Date;
+import java.util.List;
+
+// Claims of a token whose encryption, signature and expiry have already been checked. The user id, type and version
+// are null for tokens issued before they were added to the token.
+public final class VerifiedJwt {
+    private final String email;
+    private final Date expiration;
+    private final List<String> authorities;
+    private final Long userId;
+    private final String userType;
+    private final Long version;
+
+    public VerifiedJwt(String email, Date expiration, List<String> authorities, Long userId, String userType, Long version) {
+        this.email = email;
+        this.expiration = new Date(expiration.getTime());
+        this.authorities = List.copyOf(authorities);
+        this.userId = userId;
+        this.userType = userType;
+        this.version = version;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Date getExpiration() {
+        return new Date(expiration.getTime());
+    }
+
+    public List<String> getAuthorities() {
+        return authorities;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUserType() {
+        return userType;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
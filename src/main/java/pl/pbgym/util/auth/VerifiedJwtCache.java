@@ -0,0 +1,129 @@
+package pl.pbgym.util.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Verified claims keyed by the SHA-256 of the encrypted token, so bearer tokens themselves are never kept on the heap.
+// An entry lives until the token expires or the TTL passes, whichever comes first. Tokens that fail verification are
+// never cached.
+public class VerifiedJwtCache {
+
+    private final Map<String, CachedJwt> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long ttlMillis;
+    // Bumped by every invalidation, so a verification that raced with one does not put its stale result back.
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public VerifiedJwtCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public VerifiedJwt get(String jwt, Function<String, VerifiedJwt> verifier) {
+        String key = hash(jwt);
+        long now = System.currentTimeMillis();
+        CachedJwt cached = entries.get(key);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                hits.increment();
+                return cached.verifiedJwt;
+            }
+            if (entries.remove(key, cached)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+
+        long generationBeforeVerify = generation.get();
+        VerifiedJwt verifiedJwt = verifier.apply(jwt);
+        if (entries.size() >= maxEntries) {
+            evict(now);
+        }
+        CachedJwt loaded = new CachedJwt(verifiedJwt, Math.min(verifiedJwt.getExpiration().getTime(), now + ttlMillis));
+        entries.put(key, loaded);
+        if (generation.get() != generationBeforeVerify) {
+            entries.remove(key, loaded);
+        }
+        return verifiedJwt;
+    }
+
+    public void invalidate(String email) {
+        generation.incrementAndGet();
+        entries.values().removeIf(cached -> {
+            boolean matches = email.equals(cached.verifiedJwt.getEmail());
+            if (matches) {
+                invalidations.increment();
+            }
+            return matches;
+        });
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    // Expired entries go first; if the cache is still full it is cleared, like the other caches of the application.
+    private void evict(long now) {
+        entries.values().removeIf(cached -> {
+            boolean expired = cached.expiresAt <= now;
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+        if (entries.size() >= maxEntries) {
+            evictions.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    private static String hash(String jwt) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class CachedJwt {
+        private final VerifiedJwt verifiedJwt;
+        private final long expiresAt;
+
+        private CachedJwt(VerifiedJwt verifiedJwt, long expiresAt) {
+            this.verifiedJwt = verifiedJwt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
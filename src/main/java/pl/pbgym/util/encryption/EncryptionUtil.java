@@ -2,31 +2,99 @@ package pl.pbgym.util.encryption;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// Initialised ciphers are reused instead of looking the provider up and expanding the key on every call. They sit in
+// a small shared pool per mode rather than in a ThreadLocal, which would keep one cipher alive per virtual thread.
+// A cipher is only ever used by the thread that took it out of the pool.
 public class EncryptionUtil {
 
     private static final String ALGORITHM = "AES";
     private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
+    private static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
     private final SecretKeySpec secretKeySpec;
+    private final CipherPool encryptCiphers;
+    private final CipherPool decryptCiphers;
 
     public EncryptionUtil(String base64SecretKey ) {
+        this(base64SecretKey, DEFAULT_POOL_SIZE);
+    }
+
+    public EncryptionUtil(String base64SecretKey, int poolSize) {
         byte[] keyBytes = Base64.getDecoder().decode(base64SecretKey);
         this.secretKeySpec = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.encryptCiphers = new CipherPool(Cipher.ENCRYPT_MODE, poolSize);
+        this.decryptCiphers = new CipherPool(Cipher.DECRYPT_MODE, poolSize);
     }
 
     public String encrypt(String plainText) throws Exception {
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec);
-        byte[] encryptedBytes = cipher.doFinal(plainText.getBytes());
-        return Base64.getEncoder().encodeToString(encryptedBytes);
+        return encryptAll(plainText)[0];
     }
 
     public String decrypt(String encryptedText) throws Exception {
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.DECRYPT_MODE, secretKeySpec);
-        byte[] decodedBytes = Base64.getDecoder().decode(encryptedText);
-        byte[] decryptedBytes = cipher.doFinal(decodedBytes);
-        return new String(decryptedBytes);
+        return decryptAll(encryptedText)[0];
+    }
+
+    // All fields go through one borrowed cipher, e.g. the four fields of a credit card.
+    public String[] encryptAll(String... plainTexts) throws Exception {
+        Cipher cipher = encryptCiphers.borrow();
+        String[] encryptedTexts = new String[plainTexts.length];
+        for (int i = 0; i < plainTexts.length; i++) {
+            byte[] encryptedBytes = cipher.doFinal(plainTexts[i].getBytes(StandardCharsets.UTF_8));
+            encryptedTexts[i] = Base64.getEncoder().encodeToString(encryptedBytes);
+        }
+        encryptCiphers.release(cipher);
+        return encryptedTexts;
+    }
+
+    // A cipher that failed on corrupted input is not returned to the pool.
+    public String[] decryptAll(String... encryptedTexts) throws Exception {
+        Cipher cipher = decryptCiphers.borrow();
+        String[] plainTexts = new String[encryptedTexts.length];
+        for (int i = 0; i < encryptedTexts.length; i++) {
+            byte[] decodedBytes = Base64.getDecoder().decode(encryptedTexts[i]);
+            plainTexts[i] = new String(cipher.doFinal(decodedBytes), StandardCharsets.UTF_8);
+        }
+        decryptCiphers.release(cipher);
+        return plainTexts;
+    }
+
+    // doFinal leaves a cipher initialised with the same key and mode, so a released one is ready for the next call.
+    private class CipherPool {
+        private final int mode;
+        private final int maxSize;
+        private final Queue<Cipher> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        private CipherPool(int mode, int maxSize) {
+            this.mode = mode;
+            this.maxSize = maxSize;
+        }
+
+        private Cipher borrow() throws GeneralSecurityException {
+            Cipher cipher = idle.poll();
+            if (cipher != null) {
+                idleCount.decrementAndGet();
+                return cipher;
+            }
+            cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, secretKeySpec);
+            return cipher;
+        }
+
+        // Ciphers created during a burst beyond the pool size are left to the garbage collector.
+        private void release(Cipher cipher) {
+            if (idleCount.incrementAndGet() <= maxSize) {
+                idle.offer(cipher);
+            } else {
+                idleCount.decrementAndGet();
+            }
+        }
     }
 }
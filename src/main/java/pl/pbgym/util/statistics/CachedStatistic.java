@@ -0,0 +1,26 @@
+package pl.pbgym.util.statistics;
+
+public final class CachedStatistic<T> {
+
+    private final T value;
+    private final String eTag;
+    private final long version;
+
+    public CachedStatistic(T value, String eTag, long version) {
+        this.value = value;
+        this.eTag = eTag;
+        this.version = version;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,21 @@
+package pl.pbgym.util.statistics;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+import pl.pbgym.service.statistics.OccupancyHeatmapService;
+
+@Component
+public class OccupancyHeatmapLoader implements CommandLineRunner {
+
+    private final OccupancyHeatmapService occupancyHeatmapService;
+
+    public OccupancyHeatmapLoader(OccupancyHeatmapService occupancyHeatmapService) {
+        this.occupancyHeatmapService = occupancyHeatmapService;
+    }
+
+    @Override
+    public void run(String... args) {
+        // The heatmap lives in memory, so after a restart it is filled once from the visits in its window.
+        occupancyHeatmapService.rebuild();
+    }
+}
@@ -0,0 +1,21 @@
+package pl.pbgym.util.statistics;
+
+import java.time.LocalDateTime;
+
+public class OpenVisit {
+    private final Long locationId;
+    private final LocalDateTime dateTimeOfEntry;
+
+    public OpenVisit(Long locationId, LocalDateTime dateTimeOfEntry) {
+        this.locationId = locationId;
+        this.dateTimeOfEntry = dateTimeOfEntry;
+    }
+
+    public Long getLocationId() {
+        return locationId;
+    }
+
+    public LocalDateTime getDateTimeOfEntry() {
+        return dateTimeOfEntry;
+    }
+}
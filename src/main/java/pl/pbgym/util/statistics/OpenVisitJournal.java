@@ -0,0 +1,205 @@
+package pl.pbgym.util.statistics;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.pbgym.domain.statistics.GymEntry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Append-only log of gym entries and exits, so people inside the gym survive a restart without a database write on
+// every entry scan. Each line is "E|<entry time>|<location id>|<email>" or "X|<exit time>|<email>"; entry lines
+// written before clubs were tracked have no location id and belong to the default club. A scan only updates the mirror
+// and puts its line on a lock-free queue; the lines are appended and forced to disk in batches by the sync, so scans
+// never wait on the file or on each other. A crash loses at most one sync interval of scans.
+@Component
+public class OpenVisitJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenVisitJournal.class);
+    private static final String ENTRY = "E";
+    private static final String EXIT = "X";
+
+    private final Path path;
+    // Mirrors the journal, so compaction can rewrite it without reading the file back. It is updated before the line
+    // is queued, so a compaction snapshot either already holds a change or is followed by its line in the new file.
+    private final Map<String, OpenVisit> openVisits = new ConcurrentHashMap<>();
+    private final Queue<String> pendingLines = new ConcurrentLinkedQueue<>();
+    private FileChannel channel;
+
+    public OpenVisitJournal(@Value("${statistics.journal.path:data/open-visits.journal}") String path) {
+        this.path = Path.of(path).toAbsolutePath();
+        try {
+            Files.createDirectories(this.path.getParent());
+            replay();
+            terminateTornLine();
+            this.channel = open(this.path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open open-visit journal " + this.path, e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Map<String, OpenVisit> getOpenVisits() {
+        return new LinkedHashMap<>(openVisits);
+    }
+
+    // Lines of one user are queued in the order of that user's scans, which the caller already serializes.
+    public void recordEntry(String email, Long locationId, LocalDateTime dateTimeOfEntry) {
+        openVisits.put(email, new OpenVisit(locationId, dateTimeOfEntry));
+        pendingLines.add(entryLine(dateTimeOfEntry, locationId, email));
+    }
+
+    public void recordExit(String email, LocalDateTime dateTimeOfExit) {
+        openVisits.remove(email);
+        pendingLines.add(exitLine(dateTimeOfExit, email));
+    }
+
+    // The monitor is only shared with compaction and shutdown, never with scans.
+    @Scheduled(fixedDelayString = "${statistics.journal.sync-ms:200}")
+    public synchronized void sync() {
+        if (pendingLines.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        String line;
+        while ((line = pendingLines.poll()) != null) {
+            lines.append(line);
+        }
+        try {
+            write(channel, lines.toString());
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            logger.error("Dziennik otwartych wizyt jest zamknięty, pominięto {} znaków wpisów.", lines.length());
+        } catch (IOException e) {
+            logger.error("Nie udało się zapisać dziennika otwartych wizyt na dysk. Szczegóły: {}", e.getMessage());
+        }
+    }
+
+    // Rewrites the journal with one entry line per visit that is still open, then swaps it in atomically.
+    @Scheduled(initialDelayString = "${statistics.journal.compaction-ms:3600000}", fixedDelayString = "${statistics.journal.compaction-ms:3600000}")
+    public synchronized void compact() {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compacting");
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            StringBuilder lines = new StringBuilder();
+            openVisits.forEach((email, openVisit) -> lines.append(entryLine(openVisit.getDateTimeOfEntry(), openVisit.getLocationId(), email)));
+            write(target, lines.toString());
+            target.force(true);
+
+            channel.close();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = open(path);
+            logger.info("Skompaktowano dziennik otwartych wizyt do {} wpisów.", openVisits.size());
+        } catch (IOException e) {
+            logger.error("Nie udało się skompaktować dziennika otwartych wizyt. Szczegóły: {}", e.getMessage());
+            reopenIfClosed();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        sync();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Nie udało się zamknąć dziennika otwartych wizyt. Szczegóły: {}", e.getMessage());
+        }
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\\|", 4);
+                try {
+                    if (parts.length == 4 && ENTRY.equals(parts[0])) {
+                        openVisits.put(parts[3], new OpenVisit(Long.valueOf(parts[2]), LocalDateTime.parse(parts[1])));
+                    } else if (parts.length == 3 && ENTRY.equals(parts[0])) {
+                        openVisits.put(parts[2], new OpenVisit(GymEntry.DEFAULT_LOCATION_ID, LocalDateTime.parse(parts[1])));
+                    } else if (parts.length == 3 && EXIT.equals(parts[0])) {
+                        openVisits.remove(parts[2]);
+                    } else {
+                        skipped++;
+                    }
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    skipped++;
+                }
+            }
+        }
+        // A torn last line after a crash is expected and simply dropped.
+        if (skipped > 0) {
+            logger.warn("Pominięto {} nieprawidłowych wpisów dziennika otwartych wizyt.", skipped);
+        }
+        logger.info("Odtworzono z dziennika {} otwartych wizyt.", openVisits.size());
+    }
+
+    // A crash can leave the last line without its newline; the next record must not be glued onto it.
+    private void terminateTornLine() throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = file.size();
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            if (size > 0 && file.read(lastByte, size - 1) == 1 && lastByte.get(0) != '\n') {
+                file.write(ByteBuffer.wrap(new byte[]{'\n'}), size);
+            }
+        }
+    }
+
+    private void reopenIfClosed() {
+        if (channel.isOpen()) {
+            return;
+        }
+        try {
+            channel = open(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot reopen open-visit journal " + path, e);
+        }
+    }
+
+    private static String entryLine(LocalDateTime dateTimeOfEntry, Long locationId, String email) {
+        return ENTRY + "|" + dateTimeOfEntry + "|" + locationId + "|" + email + "\n";
+    }
+
+    private static String exitLine(LocalDateTime dateTimeOfExit, String email) {
+        return EXIT + "|" + dateTimeOfExit + "|" + email + "\n";
+    }
+
+    private static void write(FileChannel target, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
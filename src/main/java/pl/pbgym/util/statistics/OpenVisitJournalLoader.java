@@ -0,0 +1,41 @@
+package pl.pbgym.util.statistics;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import pl.pbgym.service.statistics.UserCounterService;
+
+// Started before the embedded web server (see StatisticsRollupBackfill), so no scan can reach the counter before the
+// people who were inside when the application stopped are put back from the journal.
+@Component
+public class OpenVisitJournalLoader implements SmartLifecycle {
+
+    private static final int PHASE = 0;
+
+    private final UserCounterService userCounterService;
+    private volatile boolean running;
+
+    public OpenVisitJournalLoader(UserCounterService userCounterService) {
+        this.userCounterService = userCounterService;
+    }
+
+    @Override
+    public void start() {
+        userCounterService.restoreOpenVisits();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
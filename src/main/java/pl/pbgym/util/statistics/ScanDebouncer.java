@@ -0,0 +1,84 @@
+package pl.pbgym.util.statistics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Remembers the last accepted scan per user in a fixed array of packed longs: the high bits hold a fingerprint of the
+// email, the low bits the time bucket of the scan. Nothing is allocated per scan and slots are claimed with CAS, so a
+// burst of scans never takes a lock. Slot and fingerprint come from a 64-bit hash of the email rather than
+// String.hashCode(), whose collisions are easy to hit. Two users sharing a slot with different fingerprints only
+// overwrite each other's stamp, which can let a repeat scan through. Only two users sharing both the slot and the
+// 22-bit fingerprint - about one pair in four million of those sharing a slot - can swallow each other's scan.
+@Component
+public class ScanDebouncer {
+
+    private static final int TIME_BITS = 42;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final int BUCKETS_PER_WINDOW = 16;
+
+    private final long bucketMillis;
+    private final long windowBuckets;
+    private final int mask;
+    private final AtomicLongArray slots;
+
+    public ScanDebouncer(@Value("${statistics.scan.debounce-ms:3000}") long windowMillis,
+                         @Value("${statistics.scan.debounce-slots:4096}") int slots) {
+        this.bucketMillis = Math.max(1, windowMillis / BUCKETS_PER_WINDOW);
+        this.windowBuckets = windowMillis <= 0 ? 0 : Math.max(1, windowMillis / bucketMillis);
+        int capacity = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicLongArray(windowBuckets == 0 ? 1 : capacity);
+    }
+
+    // False means the user was already scanned within the window and this scan should only be acknowledged.
+    public boolean tryAcquire(String email) {
+        if (windowBuckets == 0) {
+            return true;
+        }
+        long hash = hash(email);
+        int index = (int) hash & mask;
+        long fingerprint = fingerprint(hash);
+        long now = (System.currentTimeMillis() / bucketMillis) & TIME_MASK;
+        long stamp = fingerprint << TIME_BITS | now;
+        while (true) {
+            long current = slots.get(index);
+            if (current != 0 && current >>> TIME_BITS == fingerprint && now - (current & TIME_MASK) < windowBuckets) {
+                return false;
+            }
+            if (slots.compareAndSet(index, current, stamp)) {
+                return true;
+            }
+        }
+    }
+
+    // Forgets the user's stamp after a scan that was refused, so an immediate retry is not swallowed.
+    public void release(String email) {
+        if (windowBuckets == 0) {
+            return;
+        }
+        long hash = hash(email);
+        int index = (int) hash & mask;
+        long current = slots.get(index);
+        if (current >>> TIME_BITS == fingerprint(hash)) {
+            slots.compareAndSet(index, current, 0L);
+        }
+    }
+
+    // The top bits, so they never overlap the low bits used for the slot index.
+    private static long fingerprint(long hash) {
+        return hash >>> TIME_BITS;
+    }
+
+    // FNV-1a over the characters, finished with the SplitMix64 mix so every output bit depends on the whole email.
+    private static long hash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            hash = (hash ^ email.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
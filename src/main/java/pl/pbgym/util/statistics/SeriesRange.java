@@ -0,0 +1,116 @@
+package pl.pbgym.util.statistics;
+
+import pl.pbgym.exception.statistics.InvalidStatisticsRangeException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public final class SeriesRange {
+
+    // Bounds used in queries when the caller leaves one side of the range open.
+    private static final LocalDate EARLIEST = LocalDate.of(1900, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 30);
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final SeriesUnit unit;
+    private final long maxBuckets;
+
+    private SeriesRange(LocalDate from, LocalDate to, SeriesUnit unit, long maxBuckets) {
+        this.from = from;
+        this.to = to;
+        this.unit = unit;
+        this.maxBuckets = maxBuckets;
+    }
+
+    // Every bucket of the series is allocated, so a wide range at a fine granularity (e.g. centuries of hours) is
+    // rejected up front. An open end counts until today. An open start is only known once the first record is read, so
+    // up front it is at least today for a future end, and newCounts/newSums check the cap again on the real bounds.
+    public static SeriesRange of(LocalDate from, LocalDate to, SeriesUnit unit, SeriesUnit defaultUnit, long maxBuckets) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidStatisticsRangeException("Start date " + from + " is after end date " + to);
+        }
+        SeriesUnit seriesUnit = unit != null ? unit : defaultUnit;
+        if (from != null) {
+            LocalDate end = to != null ? to : LocalDate.now();
+            checkBuckets(seriesUnit, from.atStartOfDay(), end.atTime(23, 0), maxBuckets);
+        } else if (to != null && to.isAfter(LocalDate.now())) {
+            checkBuckets(seriesUnit, LocalDate.now().atStartOfDay(), to.atTime(23, 0), maxBuckets);
+        }
+        return new SeriesRange(from, to, seriesUnit, maxBuckets);
+    }
+
+    // Internal callers only, the series is bounded by the records it is built from.
+    public static SeriesRange all(SeriesUnit unit) {
+        return new SeriesRange(null, null, unit, Long.MAX_VALUE);
+    }
+
+    public TimeSeries newCounts(LocalDateTime firstRecord, LocalDateTime lastRecord) {
+        LocalDateTime start = seriesStart(firstRecord);
+        LocalDateTime end = seriesEnd(lastRecord);
+        checkBuckets(unit, start, end, maxBuckets);
+        return TimeSeries.counts(unit, start, end);
+    }
+
+    public TimeSeries newSums(LocalDateTime firstRecord, LocalDateTime lastRecord) {
+        LocalDateTime start = seriesStart(firstRecord);
+        LocalDateTime end = seriesEnd(lastRecord);
+        checkBuckets(unit, start, end, maxBuckets);
+        return TimeSeries.sums(unit, start, end);
+    }
+
+    private static void checkBuckets(SeriesUnit unit, LocalDateTime start, LocalDateTime end, long maxBuckets) {
+        long buckets = unit.indexOf(end) - unit.indexOf(start) + 1;
+        if (buckets > maxBuckets) {
+            throw new InvalidStatisticsRangeException("Range " + start.toLocalDate() + ".." + end.toLocalDate() + " spans " + buckets + " " + unit + " buckets, the limit is " + maxBuckets);
+        }
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public SeriesUnit getUnit() {
+        return unit;
+    }
+
+    public LocalDate getQueryFromDate() {
+        return from != null ? from : EARLIEST;
+    }
+
+    public LocalDate getQueryToDate() {
+        return to != null ? to : LATEST;
+    }
+
+    public LocalDateTime getQueryFrom() {
+        return getQueryFromDate().atStartOfDay();
+    }
+
+    // Exclusive, so the whole last day is included.
+    public LocalDateTime getQueryTo() {
+        return getQueryToDate().plusDays(1).atStartOfDay();
+    }
+
+    private LocalDateTime seriesStart(LocalDateTime firstRecord) {
+        return from != null ? from.atStartOfDay() : firstRecord;
+    }
+
+    // Without an explicit end the series runs until now, or until its last record if that lies in the future.
+    private LocalDateTime seriesEnd(LocalDateTime lastRecord) {
+        if (to != null) {
+            return to.atTime(23, 0);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return lastRecord != null && lastRecord.isAfter(now) ? lastRecord : now;
+    }
+
+    // Identifies the range in cache keys, open sides included.
+    @Override
+    public String toString() {
+        return from + ".." + to + "/" + unit;
+    }
+}
@@ -0,0 +1,83 @@
+package pl.pbgym.util.statistics;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+public enum SeriesUnit {
+    DAY {
+        @Override
+        public long indexOf(LocalDateTime dateTime) {
+            return dateTime.toLocalDate().toEpochDay();
+        }
+
+        @Override
+        public LocalDateTime startOf(long index) {
+            return LocalDate.ofEpochDay(index).atStartOfDay();
+        }
+
+        @Override
+        public String keyOf(long index) {
+            return LocalDate.ofEpochDay(index).toString();
+        }
+    },
+    WEEK {
+        // Weeks start on Monday, epoch day 0 (1970-01-01) is a Thursday.
+        @Override
+        public long indexOf(LocalDateTime dateTime) {
+            return Math.floorDiv(dateTime.toLocalDate().toEpochDay() + 3, 7);
+        }
+
+        @Override
+        public LocalDateTime startOf(long index) {
+            return LocalDate.ofEpochDay(index * 7 - 3).atStartOfDay();
+        }
+
+        @Override
+        public String keyOf(long index) {
+            return LocalDate.ofEpochDay(index * 7 - 3).toString();
+        }
+    },
+    MONTH {
+        @Override
+        public long indexOf(LocalDateTime dateTime) {
+            return dateTime.getYear() * 12L + dateTime.getMonthValue() - 1;
+        }
+
+        @Override
+        public LocalDateTime startOf(long index) {
+            return LocalDate.of((int) Math.floorDiv(index, 12), (int) Math.floorMod(index, 12) + 1, 1).atStartOfDay();
+        }
+
+        @Override
+        public String keyOf(long index) {
+            return YearMonth.of((int) Math.floorDiv(index, 12), (int) Math.floorMod(index, 12) + 1).toString();
+        }
+    },
+    HOUR {
+        @Override
+        public long indexOf(LocalDateTime dateTime) {
+            return dateTime.toLocalDate().toEpochDay() * 24 + dateTime.getHour();
+        }
+
+        @Override
+        public LocalDateTime startOf(long index) {
+            return LocalDate.ofEpochDay(Math.floorDiv(index, 24)).atTime((int) Math.floorMod(index, 24), 0);
+        }
+
+        @Override
+        public String keyOf(long index) {
+            return startOf(index).toString();
+        }
+    };
+
+    public abstract long indexOf(LocalDateTime dateTime);
+
+    public abstract LocalDateTime startOf(long index);
+
+    public abstract String keyOf(long index);
+
+    public long indexOf(LocalDate date) {
+        return indexOf(date.atStartOfDay());
+    }
+}
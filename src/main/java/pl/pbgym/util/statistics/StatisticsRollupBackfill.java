@@ -0,0 +1,42 @@
+package pl.pbgym.util.statistics;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import pl.pbgym.service.statistics.StatisticsRollupService;
+
+// Started as a lifecycle bean rather than a CommandLineRunner: runners are called once the embedded web server is
+// already accepting requests, while this phase starts before it (the server starts at Integer.MAX_VALUE - 2048) and
+// before any runner such as the data seeder. No rollup increment can therefore be committed before the backfill.
+@Component
+public class StatisticsRollupBackfill implements SmartLifecycle {
+
+    private static final int PHASE = 0;
+
+    private final StatisticsRollupService statisticsRollupService;
+    private volatile boolean running;
+
+    public StatisticsRollupBackfill(StatisticsRollupService statisticsRollupService) {
+        this.statisticsRollupService = statisticsRollupService;
+    }
+
+    @Override
+    public void start() {
+        statisticsRollupService.backfillMissingRollups();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,16 @@
+package pl.pbgym.util.statistics;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+// Lets the granularity request parameter be given in any case, e.g. "week" or "WEEK".
+@Component
+public class StringToSeriesUnitConverter implements Converter<String, SeriesUnit> {
+
+    @Override
+    public SeriesUnit convert(String source) {
+        return SeriesUnit.valueOf(source.trim().toUpperCase(Locale.ROOT));
+    }
+}
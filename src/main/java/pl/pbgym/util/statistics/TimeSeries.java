@@ -0,0 +1,155 @@
+package pl.pbgym.util.statistics;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@JsonSerialize(using = TimeSeriesSerializer.class)
+public final class TimeSeries {
+
+    private final SeriesUnit unit;
+    private final long startIndex;
+    private final int[] counts;
+    private final double[] sums;
+
+    private TimeSeries(SeriesUnit unit, long startIndex, int[] counts, double[] sums) {
+        this.unit = unit;
+        this.startIndex = startIndex;
+        this.counts = counts;
+        this.sums = sums;
+    }
+
+    public static TimeSeries counts(SeriesUnit unit, LocalDateTime from, LocalDateTime to) {
+        long startIndex = unit.indexOf(from);
+        return new TimeSeries(unit, startIndex, new int[length(startIndex, unit.indexOf(to))], null);
+    }
+
+    public static TimeSeries counts(SeriesUnit unit, LocalDate from, LocalDate to) {
+        return counts(unit, from.atStartOfDay(), to.atStartOfDay());
+    }
+
+    public static TimeSeries sums(SeriesUnit unit, LocalDateTime from, LocalDateTime to) {
+        long startIndex = unit.indexOf(from);
+        return new TimeSeries(unit, startIndex, null, new double[length(startIndex, unit.indexOf(to))]);
+    }
+
+    public static TimeSeries sums(SeriesUnit unit, LocalDate from, LocalDate to) {
+        return sums(unit, from.atStartOfDay(), to.atStartOfDay());
+    }
+
+    public static TimeSeries emptyCounts(SeriesUnit unit) {
+        return new TimeSeries(unit, 0, new int[0], null);
+    }
+
+    public static TimeSeries emptySums(SeriesUnit unit) {
+        return new TimeSeries(unit, 0, null, new double[0]);
+    }
+
+    private static int length(long startIndex, long endIndex) {
+        return (int) Math.max(0, endIndex - startIndex + 1);
+    }
+
+    // Values outside of the series range are ignored, the series only ever covers the requested window.
+    public void add(LocalDateTime dateTime, int count) {
+        int offset = offsetOf(dateTime);
+        if (offset >= 0) {
+            counts[offset] += count;
+        }
+    }
+
+    public void add(LocalDate date, int count) {
+        add(date.atStartOfDay(), count);
+    }
+
+    public void add(LocalDateTime dateTime, double sum) {
+        int offset = offsetOf(dateTime);
+        if (offset >= 0) {
+            sums[offset] += sum;
+        }
+    }
+
+    public void add(LocalDate date, double sum) {
+        add(date.atStartOfDay(), sum);
+    }
+
+    public void merge(TimeSeries other) {
+        if (other.unit != unit || other.isSumSeries() != isSumSeries()) {
+            throw new IllegalArgumentException("Cannot merge a " + other.unit + " series into a " + unit + " series");
+        }
+        long from = Math.max(startIndex, other.startIndex);
+        long to = Math.min(startIndex + size(), other.startIndex + other.size());
+        for (long index = from; index < to; index++) {
+            int offset = (int) (index - startIndex);
+            int otherOffset = (int) (index - other.startIndex);
+            if (isSumSeries()) {
+                sums[offset] += other.sums[otherOffset];
+            } else {
+                counts[offset] += other.counts[otherOffset];
+            }
+        }
+    }
+
+    public TimeSeries regroup(SeriesUnit targetUnit) {
+        if (targetUnit == unit) {
+            return this;
+        }
+        if (size() == 0) {
+            return isSumSeries() ? emptySums(targetUnit) : emptyCounts(targetUnit);
+        }
+        LocalDateTime from = unit.startOf(startIndex);
+        LocalDateTime to = unit.startOf(startIndex + size() - 1);
+        TimeSeries regrouped = isSumSeries() ? sums(targetUnit, from, to) : counts(targetUnit, from, to);
+        for (int i = 0; i < size(); i++) {
+            if (isSumSeries()) {
+                regrouped.add(unit.startOf(startIndex + i), sums[i]);
+            } else {
+                regrouped.add(unit.startOf(startIndex + i), counts[i]);
+            }
+        }
+        return regrouped;
+    }
+
+    public SeriesUnit getUnit() {
+        return unit;
+    }
+
+    public boolean isSumSeries() {
+        return sums != null;
+    }
+
+    public int size() {
+        return isSumSeries() ? sums.length : counts.length;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public String keyAt(int offset) {
+        return unit.keyOf(startIndex + offset);
+    }
+
+    public int countAt(int offset) {
+        return counts[offset];
+    }
+
+    public double sumAt(int offset) {
+        return sums[offset];
+    }
+
+    public int countOn(LocalDate date) {
+        int offset = offsetOf(date.atStartOfDay());
+        return offset >= 0 ? counts[offset] : 0;
+    }
+
+    public double sumOn(LocalDate date) {
+        int offset = offsetOf(date.atStartOfDay());
+        return offset >= 0 ? sums[offset] : 0.0;
+    }
+
+    private int offsetOf(LocalDateTime dateTime) {
+        long offset = unit.indexOf(dateTime) - startIndex;
+        return offset >= 0 && offset < size() ? (int) offset : -1;
+    }
+}
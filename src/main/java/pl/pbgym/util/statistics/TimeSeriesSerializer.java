@@ -0,0 +1,29 @@
+package pl.pbgym.util.statistics;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+// Writes the series as a plain {"2024-01-01": 3, ...} object, the same shape the map based responses had.
+public class TimeSeriesSerializer extends StdSerializer<TimeSeries> {
+
+    public TimeSeriesSerializer() {
+        super(TimeSeries.class);
+    }
+
+    @Override
+    public void serialize(TimeSeries series, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < series.size(); i++) {
+            generator.writeFieldName(series.keyAt(i));
+            if (series.isSumSeries()) {
+                generator.writeNumber(series.sumAt(i));
+            } else {
+                generator.writeNumber(series.countAt(i));
+            }
+        }
+        generator.writeEndObject();
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
@@ -21,8 +22,15 @@ import pl.pbgym.controller.auth.AuthenticationController;
 import pl.pbgym.domain.user.Gender;
 import pl.pbgym.dto.auth.PostAddressRequestDto;
 import pl.pbgym.dto.auth.PostAuthenticationRequestDto;
+import pl.pbgym.dto.auth.GetTokenCacheResponseDto;
 import pl.pbgym.dto.auth.PostWorkerRequestDto;
+import pl.pbgym.dto.user.worker.UpdateWorkerAuthorityRequestDto;
+import pl.pbgym.service.auth.AuthenticatedUserCache;
 import pl.pbgym.service.auth.AuthenticationService;
+import pl.pbgym.service.auth.JwtService;
+import pl.pbgym.service.user.worker.WorkerService;
+import pl.pbgym.util.auth.AuthenticatedUser;
+import pl.pbgym.util.auth.VerifiedJwt;
 import pl.pbgym.domain.user.worker.PermissionType;
 import pl.pbgym.repository.user.AbstractUserRepository;
 import pl.pbgym.repository.user.AddressRepository;
@@ -30,8 +38,12 @@ import pl.pbgym.repository.user.worker.PermissionRepository;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -57,6 +69,15 @@ public class WorkerAuthenticationControllerTest {
     @Autowired
     private AuthenticationService authenticationService;
 
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private WorkerService workerService;
+
+    @Autowired
+    private AuthenticatedUserCache authenticatedUserCache;
+
     private ObjectWriter objectWriter;
 
     private String jwt;
@@ -335,4 +356,132 @@ public class WorkerAuthenticationControllerTest {
                 .andExpect(jsonPath("$.userType").exists())
                 .andExpect(jsonPath("$.userType").value("Worker"));
     }
+
+    @Test
+    public void shouldVerifyIssuedJwtInOnePassAndRejectTamperedOne() {
+        VerifiedJwt verifiedJwt = jwtService.verify(jwt);
+        assertEquals("admin@admin.com", verifiedJwt.getEmail());
+        assertTrue(verifiedJwt.getExpiration().after(new Date()));
+        assertThrows(UnsupportedOperationException.class, () -> verifiedJwt.getAuthorities().add("ADMIN"));
+
+        // Flipped in the middle, next to the padding a changed character may only touch unused bits.
+        int middle = jwt.length() / 2;
+        String tamperedJwt = jwt.substring(0, middle) + (jwt.charAt(middle) == 'A' ? 'B' : 'A') + jwt.substring(middle + 1);
+        assertThrows(RuntimeException.class, () -> jwtService.verify(tamperedJwt));
+    }
+
+    @Test
+    public void shouldServeRepeatedJwtFromCacheUntilPasswordChanges() throws Exception {
+        jwtService.verify(jwt);
+        GetTokenCacheResponseDto before = jwtService.getTokenCacheStatistics();
+        jwtService.verify(jwt);
+        jwtService.verify(jwt);
+        assertEquals(before.getHits() + 2, jwtService.getTokenCacheStatistics().getHits());
+        assertEquals(before.getMisses(), jwtService.getTokenCacheStatistics().getMisses());
+
+        workerService.updatePasswordWithoutOldPasswordCheck("newPassword", "admin@admin.com");
+        GetTokenCacheResponseDto afterChange = jwtService.getTokenCacheStatistics();
+        // Every cached token of the user is dropped, including ones issued in earlier tests.
+        assertTrue(afterChange.getInvalidations() > before.getInvalidations());
+        jwtService.verify(jwt);
+        assertEquals(afterChange.getMisses() + 1, jwtService.getTokenCacheStatistics().getMisses());
+
+        String newJwt = authenticationService.authenticate(
+                new PostAuthenticationRequestDto("admin@admin.com", "newPassword")).getJwt();
+        mockMvc.perform(get("/auth/tokenCache")
+                        .header("Authorization", "Bearer " + newJwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").isNumber())
+                .andExpect(jsonPath("$.hitRate").isNumber());
+    }
+
+    @Test
+    public void shouldRejectTokenIssuedBeforePermissionChange() throws Exception {
+        VerifiedJwt verifiedJwt = jwtService.verify(jwt);
+        assertEquals(0L, verifiedJwt.getVersion());
+        assertEquals(abstractUserRepository.findByEmail("admin@admin.com").orElseThrow().getId(), verifiedJwt.getUserId());
+        assertEquals("WORKER", verifiedJwt.getUserType());
+        assertTrue(verifiedJwt.getAuthorities().containsAll(List.of("WORKER", "ADMIN")));
+
+        mockMvc.perform(get("/auth/tokenCache")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk());
+
+        UpdateWorkerAuthorityRequestDto updateWorkerAuthorityRequestDto = new UpdateWorkerAuthorityRequestDto();
+        updateWorkerAuthorityRequestDto.setPosition("Owner");
+        updateWorkerAuthorityRequestDto.setPermissions(List.of(PermissionType.ADMIN, PermissionType.STATISTICS));
+        workerService.updateWorkerAuthority("admin@admin.com", updateWorkerAuthorityRequestDto);
+
+        // The version lives on the user row, so the revocation also holds for other instances and after a restart.
+        assertEquals(1L, abstractUserRepository.findByEmail("admin@admin.com").orElseThrow().getTokenVersion());
+        // The token still verifies, but it was issued before the change and no longer authenticates.
+        jwtService.verify(jwt);
+        mockMvc.perform(get("/auth/tokenCache")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isForbidden());
+
+        String newJwt = authenticationService.authenticate(
+                new PostAuthenticationRequestDto("admin@admin.com", "password")).getJwt();
+        assertTrue(jwtService.verify(newJwt).getAuthorities().contains("STATISTICS"));
+        assertEquals(1L, jwtService.verify(newJwt).getVersion());
+        mockMvc.perform(get("/auth/tokenCache")
+                        .header("Authorization", "Bearer " + newJwt))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldAuthenticateWithAuthoritiesFromToken() throws Exception {
+        AuthenticatedUser storedUser = authenticatedUserCache.get("admin@admin.com").orElseThrow();
+        assertTrue(storedUser.getAuthorityNames().contains("ADMIN"));
+
+        // A token of the same user and version that only grants WORKER: the request gets exactly what the token says,
+        // not the ADMIN permission stored for the user.
+        String workerOnlyJwt = jwtService.generateToken(Map.of(
+                "authorities", List.of("WORKER"),
+                "uid", storedUser.getId(),
+                "type", "WORKER",
+                "ver", storedUser.getTokenVersion()), storedUser);
+        mockMvc.perform(get("/auth/tokenCache")
+                        .header("Authorization", "Bearer " + workerOnlyJwt))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/auth/tokenCache")
+                        .header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk());
+
+        // The token version is still checked against the stored one.
+        String staleJwt = jwtService.generateToken(Map.of(
+                "authorities", List.of("WORKER", "ADMIN"),
+                "uid", storedUser.getId(),
+                "type", "WORKER",
+                "ver", storedUser.getTokenVersion() + 1), storedUser);
+        mockMvc.perform(get("/auth/tokenCache")
+                        .header("Authorization", "Bearer " + staleJwt))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void shouldCacheAuthenticationProjectionUntilPasswordOrPermissionsChange() {
+        AuthenticatedUser authenticatedUser = authenticatedUserCache.get("admin@admin.com").orElseThrow();
+        assertEquals(abstractUserRepository.findByEmail("admin@admin.com").orElseThrow().getId(), authenticatedUser.getId());
+        assertEquals(List.of("WORKER", "ADMIN"), authenticatedUser.getAuthorityNames());
+        assertNotNull(authenticatedUser.getPassword());
+        assertSame(authenticatedUser, authenticatedUserCache.get("admin@admin.com").orElseThrow());
+        assertTrue(authenticatedUserCache.get("nobody@admin.com").isEmpty());
+
+        // The cached hash survives a login, the authentication manager must not erase it.
+        authenticationService.authenticate(new PostAuthenticationRequestDto("admin@admin.com", "password"));
+        assertNotNull(authenticatedUserCache.get("admin@admin.com").orElseThrow().getPassword());
+
+        UpdateWorkerAuthorityRequestDto updateWorkerAuthorityRequestDto = new UpdateWorkerAuthorityRequestDto();
+        updateWorkerAuthorityRequestDto.setPosition("Owner");
+        updateWorkerAuthorityRequestDto.setPermissions(List.of(PermissionType.ADMIN, PermissionType.BLOG));
+        workerService.updateWorkerAuthority("admin@admin.com", updateWorkerAuthorityRequestDto);
+        assertTrue(authenticatedUserCache.get("admin@admin.com").orElseThrow().getAuthorityNames().contains("BLOG"));
+
+        workerService.updatePasswordWithoutOldPasswordCheck("newPassword", "admin@admin.com");
+        assertThrows(BadCredentialsException.class, () -> authenticationService.authenticate(
+                new PostAuthenticationRequestDto("admin@admin.com", "password")));
+        assertNotNull(authenticationService.authenticate(
+                new PostAuthenticationRequestDto("admin@admin.com", "newPassword")).getJwt());
+    }
 }
@@ -1,5 +1,6 @@
 package pl.pbgym.gym_entry;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -7,23 +8,31 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import pl.pbgym.domain.statistics.DailyStatistic;
 import pl.pbgym.domain.statistics.GymEntry;
+import pl.pbgym.domain.statistics.OccupancyHistory;
+import pl.pbgym.domain.statistics.StatisticType;
 import pl.pbgym.domain.user.Gender;
 import pl.pbgym.dto.auth.*;
 import pl.pbgym.dto.offer.standard.PostStandardOfferRequestDto;
 import pl.pbgym.dto.pass.PostPassRequestDto;
+import pl.pbgym.dto.statistics.GetOccupancyHeatmapResponseDto;
 import pl.pbgym.dto.user.member.PostCreditCardInfoRequestDto;
 import pl.pbgym.repository.gym_entry.GymEntryRepository;
 import pl.pbgym.repository.offer.OfferRepository;
 import pl.pbgym.repository.pass.PassRepository;
+import pl.pbgym.repository.statistics.DailyStatisticRepository;
+import pl.pbgym.repository.statistics.OccupancyHistoryRepository;
 import pl.pbgym.repository.user.member.PaymentRepository;
 import pl.pbgym.repository.user.AbstractUserRepository;
 import pl.pbgym.repository.user.AddressRepository;
@@ -31,16 +40,33 @@ import pl.pbgym.repository.user.member.CreditCardInfoRepository;
 import pl.pbgym.service.auth.AuthenticationService;
 import pl.pbgym.service.offer.OfferService;
 import pl.pbgym.service.pass.PassService;
+import pl.pbgym.service.statistics.GymEntryWriteBehindService;
+import pl.pbgym.service.statistics.LiveStatisticsService;
+import pl.pbgym.service.statistics.OccupancyHeatmapService;
+import pl.pbgym.service.statistics.OccupancyTimelineService;
+import pl.pbgym.service.statistics.StatisticsRollupService;
+import pl.pbgym.service.statistics.UserCounterService;
 import pl.pbgym.service.user.member.CreditCardInfoService;
+import pl.pbgym.util.statistics.OpenVisitJournal;
+import pl.pbgym.util.statistics.ScanDebouncer;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -54,6 +80,14 @@ public class GymEntryControllerAndUserCounterTest {
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
     @Autowired
+    private LiveStatisticsService liveStatisticsService;
+    @Value("${statistics.live.max-subscribers}")
+    private int maxLiveSubscribers;
+    @Autowired
+    private UserCounterService userCounterService;
+    @Autowired
+    private OpenVisitJournal openVisitJournal;
+    @Autowired
     private AbstractUserRepository abstractUserRepository;
     @Autowired
     private AddressRepository addressRepository;
@@ -75,6 +109,18 @@ public class GymEntryControllerAndUserCounterTest {
     private CreditCardInfoRepository creditCardInfoRepository;
     @Autowired
     private GymEntryRepository gymEntryRepository;
+    @Autowired
+    private OccupancyHeatmapService occupancyHeatmapService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private StatisticsRollupService statisticsRollupService;
+    @Autowired
+    private DailyStatisticRepository dailyStatisticRepository;
+    @Autowired
+    private OccupancyTimelineService occupancyTimelineService;
+    @Autowired
+    private OccupancyHistoryRepository occupancyHistoryRepository;
     private String workerEmail = "test@worker.com";
     private String memberEmail = "test@member.com";
     private String trainerEmail = "test@trainer.com";
@@ -273,4 +319,392 @@ public class GymEntryControllerAndUserCounterTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    public void testOccupancyHeatmapAveragesRecordedVisits() throws Exception {
+        occupancyHeatmapService.rebuild();
+        LocalDateTime entry = LocalDateTime.now().minusDays(7).minusHours(3).truncatedTo(ChronoUnit.HOURS);
+        occupancyHeatmapService.recordVisit(entry, entry.plusHours(2));
+
+        MvcResult result = mockMvc.perform(get("/gym/count/heatmap")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode heatmap = objectMapper.readTree(result.getResponse().getContentAsString());
+        int windowWeeks = heatmap.get("windowWeeks").asInt();
+        JsonNode entryDay = heatmap.get("averageOccupancy").get(entry.getDayOfWeek().name());
+
+        assertEquals(7, heatmap.get("averageOccupancy").size());
+        assertEquals(24, entryDay.size());
+        assertEquals(1.0 / windowWeeks, entryDay.get(entry.getHour()).asDouble(), 0.01);
+    }
+
+    @Test
+    public void testOccupancyHeatmapKeepsEveryConcurrentlyRecordedVisit() throws Exception {
+        occupancyHeatmapService.rebuild();
+        LocalDateTime entry = LocalDateTime.now().minusDays(7).minusHours(3).truncatedTo(ChronoUnit.HOURS);
+        int threads = 8;
+        int visitsPerThread = 50;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < visitsPerThread; j++) {
+                        occupancyHeatmapService.recordVisit(entry, entry.plusHours(1));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        GetOccupancyHeatmapResponseDto heatmap = occupancyHeatmapService.getHeatmap(null);
+        double[] entryDay = heatmap.getAverageOccupancy().get(entry.getDayOfWeek());
+        assertEquals((double) threads * visitsPerThread / heatmap.getWindowWeeks(), entryDay[entry.getHour()], 0.01);
+    }
+
+    @Test
+    public void testOccupancyStreamPushesCountAfterEachScan() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/gym/count/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertTrue(stream.getResponse().getContentAsString().contains("event:occupancy\ndata:0\n"));
+
+        for (int expectedCount = 1; expectedCount >= 0; expectedCount--) {
+            mockMvc.perform(post("/gym/registerQRscan/" + trainerEmail)
+                            .header("Authorization", "Bearer " + workerJwt)
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+            liveStatisticsService.publish();
+
+            // Events are written by the sender threads, so the stream catches up shortly after publish returns. The
+            // exit is awaited as the event following the entry, the stream already opened with a count of 0.
+            awaitStreamContent(stream, expectedCount == 1 ? "event:occupancy\ndata:1\n" : "data:1\n\nevent:occupancy\ndata:0\n");
+        }
+    }
+
+    @Test
+    public void testOccupancyStreamIsRefusedAboveSubscriberLimit() throws Exception {
+        List<MvcResult> streams = new ArrayList<>();
+        try {
+            while (liveStatisticsService.getSubscriberCount() < maxLiveSubscribers) {
+                streams.add(mockMvc.perform(get("/gym/count/stream"))
+                        .andExpect(request().asyncStarted())
+                        .andReturn());
+            }
+
+            mockMvc.perform(get("/gym/count/stream"))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            // Closing the streams frees their slots for the rest of the suite.
+            streams.forEach(stream -> stream.getRequest().getAsyncContext().complete());
+        }
+        assertTrue(liveStatisticsService.getSubscriberCount() < maxLiveSubscribers);
+    }
+
+    private static void awaitStreamContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!stream.getResponse().getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(stream.getResponse().getContentAsString().contains(expected));
+    }
+
+    @Test
+    public void testConcurrentScansOfOneUserAlternateEntryAndExit() throws Exception {
+        int scans = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < scans; i++) {
+                futures.add(executor.submit(() -> userCounterService.registerUserAction(trainerEmail)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(0, userCounterService.getCurrentUserCount());
+        assertEquals(scans / 2, gymEntryRepository.findAll().size());
+    }
+
+    @Test
+    public void testOpenVisitIsReplayedFromJournalAndRestored() throws Exception {
+        LocalDateTime dateTimeOfEntry = LocalDateTime.now().minusMinutes(30).truncatedTo(ChronoUnit.SECONDS);
+        openVisitJournal.recordEntry(trainerEmail, GymEntry.DEFAULT_LOCATION_ID, dateTimeOfEntry);
+        openVisitJournal.sync();
+
+        OpenVisitJournal replayedJournal = new OpenVisitJournal(openVisitJournal.getPath().toString());
+        assertEquals(dateTimeOfEntry, replayedJournal.getOpenVisits().get(trainerEmail).getDateTimeOfEntry());
+        replayedJournal.close();
+
+        userCounterService.restoreOpenVisits();
+        assertEquals(1, userCounterService.getCurrentUserCount());
+
+        mockMvc.perform(post("/gym/registerQRscan/" + trainerEmail)
+                        .header("Authorization", "Bearer " + workerJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals(0, userCounterService.getCurrentUserCount());
+        assertFalse(openVisitJournal.getOpenVisits().containsKey(trainerEmail));
+        assertEquals(dateTimeOfEntry, gymEntryRepository.findAll().get(0).getDateTimeOfEntry());
+    }
+
+    @Test
+    public void testWriteBehindQueueFlushesBatchesAndDrainsOnStop() {
+        LocalDate today = LocalDate.now();
+        long gymEntriesBefore = dailyStatisticRepository.findByTypeAndDate(StatisticType.GYM_ENTRIES, today)
+                .map(DailyStatistic::getCount).orElse(0L);
+        GymEntryWriteBehindService writeBehindService = new GymEntryWriteBehindService(jdbcTemplate, statisticsRollupService, occupancyHeatmapService,
+                true, 100, 5, 50, 1000);
+        writeBehindService.start();
+
+        int visits = 12;
+        for (int i = 0; i < visits; i++) {
+            GymEntry gymEntry = new GymEntry();
+            gymEntry.setDateTimeOfEntry(LocalDateTime.now().minusMinutes(60));
+            gymEntry.setDateTimeOfExit(LocalDateTime.now());
+            gymEntry.setAbstractUser(abstractUserRepository.findByEmail(trainerEmail).orElseThrow());
+            writeBehindService.enqueue(gymEntry);
+        }
+        writeBehindService.stop();
+
+        assertEquals(visits, gymEntryRepository.findAll().size());
+        assertEquals(gymEntriesBefore + visits, dailyStatisticRepository.findByTypeAndDate(StatisticType.GYM_ENTRIES, today)
+                .map(DailyStatistic::getCount).orElseThrow());
+        assertEquals(0, writeBehindService.getQueueStatistics().getQueueDepth());
+        assertEquals(visits, writeBehindService.getQueueStatistics().getPersistedEntries());
+        assertEquals(0, writeBehindService.getQueueStatistics().getSynchronousWrites());
+        assertTrue(writeBehindService.getQueueStatistics().getFlushCount() >= 3);
+    }
+
+    @Test
+    public void testScanIsRefusedRightAfterPassDeactivation() throws Exception {
+        mockMvc.perform(post("/gym/registerQRscan/" + memberEmail)
+                        .header("Authorization", "Bearer " + workerJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/gym/registerQRscan/" + memberEmail)
+                        .header("Authorization", "Bearer " + workerJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        passService.deactivatePass(passRepository.findByMemberEmail(memberEmail).orElseThrow());
+
+        mockMvc.perform(post("/gym/registerQRscan/" + memberEmail)
+                        .header("Authorization", "Bearer " + workerJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isForbidden());
+        assertEquals(0, userCounterService.getCurrentUserCount());
+    }
+
+    @Test
+    public void testRepeatScansInsideDebounceWindowAreSuppressed() throws Exception {
+        ScanDebouncer scanDebouncer = new ScanDebouncer(60_000, 64);
+        assertTrue(scanDebouncer.tryAcquire(memberEmail));
+        assertFalse(scanDebouncer.tryAcquire(memberEmail));
+        assertTrue(scanDebouncer.tryAcquire(trainerEmail));
+
+        ScanDebouncer burstDebouncer = new ScanDebouncer(60_000, 64);
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                futures.add(executor.submit(() -> {
+                    if (burstDebouncer.tryAcquire(memberEmail)) {
+                        accepted.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, accepted.get());
+
+        ScanDebouncer disabledDebouncer = new ScanDebouncer(0, 64);
+        assertTrue(disabledDebouncer.tryAcquire(memberEmail));
+        assertTrue(disabledDebouncer.tryAcquire(memberEmail));
+    }
+
+    @Test
+    public void testOccupancyIsCountedPerLocationAndChainWide() throws Exception {
+        mockMvc.perform(post("/gym/registerQRscan/" + memberEmail)
+                        .param("locationId", "2")
+                        .header("Authorization", "Bearer " + workerJwt))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/gym/registerQRscan/" + trainerEmail)
+                        .param("locationId", "3")
+                        .header("Authorization", "Bearer " + workerJwt))
+                .andExpect(status().isOk());
+
+        assertEquals(1, Integer.parseInt(mockMvc.perform(get("/gym/count").param("locationId", "2"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString()));
+        assertEquals(2, Integer.parseInt(mockMvc.perform(get("/gym/count"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString()));
+
+        // Showing up at another club closes the visit left open at the previous one.
+        mockMvc.perform(post("/gym/registerQRscan/" + trainerEmail)
+                        .param("locationId", "2")
+                        .header("Authorization", "Bearer " + workerJwt))
+                .andExpect(status().isOk());
+
+        JsonNode occupancy = objectMapper.readTree(mockMvc.perform(get("/gym/count/locations"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        assertEquals(2, occupancy.get("total").asInt());
+        assertEquals(2, occupancy.get("locations").get("2").asInt());
+        assertEquals(0, occupancy.get("locations").get("3").asInt());
+        assertEquals(3L, gymEntryRepository.findAll().get(0).getLocationId());
+
+        mockMvc.perform(post("/gym/registerQRscan/" + memberEmail)
+                        .param("locationId", "0")
+                        .header("Authorization", "Bearer " + workerJwt))
+                .andExpect(status().isBadRequest());
+
+        userCounterService.registerUserAction(memberEmail, 2L);
+        userCounterService.registerUserAction(trainerEmail, 2L);
+        assertEquals(0, userCounterService.getCurrentUserCount());
+    }
+
+    @Test
+    public void testConcurrentScansOfOneUserAtTwoClubsNeverCountThemTwice() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                long locationId = 2 + i % 2;
+                futures.add(executor.submit(() -> userCounterService.registerUserAction(trainerEmail, locationId)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<Long, Integer> byLocation = userCounterService.getCurrentUserCountByLocation();
+        int inside = byLocation.values().stream().mapToInt(Integer::intValue).sum();
+        assertTrue(inside <= 1);
+        assertEquals(inside, userCounterService.getCurrentUserCount());
+        byLocation.forEach((locationId, count) -> {
+            if (count == 1) {
+                userCounterService.registerUserAction(trainerEmail, locationId);
+            }
+        });
+        assertEquals(0, userCounterService.getCurrentUserCount());
+    }
+
+    @Test
+    public void testFullLocationQueuesScanAndCallsItOnExit() throws Exception {
+        // Capacity is an admin setting - a plain worker may not change it.
+        mockMvc.perform(put("/gym/capacity/5")
+                        .param("capacity", "1")
+                        .header("Authorization", "Bearer " + workerJwt))
+                .andExpect(status().isForbidden());
+        userCounterService.setCapacity(5L, 1);
+
+        mockMvc.perform(post("/gym/registerQRscan/" + memberEmail)
+                        .param("locationId", "5")
+                        .header("Authorization", "Bearer " + workerJwt))
+                .andExpect(status().isOk());
+        String refusal = mockMvc.perform(post("/gym/registerQRscan/" + trainerEmail)
+                        .param("locationId", "5")
+                        .header("Authorization", "Bearer " + workerJwt))
+                .andExpect(status().isConflict())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(refusal.endsWith("position in queue: 1"));
+        assertEquals(1, userCounterService.getCurrentUserCount(5L));
+
+        // The freed slot is held for the trainer, so the member cannot take it back first.
+        userCounterService.registerUserAction(memberEmail, 5L);
+        mockMvc.perform(post("/gym/registerQRscan/" + memberEmail)
+                        .param("locationId", "5")
+                        .header("Authorization", "Bearer " + workerJwt))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/gym/registerQRscan/" + trainerEmail)
+                        .param("locationId", "5")
+                        .header("Authorization", "Bearer " + workerJwt))
+                .andExpect(status().isOk());
+        assertEquals(1, userCounterService.getCurrentUserCount(5L));
+
+        userCounterService.setCapacity(5L, 0);
+        userCounterService.registerUserAction(trainerEmail, 5L);
+        userCounterService.registerUserAction(memberEmail, 5L);
+        userCounterService.registerUserAction(memberEmail, 5L);
+        assertEquals(0, userCounterService.getCurrentUserCount());
+    }
+
+    @Test
+    public void testOccupancyTimelineKeepsMinutePeakAndPersistsIt() throws Exception {
+        userCounterService.registerUserAction(memberEmail);
+        userCounterService.registerUserAction(trainerEmail);
+        userCounterService.registerUserAction(trainerEmail);
+
+        JsonNode timeline = objectMapper.readTree(mockMvc.perform(get("/gym/count/timeline").param("minutes", "5"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        JsonNode latest = timeline.get("samples").get(timeline.get("samples").size() - 1);
+        assertEquals(1, latest.get("occupancy").asInt());
+        // Other tests may have scanned in the same minute, so the peak is only bounded from below.
+        assertTrue(latest.get("peakOccupancy").asInt() >= 2);
+        assertTrue(timeline.get("peakOccupancy").asInt() >= 2);
+
+        // Persisting the same minute twice updates its row instead of adding another one.
+        LocalDateTime minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        occupancyTimelineService.persist(minute);
+        userCounterService.registerUserAction(memberEmail);
+        occupancyTimelineService.persist(minute);
+
+        List<OccupancyHistory> history = occupancyHistoryRepository.findAllBetween(minute, minute);
+        assertEquals(1, history.size());
+        assertEquals(0, history.get(0).getOccupancy());
+        assertTrue(history.get(0).getPeakOccupancy() >= 2);
+        assertEquals(0, userCounterService.getCurrentUserCount());
+    }
+
+    @Test
+    public void testOccupancyTimelineRollOverStartsFromLiveCount() throws Exception {
+        userCounterService.registerUserAction(memberEmail);
+        userCounterService.rollOverOccupancyTimeline();
+
+        JsonNode timeline = objectMapper.readTree(mockMvc.perform(get("/gym/count/timeline").param("minutes", "1"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        JsonNode latest = timeline.get("samples").get(timeline.get("samples").size() - 1);
+        assertEquals(userCounterService.getCurrentUserCount(), latest.get("occupancy").asInt());
+
+        userCounterService.registerUserAction(memberEmail);
+    }
+
+    @Test
+    public void testStaleOpenVisitIsAutoClosedAndFlagged() throws Exception {
+        userCounterService.registerUserAction(memberEmail);
+        assertEquals(0, userCounterService.closeVisitsEnteredBefore(LocalDateTime.now().minusMinutes(1)));
+        assertEquals(1, userCounterService.getCurrentUserCount());
+
+        userCounterService.registerUserAction(trainerEmail);
+        userCounterService.registerUserAction(trainerEmail);
+        // The trainer's visit was already closed by a scan, so only the member's one is left to expire.
+        assertEquals(1, userCounterService.closeVisitsEnteredBefore(LocalDateTime.now().plusSeconds(1)));
+        assertEquals(0, userCounterService.getCurrentUserCount());
+
+        List<GymEntry> gymEntries = gymEntryRepository.findAll();
+        assertEquals(2, gymEntries.size());
+        assertEquals(1, gymEntries.stream().filter(GymEntry::getAutoClosed).count());
+        assertFalse(openVisitJournal.getOpenVisits().containsKey(memberEmail));
+
+        // The next scan after an auto-close is a fresh entry, not an exit.
+        userCounterService.registerUserAction(memberEmail);
+        assertEquals(1, userCounterService.getCurrentUserCount());
+        userCounterService.registerUserAction(memberEmail);
+        assertEquals(0, userCounterService.getCurrentUserCount());
+    }
 }
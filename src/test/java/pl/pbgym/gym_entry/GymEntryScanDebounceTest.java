@@ -0,0 +1,199 @@
+package pl.pbgym.gym_entry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import pl.pbgym.domain.user.Gender;
+import pl.pbgym.dto.auth.PostAddressRequestDto;
+import pl.pbgym.dto.auth.PostAuthenticationRequestDto;
+import pl.pbgym.dto.auth.PostMemberRequestDto;
+import pl.pbgym.dto.auth.PostWorkerRequestDto;
+import pl.pbgym.dto.offer.standard.PostStandardOfferRequestDto;
+import pl.pbgym.dto.pass.PostPassRequestDto;
+import pl.pbgym.dto.user.member.PostCreditCardInfoRequestDto;
+import pl.pbgym.repository.gym_entry.GymEntryRepository;
+import pl.pbgym.repository.offer.OfferRepository;
+import pl.pbgym.repository.pass.PassRepository;
+import pl.pbgym.repository.user.AbstractUserRepository;
+import pl.pbgym.repository.user.AddressRepository;
+import pl.pbgym.repository.user.member.CreditCardInfoRepository;
+import pl.pbgym.repository.user.member.PaymentRepository;
+import pl.pbgym.service.auth.AuthenticationService;
+import pl.pbgym.service.offer.OfferService;
+import pl.pbgym.service.pass.PassService;
+import pl.pbgym.service.statistics.UserCounterService;
+import pl.pbgym.service.user.member.CreditCardInfoService;
+import pl.pbgym.util.statistics.ScanDebouncer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The shared test profile turns the debounce window off, so this class runs its own context with a real window. It
+// gets its own in-memory database, so it never touches the schema of the shared context.
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles(profiles = "test")
+@Profile("test")
+@TestPropertySource(properties = {
+        "statistics.scan.debounce-ms=60000",
+        "spring.datasource.url=jdbc:h2:mem:debounce;Mode=PostgreSQL;DB_CLOSE_DELAY=-1"
+})
+public class GymEntryScanDebounceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserCounterService userCounterService;
+    @Autowired
+    private ScanDebouncer scanDebouncer;
+    @Autowired
+    private AbstractUserRepository abstractUserRepository;
+    @Autowired
+    private AddressRepository addressRepository;
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private OfferService offerService;
+    @Autowired
+    private OfferRepository offerRepository;
+    @Autowired
+    private PassRepository passRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private PassService passService;
+    @Autowired
+    private CreditCardInfoService creditCardInfoService;
+    @Autowired
+    private CreditCardInfoRepository creditCardInfoRepository;
+    @Autowired
+    private GymEntryRepository gymEntryRepository;
+    private String memberEmail = "debounce@member.com";
+    private String workerJwt;
+
+    @Before
+    public void setUp() {
+        abstractUserRepository.deleteAll();
+        addressRepository.deleteAll();
+        offerRepository.deleteAll();
+        passRepository.deleteAll();
+        paymentRepository.deleteAll();
+        creditCardInfoRepository.deleteAll();
+        gymEntryRepository.deleteAll();
+
+        PostWorkerRequestDto postWorkerRequestDto = new PostWorkerRequestDto();
+        postWorkerRequestDto.setEmail("debounce@worker.com");
+        postWorkerRequestDto.setPassword("12345678");
+        postWorkerRequestDto.setName("Test");
+        postWorkerRequestDto.setSurname("User");
+        postWorkerRequestDto.setBirthdate(LocalDate.of(2002, 5, 10));
+        postWorkerRequestDto.setPesel("12345678912");
+        postWorkerRequestDto.setPhoneNumber("123123123");
+        postWorkerRequestDto.setIdCardNumber("ABD123456");
+        postWorkerRequestDto.setPosition("Worker");
+        postWorkerRequestDto.setGender(Gender.MALE);
+        postWorkerRequestDto.setPermissions(new ArrayList<>());
+        postWorkerRequestDto.setAddress(address());
+
+        authenticationService.registerWorker(postWorkerRequestDto);
+        workerJwt = authenticationService.authenticate(
+                new PostAuthenticationRequestDto("debounce@worker.com", "12345678")).getJwt();
+
+        PostMemberRequestDto postMemberRequestDto = new PostMemberRequestDto();
+        postMemberRequestDto.setEmail(memberEmail);
+        postMemberRequestDto.setPassword("12345678");
+        postMemberRequestDto.setName("Test");
+        postMemberRequestDto.setSurname("User");
+        postMemberRequestDto.setBirthdate(LocalDate.of(2002, 5, 10));
+        postMemberRequestDto.setPesel("12345678912");
+        postMemberRequestDto.setPhoneNumber("123123123");
+        postMemberRequestDto.setGender(Gender.FEMALE);
+        postMemberRequestDto.setAddress(address());
+        authenticationService.registerMember(postMemberRequestDto);
+
+        PostCreditCardInfoRequestDto creditCardInfoRequestDto = new PostCreditCardInfoRequestDto();
+        creditCardInfoRequestDto.setCardNumber("4111111111111111");
+        creditCardInfoRequestDto.setExpirationMonth("12");
+        creditCardInfoRequestDto.setExpirationYear("25");
+        creditCardInfoRequestDto.setCvc("123");
+        creditCardInfoService.saveCreditCardInfo(memberEmail, creditCardInfoRequestDto);
+
+        PostStandardOfferRequestDto postStandardOfferRequest = new PostStandardOfferRequestDto();
+        postStandardOfferRequest.setTitle("Oferta testu okna ochronnego");
+        postStandardOfferRequest.setSubtitle("Kup karnet już dzisiaj");
+        postStandardOfferRequest.setMonthlyPrice(300.0);
+        postStandardOfferRequest.setEntryFee(10.0);
+        postStandardOfferRequest.setDurationInMonths(6);
+        postStandardOfferRequest.setProperties(List.of("Siła - bądź silny"));
+        postStandardOfferRequest.setActive(true);
+        offerService.saveStandardOffer(postStandardOfferRequest);
+
+        PostPassRequestDto passRequest = new PostPassRequestDto();
+        passRequest.setOfferId(offerService.getStandardOfferByTitle("Oferta testu okna ochronnego").getId());
+        passService.createPass(memberEmail, passRequest);
+    }
+
+    @Test
+    public void testRepeatScanInsideWindowIsAcknowledgedWithoutToggling() throws Exception {
+        int countBefore = userCounterService.getCurrentUserCount();
+
+        scan().andExpect(status().isOk());
+        assertEquals(countBefore + 1, userCounterService.getCurrentUserCount());
+
+        // A double read of the same QR code must not turn the entry into an exit.
+        scan().andExpect(status().isOk());
+        assertEquals(countBefore + 1, userCounterService.getCurrentUserCount());
+        assertEquals(0, gymEntryRepository.count());
+
+        // Dropping the stamp stands in for the window running out, after which the next scan is an exit again.
+        scanDebouncer.release(memberEmail);
+        scan().andExpect(status().isOk());
+        assertEquals(countBefore, userCounterService.getCurrentUserCount());
+        assertEquals(1, gymEntryRepository.count());
+    }
+
+    @Test
+    public void testUsersWithCollidingStringHashesDoNotDebounceEachOther() {
+        String first = "Aa.debounce@member.com";
+        String second = "BB.debounce@member.com";
+        assertEquals(first.hashCode(), second.hashCode());
+
+        assertTrue(scanDebouncer.tryAcquire(first));
+        assertTrue(scanDebouncer.tryAcquire(second));
+        assertFalse(scanDebouncer.tryAcquire(first));
+        assertFalse(scanDebouncer.tryAcquire(second));
+        scanDebouncer.release(first);
+        scanDebouncer.release(second);
+    }
+
+    private ResultActions scan() throws Exception {
+        return mockMvc.perform(post("/gym/registerQRscan/" + memberEmail)
+                .header("Authorization", "Bearer " + workerJwt)
+                .contentType(MediaType.APPLICATION_JSON));
+    }
+
+    private static PostAddressRequestDto address() {
+        PostAddressRequestDto postAddressRequestDto = new PostAddressRequestDto();
+        postAddressRequestDto.setCity("City");
+        postAddressRequestDto.setStreetName("Street");
+        postAddressRequestDto.setBuildingNumber("1");
+        postAddressRequestDto.setPostalCode("15-123");
+        return postAddressRequestDto;
+    }
+}
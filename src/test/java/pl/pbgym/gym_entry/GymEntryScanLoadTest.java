@@ -0,0 +1,295 @@
+package pl.pbgym.gym_entry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Profile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.pbgym.domain.user.Gender;
+import pl.pbgym.dto.auth.PostAddressRequestDto;
+import pl.pbgym.dto.auth.PostAuthenticationRequestDto;
+import pl.pbgym.dto.auth.PostMemberRequestDto;
+import pl.pbgym.dto.auth.PostWorkerRequestDto;
+import pl.pbgym.dto.offer.standard.PostStandardOfferRequestDto;
+import pl.pbgym.dto.pass.PostPassRequestDto;
+import pl.pbgym.dto.user.member.PostCreditCardInfoRequestDto;
+import pl.pbgym.repository.gym_entry.GymEntryRepository;
+import pl.pbgym.repository.offer.OfferRepository;
+import pl.pbgym.repository.pass.PassRepository;
+import pl.pbgym.repository.user.AbstractUserRepository;
+import pl.pbgym.repository.user.AddressRepository;
+import pl.pbgym.repository.user.member.CreditCardInfoRepository;
+import pl.pbgym.repository.user.member.PaymentRepository;
+import pl.pbgym.service.auth.AuthenticationService;
+import pl.pbgym.service.offer.OfferService;
+import pl.pbgym.service.pass.PassService;
+import pl.pbgym.service.statistics.GymEntryWriteBehindService;
+import pl.pbgym.service.statistics.UserCounterService;
+import pl.pbgym.service.user.member.CreditCardInfoService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Load generator for the scan pipeline. The defaults keep it fast enough for the regular build; a real run is
+// configured from the command line, e.g.
+// mvn test -Dtest=GymEntryScanLoadTest -Dloadtest.members=2000 -Dloadtest.concurrency=256 -Dloadtest.pattern=peak
+// Finished visits go through the write-behind queue like in production, so the latencies are those of the shipped
+// pipeline. Only the debounce window stays off, as a member scans out after the dwell time, well within it. The class
+// runs its own context with its own in-memory database, so it never touches the schema of the shared context.
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles(profiles = "test")
+@Profile("test")
+@TestPropertySource(properties = {
+        "statistics.write-behind.enabled=true",
+        "statistics.scan.debounce-ms=0",
+        "spring.datasource.url=jdbc:h2:mem:loadtest;Mode=PostgreSQL;DB_CLOSE_DELAY=-1"
+})
+public class GymEntryScanLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GymEntryScanLoadTest.class);
+
+    private final int members = Integer.getInteger("loadtest.members", 40);
+    private final int visitsPerMember = Integer.getInteger("loadtest.visits", 2);
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+    private final int locations = Integer.getInteger("loadtest.locations", 2);
+    // "steady" spreads arrivals evenly over the window, "peak" piles them up around its middle like the 17:00 rush.
+    private final String pattern = System.getProperty("loadtest.pattern", "peak");
+    private final long windowMillis = Long.getLong("loadtest.window-ms", 1000);
+    private final long dwellMillis = Long.getLong("loadtest.dwell-ms", 50);
+    private final long seed = Long.getLong("loadtest.seed", 17);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserCounterService userCounterService;
+    @Autowired
+    private AbstractUserRepository abstractUserRepository;
+    @Autowired
+    private AddressRepository addressRepository;
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private OfferService offerService;
+    @Autowired
+    private OfferRepository offerRepository;
+    @Autowired
+    private PassRepository passRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private PassService passService;
+    @Autowired
+    private CreditCardInfoService creditCardInfoService;
+    @Autowired
+    private CreditCardInfoRepository creditCardInfoRepository;
+    @Autowired
+    private GymEntryRepository gymEntryRepository;
+    @Autowired
+    private GymEntryWriteBehindService gymEntryWriteBehindService;
+    private final List<String> memberEmails = new ArrayList<>();
+    private String workerJwt;
+
+    @Before
+    public void setUp() {
+        abstractUserRepository.deleteAll();
+        addressRepository.deleteAll();
+        offerRepository.deleteAll();
+        passRepository.deleteAll();
+        paymentRepository.deleteAll();
+        creditCardInfoRepository.deleteAll();
+        gymEntryRepository.deleteAll();
+
+        PostWorkerRequestDto postWorkerRequestDto = new PostWorkerRequestDto();
+        postWorkerRequestDto.setEmail("load@worker.com");
+        postWorkerRequestDto.setPassword("12345678");
+        postWorkerRequestDto.setName("Test");
+        postWorkerRequestDto.setSurname("User");
+        postWorkerRequestDto.setBirthdate(LocalDate.of(2002, 5, 10));
+        postWorkerRequestDto.setPesel("12345678912");
+        postWorkerRequestDto.setPhoneNumber("123123123");
+        postWorkerRequestDto.setIdCardNumber("ABD123456");
+        postWorkerRequestDto.setPosition("Worker");
+        postWorkerRequestDto.setGender(Gender.MALE);
+        postWorkerRequestDto.setPermissions(new ArrayList<>());
+        postWorkerRequestDto.setAddress(address());
+
+        authenticationService.registerWorker(postWorkerRequestDto);
+        workerJwt = authenticationService.authenticate(
+                new PostAuthenticationRequestDto("load@worker.com", "12345678")).getJwt();
+
+        PostStandardOfferRequestDto postStandardOfferRequest = new PostStandardOfferRequestDto();
+        postStandardOfferRequest.setTitle("Oferta testu obciążenia");
+        postStandardOfferRequest.setSubtitle("Kup karnet już dzisiaj");
+        postStandardOfferRequest.setMonthlyPrice(300.0);
+        postStandardOfferRequest.setEntryFee(10.0);
+        postStandardOfferRequest.setDurationInMonths(6);
+        postStandardOfferRequest.setProperties(List.of("Siła - bądź silny"));
+        postStandardOfferRequest.setActive(true);
+        offerService.saveStandardOffer(postStandardOfferRequest);
+        Long offerId = offerService.getStandardOfferByTitle("Oferta testu obciążenia").getId();
+
+        for (int i = 0; i < members; i++) {
+            String email = "load" + i + "@member.com";
+            PostMemberRequestDto postMemberRequestDto = new PostMemberRequestDto();
+            postMemberRequestDto.setEmail(email);
+            postMemberRequestDto.setPassword("12345678");
+            postMemberRequestDto.setName("Test");
+            postMemberRequestDto.setSurname("User");
+            postMemberRequestDto.setBirthdate(LocalDate.of(2002, 5, 10));
+            postMemberRequestDto.setPesel("12345678912");
+            postMemberRequestDto.setPhoneNumber("123123123");
+            postMemberRequestDto.setGender(Gender.FEMALE);
+            postMemberRequestDto.setAddress(address());
+            authenticationService.registerMember(postMemberRequestDto);
+
+            PostCreditCardInfoRequestDto creditCardInfoRequestDto = new PostCreditCardInfoRequestDto();
+            creditCardInfoRequestDto.setCardNumber("4111111111111111");
+            creditCardInfoRequestDto.setExpirationMonth("12");
+            creditCardInfoRequestDto.setExpirationYear("25");
+            creditCardInfoRequestDto.setCvc("123");
+            creditCardInfoService.saveCreditCardInfo(email, creditCardInfoRequestDto);
+
+            PostPassRequestDto passRequest = new PostPassRequestDto();
+            passRequest.setOfferId(offerId);
+            passService.createPass(email, passRequest);
+            memberEmails.add(email);
+        }
+    }
+
+    @Test
+    public void testScanPipelineStaysConsistentUnderLoad() throws Exception {
+        int totalScans = members * visitsPerMember * 2;
+        long[] latencies = new long[totalScans];
+        AtomicInteger recorded = new AtomicInteger();
+        AtomicInteger peakOccupancy = new AtomicInteger();
+        // Caps requests in flight, while every member still gets a virtual thread of their own for the waiting.
+        Semaphore inFlight = new Semaphore(concurrency);
+        Random random = new Random(seed);
+        long[] arrivals = new long[members * visitsPerMember];
+        for (int i = 0; i < arrivals.length; i++) {
+            arrivals[i] = arrivalOffset(random);
+        }
+
+        long persistedBefore = gymEntryWriteBehindService.getQueueStatistics().getPersistedEntries();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(members);
+            for (int i = 0; i < members; i++) {
+                String email = memberEmails.get(i);
+                String locationId = String.valueOf(i % locations + 1);
+                long[] memberArrivals = Arrays.copyOfRange(arrivals, i * visitsPerMember, (i + 1) * visitsPerMember);
+                Arrays.sort(memberArrivals);
+                futures.add(executor.submit(() -> {
+                    // A member's entry and exit are sequential, only different members race each other.
+                    for (long arrival : memberArrivals) {
+                        sleepUntil(start, arrival);
+                        latencies[recorded.getAndIncrement()] = scan(email, locationId, inFlight);
+                        peakOccupancy.accumulateAndGet(userCounterService.getCurrentUserCount(), Math::max);
+                        TimeUnit.MILLISECONDS.sleep(dwellMillis);
+                        latencies[recorded.getAndIncrement()] = scan(email, locationId, inFlight);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        logger.info("Test obciążenia ({}): {} skanów, {} członków, współbieżność {}. Przepustowość: {} skanów/s, p50: {} ms, p99: {} ms, " +
+                        "max: {} ms, najwyższe obłożenie: {}.", pattern, totalScans, members, concurrency,
+                String.format("%.1f", totalScans / (elapsedNanos / 1_000_000_000.0)), millis(percentile(latencies, 50)),
+                millis(percentile(latencies, 99)), millis(latencies[latencies.length - 1]), peakOccupancy.get());
+
+        assertEquals(totalScans, recorded.get());
+        assertEquals(0, userCounterService.getCurrentUserCount());
+        assertTrue(userCounterService.getCurrentUserCountByLocation().values().stream().allMatch(count -> count == 0));
+        // The visits are written behind the scans, so the queue is given time to drain before the rows are checked.
+        awaitPersisted(persistedBefore + (long) members * visitsPerMember);
+        assertEquals(0, gymEntryWriteBehindService.getQueueStatistics().getQueueDepth());
+        assertEquals(0L, gymEntryWriteBehindService.getQueueStatistics().getSynchronousWrites());
+        assertEquals(members * visitsPerMember, gymEntryRepository.findAll().size());
+        assertTrue(gymEntryRepository.findAll().stream().allMatch(gymEntry -> gymEntry.getDateTimeOfExit() != null &&
+                !gymEntry.getDateTimeOfExit().isBefore(gymEntry.getDateTimeOfEntry())));
+    }
+
+    private long scan(String email, String locationId, Semaphore inFlight) throws Exception {
+        inFlight.acquire();
+        try {
+            long scanStart = System.nanoTime();
+            mockMvc.perform(post("/gym/registerQRscan/" + email)
+                            .param("locationId", locationId)
+                            .header("Authorization", "Bearer " + workerJwt))
+                    .andExpect(status().isOk());
+            return System.nanoTime() - scanStart;
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private void awaitPersisted(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (gymEntryWriteBehindService.getQueueStatistics().getPersistedEntries() + gymEntryWriteBehindService.getQueueStatistics().getFailedEntries() < expected
+                && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+    // Arrival offset within the window; the peak pattern is a triangle centred on the middle of the window.
+    private long arrivalOffset(Random random) {
+        if ("steady".equals(pattern)) {
+            return (long) (random.nextDouble() * windowMillis);
+        }
+        return (long) ((random.nextDouble() + random.nextDouble()) / 2 * windowMillis);
+    }
+
+    private static void sleepUntil(long start, long offsetMillis) throws InterruptedException {
+        long remaining = start + TimeUnit.MILLISECONDS.toNanos(offsetMillis) - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    private static PostAddressRequestDto address() {
+        PostAddressRequestDto postAddressRequestDto = new PostAddressRequestDto();
+        postAddressRequestDto.setCity("City");
+        postAddressRequestDto.setStreetName("Street");
+        postAddressRequestDto.setBuildingNumber("1");
+        postAddressRequestDto.setPostalCode("15-123");
+        return postAddressRequestDto;
+    }
+}
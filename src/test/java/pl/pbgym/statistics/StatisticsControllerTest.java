@@ -0,0 +1,490 @@
+package pl.pbgym.statistics;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import pl.pbgym.domain.statistics.GymEntry;
+import pl.pbgym.domain.statistics.StatisticType;
+import pl.pbgym.domain.user.Gender;
+import pl.pbgym.domain.user.worker.PermissionType;
+import pl.pbgym.dto.auth.*;
+import pl.pbgym.dto.offer.standard.PostStandardOfferRequestDto;
+import pl.pbgym.dto.pass.PostPassRequestDto;
+import pl.pbgym.dto.user.member.PostCreditCardInfoRequestDto;
+import pl.pbgym.repository.gym_entry.GymEntryRepository;
+import pl.pbgym.repository.offer.OfferRepository;
+import pl.pbgym.repository.pass.PassRepository;
+import pl.pbgym.repository.statistics.DailyStatisticRepository;
+import pl.pbgym.repository.statistics.StatisticBackfillRepository;
+import pl.pbgym.repository.user.AbstractUserRepository;
+import pl.pbgym.repository.user.AddressRepository;
+import pl.pbgym.repository.user.member.CreditCardInfoRepository;
+import pl.pbgym.repository.user.member.PaymentRepository;
+import pl.pbgym.service.auth.AuthenticationService;
+import pl.pbgym.service.offer.OfferService;
+import pl.pbgym.service.pass.PassService;
+import pl.pbgym.service.statistics.StatisticsRollupService;
+import pl.pbgym.service.user.member.CreditCardInfoService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles(profiles = "test")
+@Profile("test")
+public class StatisticsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AbstractUserRepository abstractUserRepository;
+    @Autowired
+    private AddressRepository addressRepository;
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private OfferService offerService;
+    @Autowired
+    private OfferRepository offerRepository;
+    @Autowired
+    private PassRepository passRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private PassService passService;
+    @Autowired
+    private CreditCardInfoService creditCardInfoService;
+    @Autowired
+    private CreditCardInfoRepository creditCardInfoRepository;
+    @Autowired
+    private GymEntryRepository gymEntryRepository;
+    @Autowired
+    private DailyStatisticRepository dailyStatisticRepository;
+    @Autowired
+    private StatisticBackfillRepository statisticBackfillRepository;
+    @Autowired
+    private StatisticsRollupService statisticsRollupService;
+    private String adminEmail = "admin@worker.com";
+    private String memberEmail = "test@member.com";
+    private String adminJwt;
+
+    @Before
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.configure(SerializationFeature.WRAP_ROOT_VALUE, false);
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+
+        abstractUserRepository.deleteAll();
+        addressRepository.deleteAll();
+        offerRepository.deleteAll();
+        passRepository.deleteAll();
+        paymentRepository.deleteAll();
+        creditCardInfoRepository.deleteAll();
+        gymEntryRepository.deleteAll();
+        dailyStatisticRepository.deleteAll();
+
+        PostAddressRequestDto postAddressRequestDto = new PostAddressRequestDto();
+        postAddressRequestDto.setCity("City");
+        postAddressRequestDto.setStreetName("Street");
+        postAddressRequestDto.setBuildingNumber("1B");
+        postAddressRequestDto.setPostalCode("15-123");
+
+        PostWorkerRequestDto adminWorkerRequest = new PostWorkerRequestDto();
+        adminWorkerRequest.setEmail(adminEmail);
+        adminWorkerRequest.setPassword("12345678");
+        adminWorkerRequest.setName("Test");
+        adminWorkerRequest.setSurname("User");
+        adminWorkerRequest.setBirthdate(LocalDate.of(1990, 1, 1));
+        adminWorkerRequest.setPesel("12345678912");
+        adminWorkerRequest.setPhoneNumber("123456789");
+        adminWorkerRequest.setIdCardNumber("ABC123456");
+        adminWorkerRequest.setPosition("Owner");
+        adminWorkerRequest.setGender(Gender.FEMALE);
+        adminWorkerRequest.setAddress(postAddressRequestDto);
+        adminWorkerRequest.setPermissions(List.of(PermissionType.ADMIN));
+
+        authenticationService.registerWorker(adminWorkerRequest);
+        adminJwt = authenticationService.authenticate(
+                new PostAuthenticationRequestDto(adminEmail, "12345678")).getJwt();
+
+        PostAddressRequestDto postAddressRequestDto2 = new PostAddressRequestDto();
+        postAddressRequestDto2.setCity("City");
+        postAddressRequestDto2.setStreetName("Street");
+        postAddressRequestDto2.setBuildingNumber("1 A");
+        postAddressRequestDto2.setPostalCode("15-123");
+
+        PostMemberRequestDto postMemberRequestDto = new PostMemberRequestDto();
+        postMemberRequestDto.setEmail(memberEmail);
+        postMemberRequestDto.setPassword("12345678");
+        postMemberRequestDto.setName("Test");
+        postMemberRequestDto.setSurname("User");
+        postMemberRequestDto.setBirthdate(LocalDate.of(2002, 5, 10));
+        postMemberRequestDto.setPesel("12345678912");
+        postMemberRequestDto.setPhoneNumber("123123123");
+        postMemberRequestDto.setGender(Gender.FEMALE);
+        postMemberRequestDto.setAddress(postAddressRequestDto2);
+
+        authenticationService.registerMember(postMemberRequestDto);
+
+        PostCreditCardInfoRequestDto creditCardInfoRequestDto = new PostCreditCardInfoRequestDto();
+        creditCardInfoRequestDto.setCardNumber("4111111111111111");
+        creditCardInfoRequestDto.setExpirationMonth("12");
+        creditCardInfoRequestDto.setExpirationYear("25");
+        creditCardInfoRequestDto.setCvc("123");
+
+        creditCardInfoService.saveCreditCardInfo(memberEmail, creditCardInfoRequestDto);
+
+        PostStandardOfferRequestDto postStandardOfferRequest = new PostStandardOfferRequestDto();
+        postStandardOfferRequest.setTitle("Standardowa Oferta 6msc");
+        postStandardOfferRequest.setSubtitle("Kup karnet już dzisiaj");
+        postStandardOfferRequest.setMonthlyPrice(300.0);
+        postStandardOfferRequest.setEntryFee(10.0);
+        postStandardOfferRequest.setDurationInMonths(6);
+        postStandardOfferRequest.setProperties(List.of("Siła - bądź silny", "Super treningi", "Kochaj sport kochaj życie"));
+        postStandardOfferRequest.setActive(true);
+
+        offerService.saveStandardOffer(postStandardOfferRequest);
+
+        PostPassRequestDto passRequest = new PostPassRequestDto();
+        passRequest.setOfferId(offerService.getStandardOfferByTitle("Standardowa Oferta 6msc").getId());
+        passService.createPass(memberEmail, passRequest);
+    }
+
+    @Test
+    public void shouldCountMemberRegistrationInDailySeries() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/statistics/memberRegistrations/daily")
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<String, Integer> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<>() {});
+
+        assertEquals(1, response.size());
+        assertEquals(Integer.valueOf(1), response.get(LocalDate.now().toString()));
+    }
+
+    @Test
+    public void shouldSumPaymentsInMonthlySeries() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/statistics/paymentSums/monthly")
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<String, Double> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<>() {});
+
+        assertEquals(310.0, response.get(YearMonth.now().toString()), 0.001);
+    }
+
+    @Test
+    public void shouldReturnTodaysPassRegistrationsWithChange() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/statistics/passesRegistrations/today")
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("1; +100%", mvcResult.getResponse().getContentAsString());
+    }
+
+    @Test
+    public void shouldCountGymEntryAfterMemberExits() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/gym/registerQRscan/" + memberEmail)
+                            .header("Authorization", "Bearer " + adminJwt)
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        MvcResult mvcResult = mockMvc.perform(get("/statistics/gymEntries/daily")
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<String, Integer> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<>() {});
+
+        assertEquals(Integer.valueOf(1), response.get(LocalDate.now().toString()));
+    }
+
+    @Test
+    public void shouldReturnNotModifiedUntilGymEntryIsRecorded() throws Exception {
+        String eTag = mockMvc.perform(get("/statistics/gymEntries/daily")
+                        .header("Authorization", "Bearer " + adminJwt))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(eTag);
+
+        mockMvc.perform(get("/statistics/gymEntries/daily")
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/gym/registerQRscan/" + memberEmail)
+                            .header("Authorization", "Bearer " + adminJwt)
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        MvcResult mvcResult = mockMvc.perform(get("/statistics/gymEntries/daily")
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertNotEquals(eTag, mvcResult.getResponse().getHeader("ETag"));
+        Map<String, Integer> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<>() {});
+        assertEquals(Integer.valueOf(1), response.get(LocalDate.now().toString()));
+
+        JsonNode cache = objectMapper.readTree(mockMvc.perform(get("/statistics/cache")
+                        .header("Authorization", "Bearer " + adminJwt))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertTrue(cache.get("hits").asLong() >= 1);
+        assertTrue(cache.get("misses").asLong() >= 2);
+    }
+
+    @Test
+    public void shouldStreamTodaysStatisticsOnSubscribe() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/statistics/live")
+                        .header("Authorization", "Bearer " + adminJwt))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String content = stream.getResponse().getContentAsString();
+        assertTrue(content.startsWith("event:statistics\ndata:"));
+        assertTrue(content.contains("\"passesRegisteredToday\":\"1; +100%\""));
+    }
+
+    @Test
+    public void shouldCountMemberMonthlyGymEntries() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            mockMvc.perform(post("/gym/registerQRscan/" + memberEmail)
+                            .header("Authorization", "Bearer " + adminJwt)
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        MvcResult mvcResult = mockMvc.perform(get("/memberStatistics/getMonthlyGymEntries/" + memberEmail)
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<String, Integer> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<>() {});
+
+        assertEquals(1, response.size());
+        assertEquals(Integer.valueOf(2), response.get(YearMonth.now().toString()));
+    }
+
+    @Test
+    public void shouldSumMemberGymMinutesPerDay() throws Exception {
+        LocalDateTime entry = LocalDateTime.now().minusDays(1).withHour(10).withMinute(0);
+        GymEntry gymEntry = new GymEntry();
+        gymEntry.setDateTimeOfEntry(entry);
+        gymEntry.setDateTimeOfExit(entry.plusMinutes(95));
+        gymEntry.setAbstractUser(abstractUserRepository.findByEmail(memberEmail).orElseThrow());
+        gymEntryRepository.save(gymEntry);
+
+        MvcResult mvcResult = mockMvc.perform(get("/memberStatistics/getDailyGymMinutes/" + memberEmail)
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<String, Integer> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<>() {});
+
+        assertEquals(2, response.size());
+        assertEquals(Integer.valueOf(95), response.get(entry.toLocalDate().toString()));
+        assertEquals(Integer.valueOf(0), response.get(LocalDate.now().toString()));
+    }
+
+    @Test
+    public void shouldReturnAllStatisticsInDashboard() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/statistics/dashboard")
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode response = objectMapper.readTree(mvcResult.getResponse().getContentAsString());
+
+        assertEquals(1, response.get("memberCount").asInt());
+        assertEquals(1, response.get("activePassCount").asInt());
+        assertEquals(1, response.get("dailyMemberRegistrations").get(LocalDate.now().toString()).asInt());
+        assertEquals(310.0, response.get("monthlyPaymentSums").get(YearMonth.now().toString()).asDouble(), 0.001);
+        assertEquals("1; +100%", response.get("passesRegisteredToday").asText());
+        assertTrue(response.get("dailyGymEntries").isEmpty());
+    }
+
+    @Test
+    public void shouldLimitSeriesToRequestedRange() throws Exception {
+        LocalDate today = LocalDate.now();
+        MvcResult mvcResult = mockMvc.perform(get("/statistics/memberRegistrations/daily")
+                        .param("from", today.minusDays(2).toString())
+                        .param("to", today.toString())
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<String, Integer> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<>() {});
+
+        assertEquals(3, response.size());
+        assertEquals(Integer.valueOf(0), response.get(today.minusDays(2).toString()));
+        assertEquals(Integer.valueOf(1), response.get(today.toString()));
+    }
+
+    @Test
+    public void shouldGroupPaymentsByHour() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        MvcResult mvcResult = mockMvc.perform(get("/statistics/paymentSums/daily")
+                        .param("from", now.toLocalDate().toString())
+                        .param("to", now.toLocalDate().toString())
+                        .param("granularity", "hour")
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<String, Double> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<>() {});
+
+        assertEquals(24, response.size());
+        assertEquals(310.0, response.get(now.truncatedTo(ChronoUnit.HOURS).toString()), 0.001);
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenRangeIsReversed() throws Exception {
+        mockMvc.perform(get("/statistics/gymEntries/monthly")
+                        .param("from", LocalDate.now().toString())
+                        .param("to", LocalDate.now().minusDays(1).toString())
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldMarkEveryMetricAsBackfilledAtStartup() {
+        assertEquals(StatisticType.values().length, statisticBackfillRepository.count());
+    }
+
+    @Test
+    public void shouldBackfillMetricWithRollupRowsButNoMarker() {
+        statisticBackfillRepository.deleteById(StatisticType.MEMBER_REGISTRATIONS);
+        // A row left by an increment committed before the backfill must not stop the metric from being rebuilt.
+        statisticsRollupService.rebuild(StatisticType.MEMBER_REGISTRATIONS, LocalDate.now(), 7, 0.0);
+
+        statisticsRollupService.backfillMissingRollups();
+
+        assertEquals(Long.valueOf(1), dailyStatisticRepository
+                .findByTypeAndDate(StatisticType.MEMBER_REGISTRATIONS, LocalDate.now()).orElseThrow().getCount());
+        assertTrue(statisticBackfillRepository.existsById(StatisticType.MEMBER_REGISTRATIONS));
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenSeriesHasTooManyBuckets() throws Exception {
+        mockMvc.perform(get("/statistics/paymentSums/daily")
+                        .param("from", "0001-01-01")
+                        .param("to", "9999-12-31")
+                        .param("granularity", "HOUR")
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/memberStatistics/getMonthlyGymEntries/" + memberEmail)
+                        .param("from", "0001-01-01")
+                        .param("granularity", "DAY")
+                        .header("Authorization", "Bearer " + adminJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenOpenStartedSeriesHasTooManyBuckets() throws Exception {
+        String memberJwt = authenticationService.authenticate(
+                new PostAuthenticationRequestDto(memberEmail, "12345678")).getJwt();
+
+        mockMvc.perform(get("/memberStatistics/getDailyGymMinutes/" + memberEmail)
+                        .param("to", "9999-12-30")
+                        .param("granularity", "HOUR")
+                        .header("Authorization", "Bearer " + memberJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        // Without a start the series begins at the first record, so an old visit makes an open range too wide as well.
+        LocalDateTime entry = LocalDateTime.now().minusYears(5);
+        GymEntry gymEntry = new GymEntry();
+        gymEntry.setDateTimeOfEntry(entry);
+        gymEntry.setDateTimeOfExit(entry.plusMinutes(60));
+        gymEntry.setAbstractUser(abstractUserRepository.findByEmail(memberEmail).orElseThrow());
+        gymEntryRepository.save(gymEntry);
+
+        mockMvc.perform(get("/memberStatistics/getDailyGymMinutes/" + memberEmail)
+                        .param("granularity", "HOUR")
+                        .header("Authorization", "Bearer " + memberJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/memberStatistics/getDailyGymMinutes/" + memberEmail)
+                        .param("granularity", "DAY")
+                        .header("Authorization", "Bearer " + memberJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenOccupancyHistorySpansTooManyMinutes() throws Exception {
+        mockMvc.perform(get("/statistics/occupancyHistory")
+                        .param("from", "2000-01-01T00:00")
+                        .param("to", "2024-12-31T23:59")
+                        .header("Authorization", "Bearer " + adminJwt))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/statistics/occupancyHistory")
+                        .param("from", "2024-12-01T00:00")
+                        .param("to", "2024-12-31T23:59")
+                        .header("Authorization", "Bearer " + adminJwt))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldReturnForbiddenWhenMemberFetchesStatistics() throws Exception {
+        String memberJwt = authenticationService.authenticate(
+                new PostAuthenticationRequestDto(memberEmail, "12345678")).getJwt();
+
+        mockMvc.perform(get("/statistics/gymEntries/daily")
+                        .header("Authorization", "Bearer " + memberJwt)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isForbidden());
+    }
+}
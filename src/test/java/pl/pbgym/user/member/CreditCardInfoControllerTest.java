@@ -7,6 +7,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
@@ -26,13 +27,20 @@ import pl.pbgym.repository.user.AbstractUserRepository;
 import pl.pbgym.repository.user.AddressRepository;
 import pl.pbgym.repository.user.member.CreditCardInfoRepository;
 import pl.pbgym.service.auth.AuthenticationService;
+import pl.pbgym.util.encryption.EncryptionUtil;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -53,6 +61,9 @@ public class CreditCardInfoControllerTest {
     private AuthenticationService authenticationService;
     @Autowired
     private CreditCardInfoRepository creditCardInfoRepository;
+    @Autowired
+    @Qualifier("creditCardEncryptionUtil")
+    private EncryptionUtil encryptionUtil;
     private String managerJwt;
     private String memberJwt;
     private String memberEmail = "test1@member.com";
@@ -323,4 +334,25 @@ public class CreditCardInfoControllerTest {
                         .header("Authorization", "Bearer " + memberJwt))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    public void shouldEncryptAndDecryptCardFieldsInBatchesFromManyThreads() throws Exception {
+        String[] cardFields = {"4111111111111111", "123", "09", "2031"};
+        String[] encrypted = encryptionUtil.encryptAll(cardFields);
+        assertEquals(encrypted[1], encryptionUtil.encrypt("123"));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String[]>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> encryptionUtil.decryptAll(encryptionUtil.encryptAll(cardFields))));
+            }
+            for (Future<String[]> result : results) {
+                assertArrayEquals(cardFields, result.get());
+            }
+        }
+
+        // A failed decryption must not leave a broken cipher behind for the next call.
+        assertThrows(Exception.class, () -> encryptionUtil.decryptAll(encrypted[0], "AAAA"));
+        assertArrayEquals(cardFields, encryptionUtil.decryptAll(encrypted));
+    }
 }